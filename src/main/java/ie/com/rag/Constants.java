@@ -3,6 +3,7 @@ package ie.com.rag;
 import ie.com.rag.utils.SkillDatabaseLoader;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -26,6 +27,27 @@ public class Constants {
             
             """;
 
+    /**
+     * The prompt template for follow-up questions inside a conversation session.
+     * It adds a rolling summary of the previous turns to the standard document context.
+     */
+    public static final String CONVERSATION_PROMPT = """
+            Your task is to answer the questions about any content available. Use the information from the DOCUMENTS
+            section to provide accurate answers. The CONVERSATION section summarises the previous questions and answers,
+            use it to resolve references such as "he", "she" or "that candidate". If unsure or if the answer isn't found
+            in the DOCUMENTS section, simply state that you don't know the answer.
+            
+            CONVERSATION:
+            {history}
+            
+            QUESTION:
+            {input}
+            
+            DOCUMENTS:
+            {documents}
+            
+            """;
+
     // Constants for better maintainability
     public static final int DEFAULT_RECENT_ITEMS_LIMIT = 5;
     public static final int TOP_SKILLS_LIMIT = 10;
@@ -34,6 +56,14 @@ public class Constants {
     public static final int RECENT_UPLOADS_DAYS = 7;
     public static final int GROWTH_METRICS_DAYS = 30;
 
+    // Upload content types accepted by the upload endpoints; the Tika parser is built for exactly these
+    public static final Set<String> ALLOWED_UPLOAD_CONTENT_TYPES = Set.of(
+            "application/pdf",
+            "application/msword",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "text/plain"
+    );
+
     // Skill distribution ranges
     public static final String SKILLS_1_3 = "1-3 skills";
     public static final String SKILLS_4_7 = "4-7 skills";
@@ -44,16 +74,16 @@ public class Constants {
     public static final int MIN_SKILL_LENGTH = 2;
     public static final int MAX_SKILL_LENGTH = 50;
 
-    // Pattern covers current and emerging tech including AI/ML ecosystem
-    public static final Pattern TECH_PATTERN = Pattern.compile(
-            "\\b(java|python|javascript|typescript|react|angular|vue|spring|spring boot|spring cloud|" +
-            "nodejs|docker|kubernetes|aws|azure|gcp|sql|mongodb|postgresql|mysql|git|jenkins|ci/cd|" +
-            "agile|scrum|devops|microservices|api|rest|graphql|html|css|sass|less|bootstrap|tailwind|" +
-            "maven|gradle|junit|selenium|cypress|terraform|ansible|redis|elasticsearch|kafka|rabbitmq|" +
-            "nginx|apache|linux|ubuntu|centos|kotlin|golang|rust|scala|llm|openai|pytorch|tensorflow|" +
-            "machine learning|deep learning|langchain|hugging face|natural language processing|" +
-            "large language model|vector database|pgvector|spring ai)\\b",
-            Pattern.CASE_INSENSITIVE
+    // Technology vocabulary covering current and emerging tech including AI/ML ecosystem
+    public static final List<String> TECH_TERMS = List.of(
+            "java", "python", "javascript", "typescript", "react", "angular", "vue", "spring", "spring boot",
+            "spring cloud", "nodejs", "docker", "kubernetes", "aws", "azure", "gcp", "sql", "mongodb", "postgresql",
+            "mysql", "git", "jenkins", "ci/cd", "agile", "scrum", "devops", "microservices", "api", "rest", "graphql",
+            "html", "css", "sass", "less", "bootstrap", "tailwind", "maven", "gradle", "junit", "selenium", "cypress",
+            "terraform", "ansible", "redis", "elasticsearch", "kafka", "rabbitmq", "nginx", "apache", "linux",
+            "ubuntu", "centos", "kotlin", "golang", "rust", "scala", "llm", "openai", "pytorch", "tensorflow",
+            "machine learning", "deep learning", "langchain", "hugging face", "natural language processing",
+            "large language model", "vector database", "pgvector", "spring ai"
     );
 
     public static final Pattern VERSION_PATTERN = Pattern.compile(
@@ -0,0 +1,21 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Admission control for heavy ingestion work. Every document takes permits weighted by its size and type out of
+ * a fixed capacity; uploads waiting for permits form a bounded queue.
+ *
+ * @param capacity         the number of permits this node hands out, its sustainable amount of parallel work
+ * @param permitBytes      the file size, in bytes, that costs one extra permit
+ * @param parsedTypeWeight the multiplier for documents that need parsing, such as PDF and Word files
+ * @param maxQueued        how many documents may wait for permits before new uploads are turned away
+ * @param maxWait          how long an upload waits for permits before it is turned away
+ * @param retryAfter       the delay suggested to clients that are turned away
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.admission")
+public record AdmissionProperties(int capacity, long permitBytes, int parsedTypeWeight, int maxQueued,
+                                  Duration maxWait, Duration retryAfter) {
+}
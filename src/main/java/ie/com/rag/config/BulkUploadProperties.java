@@ -0,0 +1,16 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Limits for bulk CV uploads.
+ *
+ * @param parallelism    how many files of one bulk upload are processed at the same time
+ * @param maxFiles       the maximum number of files accepted in one bulk upload
+ * @param maxEntrySize   the largest archive entry, in bytes, that is read; larger entries are reported as failed
+ * @param maxRequestSize the largest bulk upload request, in bytes; other endpoints keep the
+ *                       {@code spring.servlet.multipart} limits
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.bulk")
+public record BulkUploadProperties(int parallelism, int maxFiles, long maxEntrySize, long maxRequestSize) {
+}
@@ -0,0 +1,14 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Sizing of the chunks documents are split into before embedding. Token counts are estimated at four characters
+ * per token.
+ *
+ * @param maxTokens     the token budget of one chunk
+ * @param overlapTokens how many tokens of trailing sentences a chunk repeats from the previous one
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.chunking")
+public record ChunkingProperties(int maxTokens, int overlapTokens) {
+}
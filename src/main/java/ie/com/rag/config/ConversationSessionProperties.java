@@ -0,0 +1,23 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits and reuse thresholds for multi-turn RAG conversation sessions.
+ *
+ * @param ttl             idle time after which a session expires, both in-process and in Redis
+ * @param maxSessions     the maximum number of sessions kept in the in-process tier
+ * @param maxChunks       the maximum number of retrieved chunks remembered per session
+ * @param summaryMaxChars the size of the rolling conversation summary sent with each follow-up
+ * @param reuseCoverage   share of the question's keywords the remembered chunks must cover to skip retrieval
+ * @param deltaCoverage   share of the question's keywords that marks a follow-up as on-topic, fetching only new chunks
+ * @param deltaTopK       how many neighbours a delta retrieval fetches
+ * @param redisEnabled    whether sessions are mirrored to Redis so they survive restarts and are shared across nodes
+ */
+@ConfigurationProperties(prefix = "rag.session")
+public record ConversationSessionProperties(Duration ttl, int maxSessions, int maxChunks, int summaryMaxChars,
+                                            double reuseCoverage, double deltaCoverage, int deltaTopK,
+                                            boolean redisEnabled) {
+}
@@ -0,0 +1,19 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Batching and retry settings for writing chunks to the embedding model and the {@code vector_store} table.
+ *
+ * @param batchSize    how many chunks are embedded in one model call and inserted in one statement
+ * @param maxRetries   how many times a batch failing with a transient error, such as a timeout or a rate limit, is
+ *                     retried
+ * @param retryBackoff the pause before the first retry, doubled on every further attempt
+ * @param model        the name of the embedding model; vectors are only reused between chunks embedded by the same
+ *                     model with the same dimensions
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.embedding")
+public record EmbeddingBatchProperties(int batchSize, int maxRetries, Duration retryBackoff, String model) {
+}
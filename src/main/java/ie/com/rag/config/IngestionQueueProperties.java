@@ -0,0 +1,22 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the asynchronous CV ingestion queue kept in {@code uploaded_documents}.
+ *
+ * @param enabled      whether this node runs ingestion workers; uploads can be queued either way
+ * @param workers      how many documents this node processes concurrently
+ * @param pollInterval the pause between two looks at the queue
+ * @param staleAfter   how long a claimed document may stay unfinished before it is treated as abandoned
+ * @param maxAttempts  how many times a document is claimed before it is failed for good
+ * @param retryBackoff the delay before a document that failed for a reason that may go away is tried again,
+ *                     doubled on every further attempt
+ * @param storageDir   the directory queued files are stored in until they are processed
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.queue")
+public record IngestionQueueProperties(boolean enabled, int workers, Duration pollInterval, Duration staleAfter,
+                                       int maxAttempts, Duration retryBackoff, String storageDir) {
+}
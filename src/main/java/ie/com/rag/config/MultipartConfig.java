@@ -0,0 +1,39 @@
+package ie.com.rag.config;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Serves the bulk upload from its own dispatcher servlet. The container applies multipart limits per servlet, so
+ * the bulk upload gets {@code rag.ingestion.bulk.max-request-size} while every other endpoint keeps the
+ * {@code spring.servlet.multipart} limits. The container counts the bytes it reads, so requests without a declared
+ * length are held to the same limits.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MultipartConfig {
+
+    static final String BULK_UPLOAD_PATH = "/api/rag/upload/bulk";
+
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> bulkUploadDispatcherServlet(
+            final WebApplicationContext applicationContext,
+            final MultipartProperties multipartProperties,
+            final BulkUploadProperties bulkProperties) {
+        // Shares the application context, so the bulk upload has the same controllers, advice and security.
+        final ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(applicationContext), BULK_UPLOAD_PATH);
+        registration.setName("bulkUploadDispatcherServlet");
+
+        final MultipartConfigElement standard = multipartProperties.createMultipartConfig();
+        final long maxRequestSize = Math.max(standard.getMaxRequestSize(), bulkProperties.maxRequestSize());
+        // An archive may take up the whole request.
+        registration.setMultipartConfig(new MultipartConfigElement(standard.getLocation(), maxRequestSize,
+                maxRequestSize, standard.getFileSizeThreshold()));
+        return registration;
+    }
+}
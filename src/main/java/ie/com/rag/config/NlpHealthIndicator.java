@@ -0,0 +1,28 @@
+package ie.com.rag.config;
+
+import ie.com.rag.service.NlpAnnotationService;
+import ie.com.rag.service.NlpAnnotationService.WarmUpState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether the CoreNLP models are loaded. The application serves requests while they load, extracting
+ * skills from patterns and the dictionary only, so the indicator stays UP and tells the states apart in its details.
+ */
+@Component("nlp")
+@RequiredArgsConstructor
+public class NlpHealthIndicator implements HealthIndicator {
+
+    private final NlpAnnotationService nlpAnnotationService;
+
+    @Override
+    public Health health() {
+        final WarmUpState state = nlpAnnotationService.getState();
+        return Health.up()
+                .withDetail("ner", state)
+                .withDetail("skillExtraction", state == WarmUpState.READY ? "ner" : "dictionary")
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the CoreNLP pipelines used to find skills in CVs.
+ *
+ * @param nerEnabled        whether CoreNLP is loaded at all; without it skills come from patterns and the dictionary
+ * @param concurrency       how many documents are annotated at the same time
+ * @param queueCapacity     how many documents may wait for an NLP thread before extraction falls back to the dictionary
+ * @param pipelinePerThread whether every NLP thread builds its own pipeline instead of sharing one
+ * @param annotators        the CoreNLP annotators to run, only those whose output is read
+ * @param timeout           how long one document may take to annotate, including the wait for a free NLP thread
+ * @param segmentChars      documents longer than this are annotated as sections of at most this many characters,
+ *                          in parallel across the NLP threads
+ * @param maxAnnotatedChars the most characters of one document that are annotated; the sections that matter most
+ *                          for skills come first
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.nlp")
+public record NlpProperties(boolean nerEnabled, int concurrency, int queueCapacity, boolean pipelinePerThread,
+                            String annotators, Duration timeout, int segmentChars, int maxAnnotatedChars) {
+}
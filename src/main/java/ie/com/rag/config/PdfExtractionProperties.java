@@ -0,0 +1,19 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for extracting text from PDF uploads with PDFBox.
+ *
+ * @param parallelMinPages  the page count from which a PDF is split into page ranges extracted in parallel
+ * @param pagesPerTask      how many pages one worker extracts at a time
+ * @param maxConcurrency    how many page ranges are extracted at the same time, across all uploads
+ * @param maxPages          the maximum number of pages extracted from one PDF; later pages are skipped
+ * @param extractionTimeout how long extracting one PDF may take, including the wait for free workers
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.pdf")
+public record PdfExtractionProperties(int parallelMinPages, int pagesPerTask, int maxConcurrency, int maxPages,
+                                      Duration extractionTimeout) {
+}
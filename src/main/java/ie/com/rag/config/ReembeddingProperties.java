@@ -0,0 +1,13 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for regenerating the vector store after an embedding model change.
+ *
+ * @param pageSize        how many candidates or stored chunks are read per keyset page
+ * @param chunksPerMinute the embedding budget of the job, in chunks per minute; zero or less means unthrottled
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.reembedding")
+public record ReembeddingProperties(int pageSize, int chunksPerMinute) {
+}
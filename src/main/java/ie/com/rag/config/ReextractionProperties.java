@@ -0,0 +1,15 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for re-extracting the skills and CV sections of stored candidates.
+ *
+ * @param pageSize            how many candidates are read, extracted and updated together
+ * @param concurrency         how many candidates are extracted at the same time; each holds at most one NLP
+ *                            thread, and the job never holds more than all but one of them
+ * @param candidatesPerMinute the extraction budget of the job; zero or less means unthrottled
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.reextraction")
+public record ReextractionProperties(int pageSize, int concurrency, int candidatesPerMinute) {
+}
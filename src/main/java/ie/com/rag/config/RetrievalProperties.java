@@ -0,0 +1,28 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning for the adaptive retrieval policy used by the RAG question answering paths.
+ *
+ * @param candidateTopK       how many neighbours are fetched from the vector store before the adaptive cut
+ * @param minK                the minimum number of documents kept, regardless of scores
+ * @param maxK                the maximum number of documents kept
+ * @param minSimilarity       documents below this cosine similarity are dropped once {@code minK} is satisfied
+ * @param scoreGap            a drop in similarity of at least this size between neighbours ends the selection
+ * @param maxContextTokens    the approximate token budget the selected documents may fill
+ * @param mode                whether a question is searched as is or expanded into sub-queries first
+ * @param maxSubQueries       the maximum number of sub-queries searched for one question in multi-query mode
+ * @param llmExpansionEnabled whether the chat model may split questions the rule-based splitter cannot
+ * @param rrfK                the rank offset used by reciprocal rank fusion when merging sub-query results
+ */
+@ConfigurationProperties(prefix = "rag.retrieval")
+public record RetrievalProperties(int candidateTopK, int minK, int maxK, double minSimilarity,
+                                  double scoreGap, int maxContextTokens, RetrievalMode mode,
+                                  int maxSubQueries, boolean llmExpansionEnabled, int rrfK) {
+
+    public enum RetrievalMode {
+        SINGLE,
+        MULTI_QUERY
+    }
+}
@@ -71,6 +71,7 @@ public class SecurityConfig {
             "https://*.hrragwiser.com"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("Location", "X-Deduplicated", "X-Duplicate-Of", "X-Duplicate-Match"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,13 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the cache of skills extracted from CV text.
+ *
+ * @param enabled         whether extraction results are cached at all
+ * @param maxLocalEntries how many results are kept in memory on this node; all of them are also kept in PostgreSQL
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.skill-cache")
+public record SkillCacheProperties(boolean enabled, int maxLocalEntries) {
+}
@@ -0,0 +1,15 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for loading the skills dictionary.
+ *
+ * @param file           the skills JSON file to load; when empty, the skills.json bundled with the application
+ * @param reloadInterval how often the file is checked for changes; zero only reloads from the admin endpoint
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.skills-dictionary")
+public record SkillsDictionaryProperties(String file, Duration reloadInterval) {
+}
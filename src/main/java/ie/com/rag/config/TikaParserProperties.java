@@ -0,0 +1,16 @@
+package ie.com.rag.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the shared Tika parser used to extract text from uploads.
+ *
+ * @param parseTimeout   how long one document may take to parse, including the wait for a free parser thread
+ * @param maxConcurrency how many documents are parsed with Tika at the same time
+ * @param maxTextLength  the maximum number of characters extracted from one document
+ */
+@ConfigurationProperties(prefix = "rag.ingestion.tika")
+public record TikaParserProperties(Duration parseTimeout, int maxConcurrency, int maxTextLength) {
+}
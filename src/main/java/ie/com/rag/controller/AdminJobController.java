@@ -0,0 +1,129 @@
+package ie.com.rag.controller;
+
+import ie.com.rag.dto.JobStatusDTO;
+import ie.com.rag.service.ReembeddingService;
+import ie.com.rag.service.SkillReextractionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Admin Jobs", description = "Background maintenance jobs (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminJobController {
+
+    private final ReembeddingService reembeddingService;
+    private final SkillReextractionService skillReextractionService;
+
+    @GetMapping("/reembedding")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get re-embedding status", description = "Progress of the latest vector store re-embedding")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status found", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "404", description = "No re-embedding has run yet"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> getReembeddingStatus() {
+        return ResponseEntity.ok(reembeddingService.getStatus());
+    }
+
+    @PostMapping("/reembedding/start")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Start re-embedding",
+               description = "Builds vectors with the current embedding model in a shadow column, resuming a stopped or failed run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Re-embedding started", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "409", description = "Already running on any node, or a completed run is waiting to be swapped in"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> startReembedding() {
+        log.info("[RagWiser/AdminJobController] - startReembedding: re-embedding requested");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reembeddingService.start());
+    }
+
+    @PostMapping("/reembedding/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stop re-embedding", description = "Stops the running re-embedding after its current item; it can be resumed later")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Stop requested", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "409", description = "Re-embedding is not running on this node"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> stopReembedding() {
+        log.info("[RagWiser/AdminJobController] - stopReembedding: stop requested");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reembeddingService.stop());
+    }
+
+    @PostMapping("/reembedding/swap")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Swap in re-embedded vectors",
+               description = "Atomically replaces the current vectors with the ones built by the completed re-embedding")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vectors swapped in", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "409", description = "No completed run to swap in, or the run had failures and force was not set"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> swapReembedding(
+            @Parameter(description = "Swap in a run with failures, dropping the chunks that have no new vector")
+            @RequestParam(defaultValue = "false") final boolean force) {
+        log.info("[RagWiser/AdminJobController] - swapReembedding: swap requested, force={}", force);
+        return ResponseEntity.ok(reembeddingService.swap(force));
+    }
+
+    @GetMapping("/reextraction")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get re-extraction status", description = "Progress of the latest candidate skill re-extraction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status found", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "404", description = "No re-extraction has run yet"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> getReextractionStatus() {
+        return ResponseEntity.ok(skillReextractionService.getStatus());
+    }
+
+    @PostMapping("/reextraction/start")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Start re-extraction",
+               description = "Re-extracts the skills, experience and education of every stored candidate from their CV, resuming a stopped or failed run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Re-extraction started", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "409", description = "Already running on any node, or NER is not ready on this node"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> startReextraction() {
+        log.info("[RagWiser/AdminJobController] - startReextraction: re-extraction requested");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(skillReextractionService.start());
+    }
+
+    @PostMapping("/reextraction/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stop re-extraction", description = "Stops the running re-extraction after its current page; it can be resumed later")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Stop requested", content = @Content(schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "409", description = "Re-extraction is not running on this node"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<JobStatusDTO> stopReextraction() {
+        log.info("[RagWiser/AdminJobController] - stopReextraction: stop requested");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(skillReextractionService.stop());
+    }
+}
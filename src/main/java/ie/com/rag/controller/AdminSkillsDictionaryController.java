@@ -0,0 +1,55 @@
+package ie.com.rag.controller;
+
+import ie.com.rag.dto.SkillsDictionaryDTO;
+import ie.com.rag.service.SkillsDictionaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/skills-dictionary")
+@RequiredArgsConstructor
+@Tag(name = "Admin Skills Dictionary", description = "Skills dictionary used by skill extraction (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminSkillsDictionaryController {
+
+    private final SkillsDictionaryService skillsDictionaryService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get skills dictionary", description = "Version, source and size of the skills dictionary in use")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dictionary in use", content = @Content(schema = @Schema(implementation = SkillsDictionaryDTO.class))),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<SkillsDictionaryDTO> getDictionary() {
+        return ResponseEntity.ok(skillsDictionaryService.getStatus());
+    }
+
+    @PostMapping("/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reload skills dictionary",
+               description = "Reads the skills dictionary again and swaps it in without interrupting skill extraction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dictionary in use after the reload", content = @Content(schema = @Schema(implementation = SkillsDictionaryDTO.class))),
+            @ApiResponse(responseCode = "400", description = "The dictionary could not be read or is invalid; the previous one is kept"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<SkillsDictionaryDTO> reloadDictionary() {
+        log.info("[RagWiser/AdminSkillsDictionaryController] - reloadDictionary: reload requested");
+        return ResponseEntity.ok(skillsDictionaryService.reload());
+    }
+}
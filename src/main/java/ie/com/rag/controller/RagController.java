@@ -1,8 +1,11 @@
 package ie.com.rag.controller;
 
 import ie.com.rag.dto.AskRequestDTO;
+import ie.com.rag.dto.ConversationAnswerDTO;
+import ie.com.rag.dto.ConversationSessionDTO;
 import ie.com.rag.dto.QAHistoryDTO;
 import ie.com.rag.dto.UploadedDocumentDTO;
+import ie.com.rag.service.ConversationService;
 import ie.com.rag.service.DashboardService;
 import ie.com.rag.service.RagService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,9 +16,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -33,6 +40,7 @@ public class RagController {
 
     private final RagService ragService;
     private final DashboardService dashboardService;
+    private final ConversationService conversationService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
@@ -47,6 +55,38 @@ public class RagController {
         return ResponseEntity.ok(answer);
     }
 
+    @PostMapping("/sessions")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
+    @Operation(summary = "Open a conversation", description = "Open a conversation session for multi-turn questions")
+    @ApiResponse(responseCode = "201", description = "Session opened successfully")
+    public ResponseEntity<ConversationSessionDTO> openSession(final Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(conversationService.openSession(authentication.getName()));
+    }
+
+    @PostMapping("/sessions/{sessionId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
+    @Operation(summary = "Ask a follow-up question", description = "Answer a question within a conversation session, reusing earlier retrievals")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Question answered successfully"),
+            @ApiResponse(responseCode = "400", description = "Question must not be blank"),
+            @ApiResponse(responseCode = "404", description = "Session not found, expired or owned by another user"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    public ResponseEntity<ConversationAnswerDTO> askInSession(@PathVariable final String sessionId,
+                                                              @Valid @RequestBody final AskRequestDTO request,
+                                                              final Authentication authentication) {
+        return ResponseEntity.ok(conversationService.ask(sessionId, authentication.getName(), request.question()));
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
+    @Operation(summary = "Close a conversation", description = "Close a conversation session and discard its state")
+    @ApiResponse(responseCode = "204", description = "Session closed successfully")
+    public ResponseEntity<Void> closeSession(@PathVariable final String sessionId, final Authentication authentication) {
+        conversationService.closeSession(sessionId, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/qa-history")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
     @Operation(summary = "Get QA history", description = "Retrieve the question and answer history")
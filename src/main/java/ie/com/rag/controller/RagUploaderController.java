@@ -1,9 +1,13 @@
 package ie.com.rag.controller;
 
+import ie.com.rag.dto.BulkUploadReportDTO;
 import ie.com.rag.dto.CandidateDTO;
+import ie.com.rag.dto.UploadStatusDTO;
+import ie.com.rag.service.BulkUploadService;
 import ie.com.rag.service.CandidateService;
-import ie.com.rag.service.RagDocumentService;
+import ie.com.rag.service.IngestionQueueService;
 import ie.com.rag.service.RagUploaderService;
+import ie.com.rag.service.RagUploaderService.RegisteredCv;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,13 +19,20 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Set;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import static ie.com.rag.Constants.ALLOWED_UPLOAD_CONTENT_TYPES;
 
 @Slf4j
 @RestController
@@ -31,15 +42,13 @@ import java.util.Set;
 @SecurityRequirement(name = "bearerAuth")
 public class RagUploaderController {
 
-    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
-            "application/pdf",
-            "application/msword",
-            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
-            "text/plain"
-    );
+    private static final String DEDUPLICATED_HEADER = "X-Deduplicated";
+    private static final String DUPLICATE_OF_HEADER = "X-Duplicate-Of";
+    private static final String DUPLICATE_MATCH_HEADER = "X-Duplicate-Match";
 
     private final RagUploaderService ragUploaderService;
-    private final RagDocumentService ragDocumentService;
+    private final IngestionQueueService ingestionQueueService;
+    private final BulkUploadService bulkUploadService;
     private final CandidateService candidateService;
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -47,31 +56,112 @@ public class RagUploaderController {
     @Operation(summary = "Upload candidate CV", description = "Upload and process a candidate CV through the RAG system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "CV uploaded and processed successfully"),
+            @ApiResponse(responseCode = "200", description = "Same CV already uploaded, existing candidate returned"),
             @ApiResponse(responseCode = "400", description = "Invalid file or missing required fields"),
-            @ApiResponse(responseCode = "403", description = "Access denied")
+            @ApiResponse(responseCode = "403", description = "Access denied"),
+            @ApiResponse(responseCode = "429", description = "Too many uploads waiting to be processed, retry after the Retry-After delay"),
+            @ApiResponse(responseCode = "503", description = "Processing is at capacity, retry after the Retry-After delay, "
+                    + "or the CV could not be indexed and was not saved")
     })
     public ResponseEntity<CandidateDTO> uploadDocument(
             @RequestParam("file") final MultipartFile file,
             @RequestParam("name") final String name,
             @RequestParam("email") final String email,
-            @RequestParam(value = "phone", required = false) final String phone) {
+            @RequestParam(value = "phone", required = false) final String phone,
+            final Authentication authentication) {
 
         if (file == null || file.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
 
-        final String contentType = file.getContentType();
-        final boolean isAllowedType = contentType != null && ALLOWED_CONTENT_TYPES.contains(contentType);
-        if (!isAllowedType) {
+        if (!isAllowedContentType(file)) {
             return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
         }
 
         log.info("[RagWiser/RagUploaderController] - uploadDocument: processing CV for candidate: {} ({})", name, email);
 
-        final CandidateDTO candidate = ragUploaderService.processCV(file, name, email, phone);
-        ragDocumentService.processAndStoreFile(file);
+        final RegisteredCv registered = ragUploaderService.processCV(file, name, email, phone);
+
+        if (registered.deduplicated()) {
+            return ResponseEntity.ok()
+                    .header(DEDUPLICATED_HEADER, "true")
+                    .header(DUPLICATE_OF_HEADER, String.valueOf(registered.candidate().id()))
+                    .header(DUPLICATE_MATCH_HEADER, registered.match().name())
+                    .body(registered.candidate());
+        }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(candidate);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(DEDUPLICATED_HEADER, "false")
+                .body(registered.candidate());
     }
-}
 
+    @PostMapping(value = "/upload/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
+    @Operation(summary = "Queue candidate CV", description = "Store a candidate CV and process it in the background")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "CV stored and queued for processing"),
+            @ApiResponse(responseCode = "400", description = "Invalid file or missing required fields"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    public ResponseEntity<UploadStatusDTO> queueDocument(
+            @RequestParam("file") final MultipartFile file,
+            @RequestParam("name") final String name,
+            @RequestParam("email") final String email,
+            @RequestParam(value = "phone", required = false) final String phone) {
+
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (!isAllowedContentType(file)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+
+        log.info("[RagWiser/RagUploaderController] - queueDocument: queueing CV for candidate: {} ({})", name, email);
+
+        final UploadStatusDTO status = ingestionQueueService.enqueue(file, name, email, phone,
+                authentication.getName());
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/rag/upload/" + status.id() + "/status"))
+                .body(status);
+    }
+
+    @PostMapping(value = "/upload/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER')")
+    @Operation(summary = "Bulk upload candidate CVs",
+            description = "Upload a ZIP archive or several CV files with a CSV or JSON manifest of candidate details")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Bulk upload processed, see the per-file report"),
+            @ApiResponse(responseCode = "400", description = "Missing files, too many files, missing or invalid manifest"),
+            @ApiResponse(responseCode = "403", description = "Access denied"),
+            @ApiResponse(responseCode = "413", description = "Request exceeds the bulk upload size limit")
+    })
+    public ResponseEntity<BulkUploadReportDTO> uploadBulk(
+            @RequestParam(value = "archive", required = false) final MultipartFile archive,
+            @RequestParam(value = "files", required = false) final List<MultipartFile> files,
+            @RequestParam("manifest") final MultipartFile manifest) {
+
+        log.info("[RagWiser/RagUploaderController] - uploadBulk: processing bulk upload");
+
+        return ResponseEntity.ok(bulkUploadService.process(archive, files, manifest));
+    }
+
+    @GetMapping("/upload/{id}/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_MANAGER', 'USER')")
+    @Operation(summary = "Get upload status", description = "Report the processing status of a queued CV upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Upload status retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or queued by another user"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    public ResponseEntity<UploadStatusDTO> getUploadStatus(@PathVariable final UUID id,
+                                                           final Authentication authentication) {
+        return ResponseEntity.ok(ingestionQueueService.getStatus(id.toString(), authentication.getName()));
+    }
+
+    private boolean isAllowedContentType(final MultipartFile file) {
+        final String contentType = file.getContentType();
+        return contentType != null && ALLOWED_UPLOAD_CONTENT_TYPES.contains(contentType);
+    }
+}
@@ -0,0 +1,13 @@
+package ie.com.rag.dto;
+
+import java.util.List;
+
+public record BulkUploadReportDTO(
+        int totalFiles,
+        int succeeded,
+        int failed,
+        int chunksWritten,
+        int chunksFailed,
+        List<BulkUploadResultDTO> results
+) {
+}
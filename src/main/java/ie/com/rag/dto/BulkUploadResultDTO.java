@@ -0,0 +1,12 @@
+package ie.com.rag.dto;
+
+import java.util.UUID;
+
+public record BulkUploadResultDTO(
+        String fileName,
+        String status,
+        UUID candidateId,
+        int chunks,
+        String error
+) {
+}
@@ -0,0 +1,9 @@
+package ie.com.rag.dto;
+
+public record ConversationAnswerDTO(
+        String sessionId,
+        String answer,
+        String retrieval,
+        int documentsUsed
+) {
+}
@@ -0,0 +1,6 @@
+package ie.com.rag.dto;
+
+public record ConversationSessionDTO(
+        String sessionId
+) {
+}
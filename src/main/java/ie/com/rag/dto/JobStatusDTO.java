@@ -0,0 +1,19 @@
+package ie.com.rag.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record JobStatusDTO(
+        String jobName,
+        UUID runId,
+        String phase,
+        String status,
+        String lastKey,
+        long processed,
+        long failed,
+        String errorMessage,
+        LocalDateTime startedAt,
+        LocalDateTime updatedAt,
+        LocalDateTime completedAt
+) {
+}
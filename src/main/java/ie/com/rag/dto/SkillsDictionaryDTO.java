@@ -0,0 +1,12 @@
+package ie.com.rag.dto;
+
+import java.time.LocalDateTime;
+
+public record SkillsDictionaryDTO(
+        String version,
+        String source,
+        int skills,
+        int capitalizations,
+        LocalDateTime loadedAt
+) {
+}
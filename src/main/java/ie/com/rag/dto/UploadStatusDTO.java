@@ -0,0 +1,16 @@
+package ie.com.rag.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record UploadStatusDTO(
+        UUID id,
+        String fileName,
+        String status,
+        int attempts,
+        UUID candidateId,
+        String errorMessage,
+        LocalDateTime uploadedAt,
+        LocalDateTime processedAt
+) {
+}
@@ -50,6 +50,16 @@ public class Candidate {
     @Column(name = "years_of_experience")
     private Integer yearsOfExperience;
 
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    @Column(name = "text_hash", length = 64, unique = true)
+    private String textHash;
+
+    @Builder.Default
+    @Column(name = "indexed", nullable = false)
+    private boolean indexed = true;
+
     @CreationTimestamp
     @Column(name = "created_at")
     private LocalDateTime createdAt;
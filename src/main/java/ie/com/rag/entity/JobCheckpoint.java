@@ -0,0 +1,47 @@
+package ie.com.rag.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "job_checkpoints")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "run_id", nullable = false, length = 36)
+    private String runId;
+
+    @Column(name = "phase", length = 50)
+    private String phase;
+
+    @Column(name = "last_key", length = 255)
+    private String lastKey;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
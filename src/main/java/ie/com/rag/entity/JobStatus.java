@@ -0,0 +1,15 @@
+package ie.com.rag.entity;
+
+/**
+ * Lifecycle of a background job run
+ * RUNNING: Working on this or another node
+ * STOPPED: Stopped on request or at shutdown, starting it again resumes from the checkpoint
+ * COMPLETED: Every item was visited
+ * FAILED: Stopped by an error, see the error message; starting it again resumes from the checkpoint
+ */
+public enum JobStatus {
+    RUNNING,
+    STOPPED,
+    COMPLETED,
+    FAILED
+}
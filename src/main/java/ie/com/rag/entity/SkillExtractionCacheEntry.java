@@ -0,0 +1,35 @@
+package ie.com.rag.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Entity
+@Table(name = "skill_extraction_cache")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkillExtractionCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 160)
+    private String cacheKey;
+
+    @Column(name = "text_hash", nullable = false, length = 64)
+    private String textHash;
+
+    @Column(name = "extraction_version", nullable = false, length = 80)
+    private String extractionVersion;
+
+    @Column(name = "skills", nullable = false, columnDefinition = "TEXT[]")
+    @Type(value = io.hypersistence.utils.hibernate.type.array.ListArrayType.class)
+    private List<String> skills;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package ie.com.rag.entity;
+
+/**
+ * Lifecycle of an uploaded document
+ * UPLOADED: Processed synchronously within the upload request
+ * QUEUED: Stored and waiting for an ingestion worker, or for its next attempt after a failure that may go away
+ * PARSING: Claimed by a worker, text and candidate details are being extracted
+ * EMBEDDING: Candidate registered, chunks are being written to the vector store
+ * DONE: Fully processed
+ * DUPLICATE: Same CV as an existing candidate, which was reused instead of processing it again
+ * FAILED: Processing stopped for good, see the error message; the stored file is deleted
+ */
+public enum UploadStatus {
+    UPLOADED,
+    QUEUED,
+    PARSING,
+    EMBEDDING,
+    DONE,
+    DUPLICATE,
+    FAILED
+}
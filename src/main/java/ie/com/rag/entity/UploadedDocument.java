@@ -30,7 +30,7 @@ public class UploadedDocument {
     private String filePath;
 
     @Column(name = "status", length = 50)
-    private String status = "UPLOADED";
+    private String status = UploadStatus.UPLOADED.name();
 
     @CreationTimestamp
     @Column(name = "uploaded_at")
@@ -39,6 +39,40 @@ public class UploadedDocument {
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
 
+    @Column(name = "candidate_name", length = 255)
+    private String candidateName;
+
+    @Column(name = "candidate_email", length = 255)
+    private String candidateEmail;
+
+    @Column(name = "candidate_phone", length = 50)
+    private String candidatePhone;
+
+    @Column(name = "candidate_id", length = 36)
+    private String candidateId;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "uploaded_by", length = 255)
+    private String uploadedBy;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     public void prePersist() {
         if (id == null) {
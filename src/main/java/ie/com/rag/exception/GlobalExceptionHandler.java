@@ -2,6 +2,7 @@ package ie.com.rag.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -80,6 +81,98 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handle requests a background job cannot accept in its current state
+     */
+    @ExceptionHandler(JobStateException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ErrorResponse> handleJobStateException(
+            JobStateException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflict")
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .transactionId(MDC.get("transactionId"))
+                .build();
+
+        log.warn("Job state conflict: {}", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handle uploads matching a CV that an earlier upload is still indexing; the upload can be retried once it is done
+     */
+    @ExceptionHandler(IndexingInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ErrorResponse> handleIndexingInProgressException(
+            IndexingInProgressException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflict")
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .transactionId(MDC.get("transactionId"))
+                .build();
+
+        log.warn("Indexing in progress: {}", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handle uploads whose chunks could not all be stored; the upload was rolled back and can be retried
+     */
+    @ExceptionHandler(IndexingFailedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ErrorResponse> handleIndexingFailedException(
+            IndexingFailedException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .transactionId(MDC.get("transactionId"))
+                .build();
+
+        log.warn("Indexing failed: {}", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handle uploads turned away by ingestion admission control, telling the client when to retry
+     */
+    @ExceptionHandler(IngestionOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionOverloadedException(
+            IngestionOverloadedException ex,
+            WebRequest request
+    ) {
+        HttpStatus status = ex.isQueueFull() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .transactionId(MDC.get("transactionId"))
+                .build();
+
+        // Retry-After takes whole seconds; round up so clients never come back too early.
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        log.warn("Ingestion overloaded: {}", ex.getMessage());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+    }
+
     /**
      * Handle bad credentials
      */
@@ -0,0 +1,15 @@
+package ie.com.rag.exception;
+
+/**
+ * Exception thrown when the chunks of a document could not all be stored in the vector store
+ */
+public class IndexingFailedException extends RuntimeException {
+
+    public IndexingFailedException(String message) {
+        super(message);
+    }
+
+    public IndexingFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
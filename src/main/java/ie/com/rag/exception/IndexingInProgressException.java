@@ -0,0 +1,11 @@
+package ie.com.rag.exception;
+
+/**
+ * Exception thrown when an upload matches a candidate whose CV is still being indexed by an earlier upload
+ */
+public class IndexingInProgressException extends RuntimeException {
+
+    public IndexingInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package ie.com.rag.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when an upload is turned away because ingestion is at capacity.
+ * A full wait queue and a wait that timed out are told apart so they can be answered differently.
+ */
+public class IngestionOverloadedException extends RuntimeException {
+    @Getter
+    private final boolean queueFull;
+    @Getter
+    private final Duration retryAfter;
+
+    public IngestionOverloadedException(String message, boolean queueFull, Duration retryAfter) {
+        super(message);
+        this.queueFull = queueFull;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package ie.com.rag.exception;
+
+/**
+ * Exception thrown when a background job is asked to do something its current state does not allow
+ */
+public class JobStateException extends RuntimeException {
+
+    public JobStateException(String message) {
+        super(message);
+    }
+}
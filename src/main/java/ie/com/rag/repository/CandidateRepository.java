@@ -2,6 +2,7 @@ package ie.com.rag.repository;
 
 import ie.com.rag.entity.Candidate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +16,19 @@ public interface CandidateRepository extends JpaRepository<Candidate, String> {
 
     Optional<Candidate> findByEmail(String email);
 
+    Optional<Candidate> findFirstByFileHash(String fileHash);
+
+    Optional<Candidate> findByTextHash(String textHash);
+
+    /**
+     * Mark a candidate as indexed once all chunks of its CV are stored
+     * @param id The candidate identifier
+     * @return Count of candidates updated
+     */
+    @Modifying
+    @Query
+    int markIndexed(@Param("id") String id);
+
     /**
      * Retrieve all Candidate records ordered by creation date descending
      * @return List of Candidate records
@@ -0,0 +1,30 @@
+package ie.com.rag.repository;
+
+import ie.com.rag.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    /**
+     * Mark a job as running unless a run of it is already running on any node. A run whose checkpoint was not
+     * updated since staleBefore is taken for abandoned by a node that went away and may be taken over
+     * @param jobName The job to claim
+     * @param runId The run identifier recorded when the job has no checkpoint yet
+     * @param now The claim time
+     * @param staleBefore Running checkpoints last updated before this time are taken over
+     * @return Count of checkpoints claimed, 0 when the job is already running
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true)
+    int claimRun(@Param("jobName") String jobName, @Param("runId") String runId, @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+}
@@ -0,0 +1,9 @@
+package ie.com.rag.repository;
+
+import ie.com.rag.entity.SkillExtractionCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SkillExtractionCacheRepository extends JpaRepository<SkillExtractionCacheEntry, String> {
+}
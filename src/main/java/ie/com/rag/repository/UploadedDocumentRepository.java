@@ -2,11 +2,14 @@ package ie.com.rag.repository;
 
 import ie.com.rag.entity.UploadedDocument;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface UploadedDocumentRepository extends JpaRepository<UploadedDocument, String> {
@@ -18,4 +21,46 @@ public interface UploadedDocumentRepository extends JpaRepository<UploadedDocume
      */
     @Query
     long countByUploadTimestampAfter(@Param("startDate") LocalDateTime startDate);
+
+    /**
+     * Lock the oldest queued documents that are due, skipping rows already locked by other workers.
+     * Must run inside a transaction; the locks are held until it ends.
+     * @param limit The maximum number of documents to lock
+     * @param now Documents waiting to be retried after this time are left alone
+     * @return List of locked queued documents
+     */
+    @Query(nativeQuery = true)
+    List<UploadedDocument> findQueuedForClaim(@Param("limit") int limit, @Param("now") LocalDateTime now);
+
+    /**
+     * Find documents in a status that still have a stored file
+     * @param status The status to filter by
+     * @return List of documents with a stored file
+     */
+    List<UploadedDocument> findByStatusAndFilePathIsNotNull(String status);
+
+    /**
+     * Return documents whose worker stopped before finishing to the queue, or fail them once out of attempts.
+     * Bumps the version, so the earlier worker can no longer save the document should it still be running
+     * @param cutoff Documents claimed before this time are considered abandoned
+     * @param maxAttempts The number of attempts after which a document is failed instead of requeued
+     * @return Count of documents requeued or failed
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true)
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Move the claim time of a document that is still being processed forward, unless it was reclaimed.
+     * Leaves the version alone, so the worker holding the document can still save it
+     * @param id The document identifier
+     * @param version The version the worker holds
+     * @param now The new claim time
+     * @return Count of documents updated, 0 when the document was reclaimed or finished
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true)
+    int refreshClaim(@Param("id") String id, @Param("version") Long version, @Param("now") LocalDateTime now);
 }
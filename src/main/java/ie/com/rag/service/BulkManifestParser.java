@@ -0,0 +1,180 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the candidate manifest of a bulk upload. The manifest lists, per CV file, the candidate details the
+ * single upload endpoint takes as form fields, either as CSV with a header row or as a JSON array.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkManifestParser {
+
+    private static final TypeReference<List<ManifestEntry>> ENTRY_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Parses a manifest, choosing the format from its content type or extension.
+     *
+     * @param content     the raw manifest
+     * @param filename    the manifest filename
+     * @param contentType the manifest MIME type
+     * @return the entries keyed by CV filename
+     */
+    public Map<String, ManifestEntry> parse(final byte[] content, final String filename, final String contentType) {
+        final boolean json = (contentType != null && contentType.contains("json"))
+                || (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json"));
+        final List<ManifestEntry> entries = json ? parseJson(content) : parseCsv(new String(content, StandardCharsets.UTF_8));
+        return index(entries);
+    }
+
+    /**
+     * Finds the manifest entry of an uploaded file, by its full path first and then by its base name, so
+     * archives with folders still match a manifest of plain filenames.
+     *
+     * @param manifest the parsed manifest
+     * @param filename the filename or archive path of the CV
+     * @return the matching entry, or {@code null} when the manifest does not list the file
+     */
+    public ManifestEntry lookup(final Map<String, ManifestEntry> manifest, final String filename) {
+        final ManifestEntry exact = manifest.get(filename);
+        if (exact != null) {
+            return exact;
+        }
+        final int slash = filename.lastIndexOf('/');
+        return slash >= 0 ? manifest.get(filename.substring(slash + 1)) : null;
+    }
+
+    private List<ManifestEntry> parseJson(final byte[] content) {
+        try {
+            return objectMapper.readValue(content, ENTRY_LIST);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Manifest is not a valid JSON array of candidates: " + e.getMessage(), e);
+        }
+    }
+
+    List<ManifestEntry> parseCsv(final String content) {
+        final List<List<String>> rows = readCsvRows(content);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Manifest is empty");
+        }
+
+        final List<String> header = rows.get(0).stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+        final int filenameColumn = requireColumn(header, "filename");
+        final int nameColumn = requireColumn(header, "name");
+        final int emailColumn = requireColumn(header, "email");
+        final int phoneColumn = header.indexOf("phone");
+
+        final List<ManifestEntry> entries = new ArrayList<>(rows.size() - 1);
+        for (final List<String> row : rows.subList(1, rows.size())) {
+            if (row.stream().noneMatch(StringUtils::hasText)) {
+                continue;
+            }
+            entries.add(new ManifestEntry(
+                    column(row, filenameColumn),
+                    column(row, nameColumn),
+                    column(row, emailColumn),
+                    phoneColumn >= 0 ? column(row, phoneColumn) : null));
+        }
+        return entries;
+    }
+
+    private int requireColumn(final List<String> header, final String column) {
+        final int index = header.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Manifest header must contain a '" + column + "' column");
+        }
+        return index;
+    }
+
+    private String column(final List<String> row, final int index) {
+        if (index >= row.size()) {
+            return null;
+        }
+        final String value = row.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits CSV text into rows, honouring double-quoted fields that contain commas, quotes or line breaks.
+     */
+    private List<List<String>> readCsvRows(final String content) {
+        final List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < content.length(); i++) {
+            final char c = content.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                row.add(field.toString());
+                field.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else if (c != '\uFEFF' || i > 0) {
+                field.append(c);
+            }
+        }
+
+        if (field.length() > 0 || !row.isEmpty()) {
+            row.add(field.toString());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Map<String, ManifestEntry> index(final List<ManifestEntry> entries) {
+        final Map<String, ManifestEntry> manifest = new HashMap<>();
+        for (final ManifestEntry entry : entries) {
+            if (entry == null || !StringUtils.hasText(entry.filename())) {
+                throw new IllegalArgumentException("Every manifest entry needs a filename");
+            }
+            if (manifest.putIfAbsent(entry.filename().trim(), entry) != null) {
+                throw new IllegalArgumentException("Manifest lists file more than once: " + entry.filename());
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Candidate details for one CV of a bulk upload.
+     *
+     * @param filename the CV filename, or its path inside the archive
+     * @param name     the name of the candidate
+     * @param email    the email address of the candidate
+     * @param phone    the contact number of the candidate, optional
+     */
+    public record ManifestEntry(String filename, String name, String email, String phone) {
+    }
+}
@@ -0,0 +1,373 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.BulkUploadProperties;
+import ie.com.rag.config.EmbeddingBatchProperties;
+import ie.com.rag.dto.BulkUploadReportDTO;
+import ie.com.rag.dto.BulkUploadResultDTO;
+import ie.com.rag.entity.UploadStatus;
+import ie.com.rag.service.BulkManifestParser.ManifestEntry;
+import ie.com.rag.service.DocumentExtractionService.ExtractedDocument;
+import ie.com.rag.service.RagUploaderService.RegisteredCv;
+import ie.com.rag.service.VectorStoreWriter.WriteResult;
+import ie.com.rag.utils.SpooledUpload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Ingests many CVs in one request. Archive entries are read one at a time from the stream and at most
+ * {@code parallelism} files are spooled and processed at once, so neither memory nor disk grows with the archive. Chunks of
+ * all files are pooled and written to the vector store in full embedding batches. A file is only reported as done once
+ * all of its chunks are stored; a file with dropped chunks is reported as failed and its candidate removed, as for a
+ * single upload.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkUploadService {
+
+    private static final Map<String, String> CONTENT_TYPES_BY_EXTENSION = Map.of(
+            "pdf", "application/pdf",
+            "doc", "application/msword",
+            "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "txt", "text/plain"
+    );
+
+    private final BulkManifestParser manifestParser;
+    private final RagUploaderService ragUploaderService;
+    private final RagDocumentService ragDocumentService;
+    private final DashboardService dashboardService;
+    private final VectorStoreWriter vectorStoreWriter;
+    private final CandidateService candidateService;
+    private final BulkUploadProperties bulkProperties;
+    private final EmbeddingBatchProperties batchProperties;
+    private final IngestionAdmissionService admissionService;
+
+    /**
+     * Processes a ZIP archive and/or a list of CV files against a candidate manifest.
+     *
+     * @param archive  a ZIP archive of CVs, optional
+     * @param files    individual CV files, optional
+     * @param manifest the CSV or JSON manifest with the candidate details of every CV
+     * @return a per-file report of the upload
+     */
+    public BulkUploadReportDTO process(final MultipartFile archive, final List<MultipartFile> files,
+                                       final MultipartFile manifest) {
+        final boolean hasArchive = archive != null && !archive.isEmpty();
+        final boolean hasFiles = files != null && files.stream().anyMatch(file -> file != null && !file.isEmpty());
+        if (!hasArchive && !hasFiles) {
+            throw new IllegalArgumentException("Either a ZIP archive or at least one file is required");
+        }
+        if (manifest == null || manifest.isEmpty()) {
+            throw new IllegalArgumentException("A candidate manifest is required");
+        }
+        if (hasFiles && files.stream().filter(file -> file != null && !file.isEmpty()).count() > bulkProperties.maxFiles()) {
+            throw new IllegalArgumentException(fileLimitMessage());
+        }
+
+        final Map<String, ManifestEntry> entries = readManifest(manifest);
+        final ChunkBuffer chunkBuffer = new ChunkBuffer();
+        final List<Future<BulkUploadResultDTO>> pending = new ArrayList<>();
+        final Semaphore inFlight = new Semaphore(Math.max(1, bulkProperties.parallelism()));
+        final long startTime = System.currentTimeMillis();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (hasFiles) {
+                for (final MultipartFile file : files) {
+                    if (file == null || file.isEmpty()) {
+                        continue;
+                    }
+                    final String filename = StringUtils.hasText(file.getOriginalFilename())
+                            ? file.getOriginalFilename()
+                            : "unknown-file";
+                    submit(executor, inFlight, pending, () -> {
+                        try (SpooledUpload upload = SpooledUpload.spool(file)) {
+                            return processFile(filename, upload, entries, chunkBuffer);
+                        } catch (final IOException e) {
+                            return failed(filename, "File could not be read");
+                        }
+                    });
+                }
+            }
+            if (hasArchive) {
+                readArchive(archive, entries, chunkBuffer, executor, inFlight, pending);
+            }
+        } finally {
+            // Files already registered must not be left without their pooled chunks.
+            chunkBuffer.flush();
+        }
+
+        final List<BulkUploadResultDTO> results = pending.stream()
+                .map(this::resultOf)
+                .map(result -> checkStored(result, chunkBuffer))
+                .toList();
+        final int succeeded = (int) results.stream()
+                .filter(result -> !UploadStatus.FAILED.name().equals(result.status()))
+                .count();
+        log.info("[RagWiser/BulkUploadService] - process: {} of {} files ingested in {} ms", succeeded, results.size(),
+                System.currentTimeMillis() - startTime);
+
+        return new BulkUploadReportDTO(results.size(), succeeded, results.size() - succeeded,
+                chunkBuffer.written, chunkBuffer.failed, results);
+    }
+
+    private Map<String, ManifestEntry> readManifest(final MultipartFile manifest) {
+        try {
+            return manifestParser.parse(manifest.getBytes(), manifest.getOriginalFilename(), manifest.getContentType());
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to read bulk upload manifest", e);
+        }
+    }
+
+    /**
+     * Streams the archive entry by entry, spooling each entry to its own temp file. Submitting the next entry waits
+     * for a free slot, which bounds the number of spooled entries to the configured parallelism. Entries past the file
+     * limit are reported as failed without being read, and an archive that cannot be read further is reported as a
+     * failed entry of its own, so the files processed before are still reported.
+     */
+    private void readArchive(final MultipartFile archive, final Map<String, ManifestEntry> entries,
+                             final ChunkBuffer chunkBuffer, final ExecutorService executor, final Semaphore inFlight,
+                             final List<Future<BulkUploadResultDTO>> pending) {
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || isHiddenEntry(entry.getName())) {
+                    continue;
+                }
+
+                final String filename = entry.getName();
+                if (pending.size() >= bulkProperties.maxFiles()) {
+                    pending.add(CompletableFuture.completedFuture(failed(filename, fileLimitMessage())));
+                    continue;
+                }
+                final SpooledUpload upload;
+                try {
+                    upload = SpooledUpload.spool(zip, bulkProperties.maxEntrySize());
+                } catch (final IOException e) {
+                    log.warn("[RagWiser/BulkUploadService] - readArchive: skipping entry {}: {}", filename, e.getMessage());
+                    pending.add(CompletableFuture.completedFuture(failed(filename, e.getMessage())));
+                    continue;
+                }
+                submit(executor, inFlight, pending, () -> {
+                    try (upload) {
+                        return processFile(filename, upload, entries, chunkBuffer);
+                    }
+                });
+            }
+        } catch (final IOException e) {
+            final String archiveName = StringUtils.hasText(archive.getOriginalFilename())
+                    ? archive.getOriginalFilename()
+                    : "archive";
+            log.warn("[RagWiser/BulkUploadService] - readArchive: {} could not be read: {}", archiveName, e.getMessage());
+            pending.add(CompletableFuture.completedFuture(
+                    failed(archiveName, "Archive is not a readable ZIP file: " + e.getMessage())));
+        }
+    }
+
+    private void submit(final ExecutorService executor, final Semaphore inFlight,
+                        final List<Future<BulkUploadResultDTO>> pending, final Supplier<BulkUploadResultDTO> task) {
+        inFlight.acquireUninterruptibly();
+        pending.add(executor.submit(() -> {
+            try {
+                return task.get();
+            } finally {
+                inFlight.release();
+            }
+        }));
+    }
+
+    private BulkUploadResultDTO processFile(final String filename, final SpooledUpload upload,
+                                            final Map<String, ManifestEntry> entries, final ChunkBuffer chunkBuffer) {
+        final ManifestEntry entry = manifestParser.lookup(entries, filename);
+        if (entry == null) {
+            return failed(filename, "File is not listed in the manifest");
+        }
+        if (!StringUtils.hasText(entry.name()) || !StringUtils.hasText(entry.email())) {
+            return failed(filename, "Manifest entry needs a candidate name and email");
+        }
+
+        final String contentType = contentTypeOf(filename);
+        if (contentType == null) {
+            return failed(filename, "Unsupported file type");
+        }
+
+        try (IngestionAdmissionService.Permit permit = admissionService.acquire(upload.size(), contentType)) {
+            final RegisteredCv registered = ragUploaderService.registerCv(upload, baseName(filename), contentType,
+                    entry.name().trim(), entry.email().trim(), entry.phone(),
+                    cv -> dashboardService.saveUploadedDocumentInfo(baseName(filename), upload.size(), contentType,
+                            cv.fileHash()));
+            if (registered.deduplicated()) {
+                return new BulkUploadResultDTO(filename, UploadStatus.DUPLICATE.name(), registered.candidate().id(), 0, null);
+            }
+
+            final ExtractedDocument document = registered.document();
+            final int chunks = ragDocumentService.chunkDocument(new StringReader(document.text()), document.filename(),
+                    registered.candidate().id().toString(), chunkBuffer::add);
+            return new BulkUploadResultDTO(filename, UploadStatus.DONE.name(), registered.candidate().id(), chunks, null);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(filename, "Interrupted while waiting for processing capacity");
+        } catch (final IOException | RuntimeException e) {
+            log.warn("[RagWiser/BulkUploadService] - processFile: {} failed: {}", filename, e.getMessage());
+            return failed(filename, e.getMessage());
+        }
+    }
+
+    private BulkUploadResultDTO resultOf(final Future<BulkUploadResultDTO> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while collecting bulk upload results", e);
+        } catch (final ExecutionException e) {
+            // Tasks report their own failures, so this is a bug rather than a bad file.
+            throw new IllegalStateException("Bulk upload task failed unexpectedly", e.getCause());
+        }
+    }
+
+    /**
+     * Marks the candidate of a file reported as done as indexed once all its pooled chunks are stored. A file with
+     * chunks that could not be stored is turned into a failure and its candidate removed, so the file can simply be
+     * uploaded again.
+     */
+    private BulkUploadResultDTO checkStored(final BulkUploadResultDTO result, final ChunkBuffer chunkBuffer) {
+        if (!UploadStatus.DONE.name().equals(result.status())) {
+            return result;
+        }
+        final String candidateId = result.candidateId().toString();
+        final int dropped = chunkBuffer.droppedChunks(candidateId);
+        final String error;
+        if (dropped == 0) {
+            try {
+                candidateService.markIndexed(candidateId);
+                return result;
+            } catch (final RuntimeException e) {
+                log.warn("[RagWiser/BulkUploadService] - checkStored: candidate {} of {} could not be marked as "
+                        + "indexed, removing it: {}", candidateId, result.fileName(), e.getMessage());
+                error = "The CV could not be marked as indexed and was not saved, retry the upload";
+            }
+        } else {
+            log.warn("[RagWiser/BulkUploadService] - checkStored: {} of {} chunks of {} could not be stored, removing "
+                    + "candidate {}", dropped, result.chunks(), result.fileName(), candidateId);
+            error = dropped + " of " + result.chunks() + " chunks could not be stored, the CV was not saved, retry the upload";
+        }
+
+        try {
+            vectorStoreWriter.deleteCandidateChunks(candidateId);
+            candidateService.deleteCandidate(candidateId);
+        } catch (final RuntimeException e) {
+            log.error("[RagWiser/BulkUploadService] - checkStored: failed to remove candidate {}: {}", candidateId,
+                    e.getMessage());
+        }
+        return failed(result.fileName(), error);
+    }
+
+    private String fileLimitMessage() {
+        return "Bulk upload exceeds the maximum of " + bulkProperties.maxFiles() + " files";
+    }
+
+    private boolean isHiddenEntry(final String name) {
+        return name.startsWith("__MACOSX/") || baseName(name).startsWith(".");
+    }
+
+    private String baseName(final String filename) {
+        final int slash = filename.lastIndexOf('/');
+        return slash >= 0 ? filename.substring(slash + 1) : filename;
+    }
+
+    private String contentTypeOf(final String filename) {
+        final int dot = filename.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        return CONTENT_TYPES_BY_EXTENSION.get(filename.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private BulkUploadResultDTO failed(final String filename, final String error) {
+        return new BulkUploadResultDTO(filename, UploadStatus.FAILED.name(), null, 0, error);
+    }
+
+    /**
+     * Pools chunks from all files of a bulk upload and writes them once a full embedding batch is available. Dropped
+     * chunks are counted per candidate, so each failure is reported against its own file.
+     */
+    private final class ChunkBuffer {
+
+        private final List<Document> pending = new ArrayList<>();
+        private final Map<String, Integer> droppedByCandidate = new HashMap<>();
+        private int written;
+        private int failed;
+
+        void add(final Document document) {
+            final List<Document> batch;
+            synchronized (this) {
+                pending.add(document);
+                if (pending.size() < batchProperties.batchSize()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            write(batch);
+        }
+
+        void flush() {
+            final List<Document> batch;
+            synchronized (this) {
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            write(batch);
+        }
+
+        private void write(final List<Document> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int batchWritten = 0;
+            List<Document> dropped;
+            try {
+                final WriteResult result = vectorStoreWriter.write(batch);
+                batchWritten = result.written();
+                dropped = result.dropped();
+            } catch (final RuntimeException e) {
+                log.warn("[RagWiser/BulkUploadService] - write: {} chunks could not be stored: {}", batch.size(), e.getMessage());
+                dropped = batch;
+            }
+            synchronized (this) {
+                written += batchWritten;
+                failed += dropped.size();
+                for (final Document document : dropped) {
+                    final Object candidateId = document.getMetadata().get(RagDocumentService.CANDIDATE_ID_KEY);
+                    if (candidateId != null) {
+                        droppedByCandidate.merge(candidateId.toString(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        synchronized int droppedChunks(final String candidateId) {
+            return droppedByCandidate.getOrDefault(candidateId, 0);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import ie.com.rag.exception.CandidateNotFoundException;
 import ie.com.rag.exception.CandidateSaveException;
 import ie.com.rag.exception.CandidateValidationException;
 import ie.com.rag.exception.CandidateValidationException.ValidationError;
+import ie.com.rag.exception.IndexingInProgressException;
 import ie.com.rag.mapper.CandidateMapperInterface;
 import ie.com.rag.repository.CandidateRepository;
 import lombok.RequiredArgsConstructor;
@@ -47,13 +48,16 @@ public class CandidateService {
      * @param experience        the candidate's experience description
      * @param education         the candidate's education description
      * @param yearsOfExperience the number of years of experience
+     * @param fileHash          the SHA-256 of the uploaded file, used to recognise re-uploads
+     * @param textHash          the SHA-256 of the normalized CV text, used to recognise re-uploads
      * @return the saved candidate as a Data Transfer Object
      */
     @Transactional
     public CandidateDTO saveCandidate(final String name, final String email, final String phone,
                                       final String cvContent, final String originalFileName,
                                       final List<String> skills, final String experience,
-                                      final String education, final Integer yearsOfExperience) {
+                                      final String education, final Integer yearsOfExperience,
+                                      final String fileHash, final String textHash) {
 
         validateCandidateInputs(name, email, cvContent, originalFileName, yearsOfExperience, skills);
 
@@ -77,6 +81,9 @@ public class CandidateService {
                     .experience(sanitizedExperience)
                     .education(sanitizedEducation)
                     .yearsOfExperience(yearsOfExperience)
+                    .fileHash(fileHash)
+                    .textHash(textHash)
+                    .indexed(false)
                     .build();
 
             final Candidate savedCandidate = candidateRepository.save(candidate);
@@ -101,6 +108,53 @@ public class CandidateService {
         }
     }
 
+    /**
+     * Finds the candidate created from an identical upload.
+     *
+     * @param fileHash the SHA-256 of the uploaded file
+     * @return the matching candidate, if any
+     * @throws IndexingInProgressException if the matching candidate is not indexed yet
+     */
+    public Optional<CandidateDTO> findByFileHash(final String fileHash) {
+        return candidateRepository.findFirstByFileHash(fileHash).map(this::toIndexedDTO);
+    }
+
+    /**
+     * Finds the candidate whose CV has the same normalized text.
+     *
+     * @param textHash the SHA-256 of the normalized CV text
+     * @return the matching candidate, if any
+     * @throws IndexingInProgressException if the matching candidate is not indexed yet
+     */
+    public Optional<CandidateDTO> findByTextHash(final String textHash) {
+        return candidateRepository.findByTextHash(textHash).map(this::toIndexedDTO);
+    }
+
+    /**
+     * Marks a candidate as indexed once all chunks of its CV are stored, from when uploads of the same CV are
+     * deduplicated against it.
+     *
+     * @param id the ID of the candidate
+     */
+    @Transactional
+    public void markIndexed(final String id) {
+        if (candidateRepository.markIndexed(id) == 0) {
+            throw new CandidateNotFoundException(id);
+        }
+    }
+
+    /**
+     * A candidate whose CV is still being indexed may yet be removed when indexing fails, so an upload matching it
+     * cannot be settled as a duplicate until it is.
+     */
+    private CandidateDTO toIndexedDTO(final Candidate candidate) {
+        if (!candidate.isIndexed()) {
+            throw new IndexingInProgressException("The same CV is still being indexed by an earlier upload as "
+                    + "candidate " + candidate.getId() + ", retry the upload once it is done");
+        }
+        return candidateMapper.toDTO(candidate);
+    }
+
     /**
      * Retrieves all candidates, ordered by creation date in descending order.
      *
@@ -0,0 +1,282 @@
+package ie.com.rag.service;
+
+import ie.com.rag.dto.JobStatusDTO;
+import ie.com.rag.entity.JobCheckpoint;
+import ie.com.rag.entity.JobStatus;
+import ie.com.rag.exception.JobStateException;
+import ie.com.rag.exception.ResourceNotFoundException;
+import ie.com.rag.repository.JobCheckpointRepository;
+import ie.com.rag.utils.TextUtils;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs a long background job that walks its tables in key order and records its progress in
+ * {@code job_checkpoints}. At most one run is active across all nodes: a start claims the checkpoint row, and a
+ * node that went away without finishing its run leaves a claim that others take over once it goes stale. The run
+ * goes on its own thread, stops between items when asked, and a stopped or failed run resumes from its checkpoint
+ * on the next start. Each job owns one instance and supplies the work; starting, stopping, checkpointing,
+ * budgeting and the final status are handled here.
+ */
+@Slf4j
+final class CheckpointedJob {
+
+    // A running checkpoint is advanced at least once per item or page, far more often than this.
+    private static final Duration STALE_RUN_AFTER = Duration.ofMinutes(30);
+
+    private final String jobName;
+    private final String displayName;
+    private final JobCheckpointRepository checkpointRepository;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    /**
+     * @param jobName              the key of the job in {@code job_checkpoints}
+     * @param displayName          how the job is called in messages, such as "Re-embedding"
+     * @param checkpointRepository where the checkpoint is kept
+     */
+    CheckpointedJob(final String jobName, final String displayName,
+                    final JobCheckpointRepository checkpointRepository) {
+        this.jobName = jobName;
+        this.displayName = displayName;
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    /**
+     * The work of a run.
+     */
+    @FunctionalInterface
+    interface Work {
+
+        /**
+         * Works from the checkpoint on, advancing it as items are finished.
+         *
+         * @return whether the run got through everything, false when it was stopped
+         */
+        boolean run(JobCheckpoint checkpoint);
+    }
+
+    /**
+     * Starts a run on the job thread, resuming the stored checkpoint when it is still resumable.
+     *
+     * @param resumable  whether a stored checkpoint is resumed rather than replaced by a new run
+     * @param firstPhase the phase a new run starts in
+     * @param prepare    checks and set-up once the run is claimed; may reject the start by throwing
+     * @param work       the work of the run
+     * @return the checkpoint of the started run
+     * @throws JobStateException if a run of the job is already running on this or another node
+     */
+    JobCheckpoint start(final Predicate<JobCheckpoint> resumable, final String firstPhase,
+                        final Consumer<JobCheckpoint> prepare, final Work work) {
+        if (!running.compareAndSet(false, true)) {
+            throw new JobStateException(displayName + " is already running");
+        }
+
+        try {
+            final Optional<JobCheckpoint> stored = checkpointRepository.findById(jobName);
+            final JobCheckpoint checkpoint = stored
+                    .filter(resumable)
+                    .orElseGet(() -> newRun(firstPhase));
+            final LocalDateTime now = LocalDateTime.now();
+            if (checkpointRepository.claimRun(jobName, checkpoint.getRunId(), now, now.minus(STALE_RUN_AFTER)) == 0) {
+                throw new JobStateException(displayName + " is already running on another node");
+            }
+            try {
+                prepare.accept(checkpoint);
+
+                checkpoint.setStatus(JobStatus.RUNNING.name());
+                checkpoint.setErrorMessage(null);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+            } catch (final RuntimeException e) {
+                // Give the claim back, leaving the checkpoint as it was.
+                stored.ifPresentOrElse(checkpointRepository::save, () -> checkpointRepository.deleteById(jobName));
+                throw e;
+            }
+
+            stopRequested = false;
+            executor.execute(() -> run(checkpoint, work));
+            return checkpoint;
+        } catch (final RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Asks the running job to stop after its current item.
+     *
+     * @return the status of the run
+     */
+    JobStatusDTO stop() {
+        if (!running.get()) {
+            throw new JobStateException(displayName + " is not running on this node");
+        }
+        stopRequested = true;
+        return getStatus();
+    }
+
+    /**
+     * @return the status of the latest run
+     */
+    JobStatusDTO getStatus() {
+        return checkpointRepository.findById(jobName)
+                .map(CheckpointedJob::toStatus)
+                .orElseThrow(() -> new ResourceNotFoundException("Job", "name", jobName));
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * Makes the run stop at its next check, for work that cannot go on, such as an interrupted thread.
+     */
+    void requestStop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Moves the checkpoint past finished items and saves it.
+     *
+     * @param checkpoint the checkpoint of the run
+     * @param lastKey    the key of the last finished item
+     * @param processed  how many of the items succeeded
+     * @param failed     how many of the items failed, less those of an earlier failure that succeeded on retry
+     */
+    void advance(final JobCheckpoint checkpoint, final String lastKey, final long processed, final long failed) {
+        checkpoint.setLastKey(lastKey);
+        checkpoint.setProcessed(checkpoint.getProcessed() + processed);
+        checkpoint.setFailed(checkpoint.getFailed() + failed);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Creates the throughput budget of a run.
+     *
+     * @param perMinute how many items the run may work on per minute; zero or less means unthrottled
+     * @return a budget to take items from
+     */
+    Budget budget(final int perMinute) {
+        return new Budget(perMinute);
+    }
+
+    /**
+     * Stops the run and the job thread when the application shuts down.
+     */
+    void shutdown() {
+        stopRequested = true;
+        executor.shutdownNow();
+    }
+
+    static JobStatusDTO toStatus(final JobCheckpoint checkpoint) {
+        return new JobStatusDTO(
+                checkpoint.getJobName(),
+                UUID.fromString(checkpoint.getRunId()),
+                checkpoint.getPhase(),
+                checkpoint.getStatus(),
+                checkpoint.getLastKey(),
+                checkpoint.getProcessed(),
+                checkpoint.getFailed(),
+                checkpoint.getErrorMessage(),
+                checkpoint.getStartedAt(),
+                checkpoint.getUpdatedAt(),
+                checkpoint.getCompletedAt()
+        );
+    }
+
+    private void run(final JobCheckpoint checkpoint, final Work work) {
+        final long startTime = System.currentTimeMillis();
+        try {
+            if (work.run(checkpoint)) {
+                checkpoint.setStatus(JobStatus.COMPLETED.name());
+                checkpoint.setCompletedAt(LocalDateTime.now());
+            } else {
+                checkpoint.setStatus(JobStatus.STOPPED.name());
+            }
+            log.info("[RagWiser/CheckpointedJob] - run: {} run {} {} after {} ms, {} processed, {} failed", jobName,
+                    checkpoint.getRunId(), checkpoint.getStatus(), System.currentTimeMillis() - startTime,
+                    checkpoint.getProcessed(), checkpoint.getFailed());
+        } catch (final RuntimeException e) {
+            if (stopRequested) {
+                // Interrupted by a stop or a shutdown; the checkpoint still points after the last finished item.
+                checkpoint.setStatus(JobStatus.STOPPED.name());
+            } else {
+                log.error("[RagWiser/CheckpointedJob] - run: {} run {} failed: {}", jobName, checkpoint.getRunId(),
+                        e.getMessage(), e);
+                checkpoint.setStatus(JobStatus.FAILED.name());
+                checkpoint.setErrorMessage(TextUtils.truncateErrorMessage(e.getMessage()));
+            }
+        } finally {
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            try {
+                checkpointRepository.save(checkpoint);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private JobCheckpoint newRun(final String firstPhase) {
+        final JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName(jobName);
+        checkpoint.setRunId(UUID.randomUUID().toString());
+        checkpoint.setPhase(firstPhase);
+        checkpoint.setStatus(JobStatus.RUNNING.name());
+        checkpoint.setStartedAt(LocalDateTime.now());
+        return checkpoint;
+    }
+
+    /**
+     * How many items a run may work on per minute. Taking items blocks until the budget has them.
+     */
+    final class Budget {
+
+        private final int perMinute;
+        private final Bucket bucket;
+
+        private Budget(final int perMinute) {
+            this.perMinute = perMinute;
+            this.bucket = perMinute <= 0 ? null : Bucket.builder()
+                    .addLimit(Bandwidth.builder()
+                            .capacity(perMinute)
+                            .refillGreedy(perMinute, Duration.ofMinutes(1))
+                            .build())
+                    .build();
+        }
+
+        /**
+         * Waits until the budget has the items. An interrupted wait stops the run.
+         *
+         * @param items how many items are about to be worked on
+         */
+        void consume(final long items) {
+            if (bucket == null) {
+                return;
+            }
+            try {
+                // More items than the whole budget wait for one full refill per budget-sized part.
+                for (long remaining = items; remaining > 0; remaining -= perMinute) {
+                    bucket.asBlocking().consume(Math.min(remaining, perMinute));
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopRequested = true;
+                throw new IllegalStateException("Interrupted while waiting for the " + jobName + " budget", e);
+            }
+        }
+    }
+}
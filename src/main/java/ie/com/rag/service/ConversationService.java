@@ -0,0 +1,300 @@
+package ie.com.rag.service;
+
+import ie.com.rag.Constants;
+import ie.com.rag.config.ConversationSessionProperties;
+import ie.com.rag.config.RetrievalProperties;
+import ie.com.rag.dto.ConversationAnswerDTO;
+import ie.com.rag.dto.ConversationSessionDTO;
+import ie.com.rag.exception.ResourceNotFoundException;
+import ie.com.rag.service.ConversationSessionStore.Chunk;
+import ie.com.rag.service.ConversationSessionStore.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConversationService {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MIN_KEYWORD_LENGTH = 3;
+    private static final int SUMMARY_ANSWER_CHARS = 300;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}+#]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "what", "who", "whom", "has", "have", "had", "does", "did", "about", "with", "which",
+            "his", "her", "hers", "their", "them", "they", "she", "him", "this", "that", "these", "those", "for",
+            "are", "was", "were", "how", "many", "much", "can", "could", "you", "tell", "more", "from", "any",
+            "its", "also", "there", "then", "than", "when", "where", "why", "would", "should", "please", "give"
+    );
+
+    private final ChatModel chatModel;
+    private final RetrievalService retrievalService;
+    private final ConversationSessionStore sessionStore;
+    private final DashboardService dashboardService;
+    private final ConversationSessionProperties sessionProperties;
+    private final RetrievalProperties retrievalProperties;
+
+    /**
+     * Opens a new conversation session.
+     *
+     * @param owner the username of the user opening the session
+     * @return the identifier of the created session
+     */
+    public ConversationSessionDTO openSession(final String owner) {
+        final Session session = sessionStore.create(owner);
+        log.info("[RagWiser/ConversationService] - openSession: session {} opened", session.id());
+        return new ConversationSessionDTO(session.id());
+    }
+
+    /**
+     * Closes a conversation session and releases its stored state. Sessions of other users are left alone.
+     *
+     * @param sessionId the session identifier
+     * @param owner     the username of the user closing the session
+     */
+    public void closeSession(final String sessionId, final String owner) {
+        sessionStore.withLock(sessionId, () -> {
+            sessionStore.find(sessionId)
+                    .filter(session -> isOwnedBy(session, owner))
+                    .ifPresent(session -> sessionStore.delete(sessionId));
+            return null;
+        });
+    }
+
+    /**
+     * Answers a question inside a conversation, reusing the chunks retrieved by earlier turns when the
+     * follow-up stays on the same topic and fetching only what is missing otherwise. Retrieval and the answer run
+     * without holding the session; only recording the turn does.
+     *
+     * @param sessionId the session identifier
+     * @param owner     the username of the user asking
+     * @param question  the user's question
+     * @return the answer together with how the context was obtained
+     */
+    public ConversationAnswerDTO ask(final String sessionId, final String owner, final String question) {
+        if (!StringUtils.hasText(question)) {
+            throw new IllegalArgumentException("Question cannot be null or empty");
+        }
+
+        final Session session = findOwnedSession(sessionId, owner);
+
+        final double coverage = keywordCoverage(question, session.chunks());
+        final RetrievalStrategy strategy = chooseStrategy(session, coverage);
+        final List<Chunk> chunks = switch (strategy) {
+            case REUSED -> session.chunks();
+            case DELTA -> mergeChunks(session.chunks(), fetchDelta(session, question));
+            case FULL -> toChunks(retrievalService.retrieve(question).documents());
+        };
+
+        final PromptTemplate template = new PromptTemplate(Constants.CONVERSATION_PROMPT);
+        final Map<String, Object> promptParameters = Map.of(
+                "history", session.summary(),
+                "input", question,
+                "documents", formatChunks(chunks)
+        );
+
+        final String answer = chatModel
+                .call(template.create(promptParameters))
+                .getResult()
+                .getOutput()
+                .getContent();
+
+        sessionStore.withLock(sessionId, () -> recordTurn(session, owner, chunks, question, answer));
+        dashboardService.saveQAHistory(question, answer);
+        log.info("[RagWiser/ConversationService] - ask: session {} answered with {} retrieval (coverage {})",
+                session.id(), strategy, String.format(Locale.ROOT, "%.2f", coverage));
+        return new ConversationAnswerDTO(session.id(), answer, strategy.name(), chunks.size());
+    }
+
+    /**
+     * Records a turn in its session. Another turn of the same conversation may have been recorded since the
+     * session was read; this turn is then added on top of it rather than overwriting its summary and chunks.
+     *
+     * @param read     the session as read when the turn started
+     * @param owner    the username of the user asking
+     * @param chunks   the chunks the turn was answered from
+     * @param question the question of the turn
+     * @param answer   the answer of the turn
+     * @return the recorded session
+     */
+    private Session recordTurn(final Session read, final String owner, final List<Chunk> chunks,
+                               final String question, final String answer) {
+        final Session current = findOwnedSession(read.id(), owner);
+        final List<Chunk> turnChunks;
+        if (current.turn() == read.turn()) {
+            turnChunks = chunks;
+        } else {
+            final Set<String> knownIds = current.chunks().stream().map(Chunk::id).collect(Collectors.toSet());
+            turnChunks = mergeChunks(current.chunks(), chunks.stream()
+                    .filter(chunk -> !knownIds.contains(chunk.id()))
+                    .toList());
+        }
+
+        final Session recorded = new Session(current.id(), current.owner(), turnChunks,
+                rollSummary(current.summary(), question, answer), question, current.turn() + 1, Instant.now());
+        sessionStore.save(recorded);
+        return recorded;
+    }
+
+    private Session findOwnedSession(final String sessionId, final String owner) {
+        // Another user's session is reported as missing, so session ids cannot be probed.
+        return sessionStore.find(sessionId)
+                .filter(found -> isOwnedBy(found, owner))
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation session", "id", sessionId));
+    }
+
+    private boolean isOwnedBy(final Session session, final String owner) {
+        return session.owner() != null && session.owner().equals(owner);
+    }
+
+    RetrievalStrategy chooseStrategy(final Session session, final double coverage) {
+        if (session.chunks().isEmpty()) {
+            return RetrievalStrategy.FULL;
+        }
+        if (coverage >= sessionProperties.reuseCoverage()) {
+            return RetrievalStrategy.REUSED;
+        }
+        if (coverage >= sessionProperties.deltaCoverage()) {
+            return RetrievalStrategy.DELTA;
+        }
+        return RetrievalStrategy.FULL;
+    }
+
+    /**
+     * Measures how much of a question the remembered chunks already talk about.
+     *
+     * @param question the user's question
+     * @param chunks   the chunks remembered by the session
+     * @return the share of the question's keywords found in the chunks, between 0 and 1
+     */
+    double keywordCoverage(final String question, final List<Chunk> chunks) {
+        if (chunks.isEmpty()) {
+            return 0.0;
+        }
+        final Set<String> keywords = keywordsOf(question);
+        if (keywords.isEmpty()) {
+            // Nothing but references such as "what about him?": the follow-up can only be about the same chunks.
+            return 1.0;
+        }
+
+        final Set<String> chunkWords = new HashSet<>();
+        chunks.forEach(chunk -> chunkWords.addAll(keywordsOf(chunk.content())));
+
+        final long covered = keywords.stream().filter(chunkWords::contains).count();
+        return (double) covered / keywords.size();
+    }
+
+    private Set<String> keywordsOf(final String text) {
+        if (!StringUtils.hasText(text)) {
+            return Set.of();
+        }
+        return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> word.length() >= MIN_KEYWORD_LENGTH)
+                .filter(word -> !STOP_WORDS.contains(word))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Searches for the follow-up with the previous question as context, selecting hits the same way as a full
+     * retrieval, and keeps only unseen chunks.
+     *
+     * @param session  the conversation session
+     * @param question the follow-up question
+     * @return the chunks that were not already part of the session
+     */
+    private List<Chunk> fetchDelta(final Session session, final String question) {
+        final String query = StringUtils.hasText(session.lastQuestion())
+                ? session.lastQuestion() + " " + question
+                : question;
+
+        final List<Document> documents = retrievalService.retrieveSingle(query, sessionProperties.deltaTopK());
+        final Set<String> knownIds = session.chunks().stream().map(Chunk::id).collect(Collectors.toSet());
+        return toChunks(documents).stream()
+                .filter(chunk -> !knownIds.contains(chunk.id()))
+                .toList();
+    }
+
+    List<Chunk> mergeChunks(final List<Chunk> existing, final List<Chunk> delta) {
+        final List<Chunk> merged = new ArrayList<>(existing);
+        merged.addAll(delta);
+        // Keep the most recently retrieved chunks when the session grows past its bound.
+        final int overflow = merged.size() - sessionProperties.maxChunks();
+        return overflow > 0 ? List.copyOf(merged.subList(overflow, merged.size())) : List.copyOf(merged);
+    }
+
+    private List<Chunk> toChunks(final List<Document> documents) {
+        return documents.stream()
+                .limit(sessionProperties.maxChunks())
+                .map(document -> new Chunk(document.getId(), document.getContent(),
+                        document.getMetadata() == null ? Map.of() : new HashMap<>(document.getMetadata())))
+                .toList();
+    }
+
+    /**
+     * Joins chunks into the prompt context up to the context budget. The chunk that crosses the budget is cut to
+     * what is left of it, so an oversized first chunk still gives the model context.
+     *
+     * @param chunks the chunks, most relevant first
+     * @return the prompt context
+     */
+    String formatChunks(final List<Chunk> chunks) {
+        final int maxChars = retrievalProperties.maxContextTokens() * CHARS_PER_TOKEN;
+        final StringBuilder result = new StringBuilder();
+
+        for (final Chunk chunk : chunks) {
+            final int remaining = maxChars - result.length();
+            if (remaining <= 0) {
+                break;
+            }
+            final String content = chunk.content() == null ? "" : chunk.content();
+            result.append(content.length() > remaining ? content.substring(0, remaining) : content)
+                    .append("\n\n---\n\n");
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Appends the latest turn to the summary and drops the oldest turns once it exceeds its size bound.
+     *
+     * @param summary  the current summary
+     * @param question the latest question
+     * @param answer   the latest answer
+     * @return the updated summary
+     */
+    String rollSummary(final String summary, final String question, final String answer) {
+        final String shortAnswer = answer.length() > SUMMARY_ANSWER_CHARS
+                ? answer.substring(0, SUMMARY_ANSWER_CHARS) + "..."
+                : answer;
+        final String updated = summary + "Q: " + question.trim() + "\nA: " + shortAnswer.trim() + "\n";
+        if (updated.length() <= sessionProperties.summaryMaxChars()) {
+            return updated;
+        }
+
+        final int cut = updated.indexOf("Q: ", updated.length() - sessionProperties.summaryMaxChars());
+        return cut > 0 ? updated.substring(cut) : updated.substring(updated.length() - sessionProperties.summaryMaxChars());
+    }
+
+    public enum RetrievalStrategy {
+        FULL,
+        DELTA,
+        REUSED
+    }
+}
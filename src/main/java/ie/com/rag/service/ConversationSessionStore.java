@@ -0,0 +1,198 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.config.ConversationSessionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, expiring store for conversation sessions. An access-ordered in-process map serves hot sessions and
+ * Redis keeps them across restarts and nodes; Redis failures degrade to the in-process tier only. Updates of one
+ * session are serialized with an in-process lock of its own, so a conversation is expected to stay on one node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationSessionStore {
+
+    private static final String REDIS_KEY_PREFIX = "rag:session:";
+
+    private final ConversationSessionProperties sessionProperties;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Session> localSessions = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Session> eldest) {
+                    return size() > sessionProperties.maxSessions();
+                }
+            });
+
+    // Only sessions being updated have a lock; the last holder removes it.
+    private final Map<String, SessionLock> sessionLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Opens a new empty session.
+     *
+     * @param owner the username of the user the session belongs to
+     * @return the created session
+     */
+    public Session create(final String owner) {
+        final Session session = new Session(UUID.randomUUID().toString(), owner, List.of(), "", null, 0,
+                Instant.now());
+        save(session);
+        return session;
+    }
+
+    /**
+     * Looks a session up, first in-process and then in Redis.
+     *
+     * @param sessionId the session identifier
+     * @return the session, or empty when it does not exist or has expired
+     */
+    public Optional<Session> find(final String sessionId) {
+        final Session local = localSessions.get(sessionId);
+        if (local != null) {
+            if (!isExpired(local)) {
+                return Optional.of(local);
+            }
+            localSessions.remove(sessionId);
+        }
+
+        return readFromRedis(sessionId).map(session -> {
+            localSessions.put(sessionId, session);
+            return session;
+        });
+    }
+
+    /**
+     * Runs work while holding the lock of a session, so concurrent updates of one conversation run one after the
+     * other instead of overwriting each other. Sessions do not share locks, and the lock is meant to be held only
+     * for reading, changing and saving the session, not while answering.
+     *
+     * @param sessionId the session identifier
+     * @param work      the work to run
+     * @return the result of the work
+     */
+    public <T> T withLock(final String sessionId, final Supplier<T> work) {
+        final SessionLock lock = sessionLocks.compute(sessionId, (id, existing) -> {
+            final SessionLock held = existing == null ? new SessionLock() : existing;
+            held.holders++;
+            return held;
+        });
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+            sessionLocks.computeIfPresent(sessionId, (id, held) -> --held.holders == 0 ? null : held);
+        }
+    }
+
+    /**
+     * Stores a session, refreshing its expiry in both tiers.
+     *
+     * @param session the session to store
+     */
+    public void save(final Session session) {
+        localSessions.put(session.id(), session);
+        writeToRedis(session);
+    }
+
+    /**
+     * Removes a session from both tiers.
+     *
+     * @param sessionId the session identifier
+     */
+    public void delete(final String sessionId) {
+        localSessions.remove(sessionId);
+        if (!sessionProperties.redisEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(REDIS_KEY_PREFIX + sessionId);
+        } catch (final RuntimeException e) {
+            log.warn("[RagWiser/ConversationSessionStore] - delete: Redis unavailable: {}", e.getMessage());
+        }
+    }
+
+    private boolean isExpired(final Session session) {
+        return session.lastAccessedAt().plus(sessionProperties.ttl()).isBefore(Instant.now());
+    }
+
+    private Optional<Session> readFromRedis(final String sessionId) {
+        if (!sessionProperties.redisEnabled()) {
+            return Optional.empty();
+        }
+        try {
+            final String json = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + sessionId);
+            return json == null ? Optional.empty() : Optional.of(objectMapper.readValue(json, Session.class));
+        } catch (final JsonProcessingException | RuntimeException e) {
+            log.warn("[RagWiser/ConversationSessionStore] - find: could not read session {} from Redis: {}",
+                    sessionId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeToRedis(final Session session) {
+        if (!sessionProperties.redisEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + session.id(),
+                    objectMapper.writeValueAsString(session), sessionProperties.ttl());
+        } catch (final JsonProcessingException | RuntimeException e) {
+            log.warn("[RagWiser/ConversationSessionStore] - save: could not write session {} to Redis: {}",
+                    session.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * State kept for one conversation.
+     *
+     * @param id             the session identifier
+     * @param owner          the username of the user the session belongs to
+     * @param chunks         the retrieved chunks the conversation has used so far, oldest first
+     * @param summary        the rolling summary of previous turns
+     * @param lastQuestion   the previous question, used to give follow-up searches context
+     * @param turn           how many turns have been recorded, used to notice turns recorded concurrently
+     * @param lastAccessedAt when the session was last used
+     */
+    public record Session(String id, String owner, List<Chunk> chunks, String summary, String lastQuestion, long turn,
+                          Instant lastAccessedAt) {
+    }
+
+    /**
+     * The lock of one session, counting the threads holding or waiting for it. Only changed inside the map's
+     * atomic compute calls.
+     */
+    private static final class SessionLock extends ReentrantLock {
+
+        private int holders;
+    }
+
+    /**
+     * A retrieved vector store chunk remembered by a session.
+     *
+     * @param id       the vector store document id
+     * @param content  the chunk text
+     * @param metadata the chunk metadata
+     */
+    public record Chunk(String id, String content, Map<String, Object> metadata) {
+    }
+}
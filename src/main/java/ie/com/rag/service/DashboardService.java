@@ -461,11 +461,14 @@ public class DashboardService {
      * @param filename    the name of the file
      * @param size        the file size in bytes
      * @param contentType the file's MIME type
+     * @param contentHash the SHA-256 of the file content
      */
-    public void saveUploadedDocumentInfo(final String filename, final long size, final String contentType) {
+    public void saveUploadedDocumentInfo(final String filename, final long size, final String contentType,
+                                         final String contentHash) {
         validateUploadedDocumentInput(filename, size, contentType);
 
         final UploadedDocument document = createUploadedDocument(filename, size, contentType);
+        document.setContentHash(contentHash);
         uploadedDocumentRepository.save(document);
         log.info("Saved uploaded document info: {} ({} bytes, {})", filename, size, contentType);
     }
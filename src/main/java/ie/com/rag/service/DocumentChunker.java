@@ -0,0 +1,185 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.ChunkingProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into chunks for embedding while reading it, so no sanitized copy of the document and no list of
+ * its chunks is ever built. Control characters are dropped and whitespace is collapsed on the fly, chunks are
+ * cut at sentence or line boundaries within the token budget, and each chunk starts with the last sentences of
+ * the previous one. Sentences longer than the budget are cut at a word boundary.
+ */
+@Component
+public class DocumentChunker {
+
+    private static final int APPROX_CHARS_PER_TOKEN = 4;
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final int maxChars;
+    private final int overlapChars;
+
+    public DocumentChunker(final ChunkingProperties chunkingProperties) {
+        this.maxChars = Math.max(1, chunkingProperties.maxTokens()) * APPROX_CHARS_PER_TOKEN;
+        // Overlap beyond half a chunk would repeat most of every chunk in the next one.
+        this.overlapChars = Math.clamp((long) chunkingProperties.overlapTokens() * APPROX_CHARS_PER_TOKEN, 0, maxChars / 2);
+    }
+
+    /**
+     * Reads text to its end and hands every chunk to the sink as soon as it is complete.
+     *
+     * @param reader the text to chunk, left open
+     * @param sink   receives the chunks in document order
+     * @return the number of chunks emitted
+     */
+    public int chunk(final Reader reader, final Consumer<String> sink) {
+        final ChunkState state = new ChunkState(sink);
+        final char[] buffer = new char[READ_BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    state.accept(buffer[i]);
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read document text for chunking", e);
+        }
+        return state.finish();
+    }
+
+    private static boolean isDroppedControl(final char c) {
+        return c <= '\u0008' || c == '\u000B' || c == '\u000C' || (c >= '\u000E' && c <= '\u001F') || c == '\u007F';
+    }
+
+    private static boolean endsSentence(final CharSequence text) {
+        final char last = text.charAt(text.length() - 1);
+        return last == '.' || last == '!' || last == '?';
+    }
+
+    /**
+     * Per-document chunking state: the sentence being read and the sentences of the chunk being filled, each kept
+     * with the separator that followed it.
+     */
+    private final class ChunkState {
+
+        private final Consumer<String> sink;
+        private final StringBuilder sentence = new StringBuilder();
+        private final Deque<String> window = new ArrayDeque<>();
+        private int windowChars;
+        private boolean windowHasNewText;
+        private int emitted;
+
+        private boolean pendingSpace;
+        private int pendingNewlines;
+        private boolean afterCarriageReturn;
+
+        ChunkState(final Consumer<String> sink) {
+            this.sink = sink;
+        }
+
+        void accept(final char c) {
+            if (c == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                return;
+            }
+            afterCarriageReturn = c == '\r';
+
+            if (c == '\n' || c == '\r') {
+                pendingNewlines++;
+            } else if (c == ' ' || c == '\t') {
+                pendingSpace = true;
+            } else if (!isDroppedControl(c)) {
+                startToken(c);
+            }
+        }
+
+        int finish() {
+            if (!sentence.isEmpty()) {
+                endSentence("");
+            }
+            if (windowHasNewText) {
+                emit();
+            }
+            return emitted;
+        }
+
+        private void startToken(final char c) {
+            if (!sentence.isEmpty()) {
+                if (pendingNewlines > 0) {
+                    endSentence(pendingNewlines > 1 ? "\n\n" : "\n");
+                } else if (pendingSpace) {
+                    if (endsSentence(sentence)) {
+                        endSentence(" ");
+                    } else {
+                        sentence.append(' ');
+                    }
+                }
+            }
+            pendingSpace = false;
+            pendingNewlines = 0;
+
+            sentence.append(c);
+            if (sentence.length() >= maxChars) {
+                splitLongSentence();
+            }
+        }
+
+        /**
+         * Cuts a sentence that outgrew the budget at its last space, or mid-word when it has none, and keeps the
+         * rest as the start of the next sentence.
+         */
+        private void splitLongSentence() {
+            final int space = sentence.lastIndexOf(" ");
+            if (space > 0) {
+                final String remainder = sentence.substring(space + 1);
+                sentence.setLength(space);
+                endSentence(" ");
+                sentence.append(remainder);
+            } else {
+                endSentence("");
+            }
+        }
+
+        private void endSentence(final String separator) {
+            final String text = sentence.append(separator).toString();
+            sentence.setLength(0);
+
+            if (windowChars + text.length() > maxChars && windowHasNewText) {
+                emit();
+                keepOverlap(text.length());
+            }
+            window.addLast(text);
+            windowChars += text.length();
+            windowHasNewText = true;
+        }
+
+        private void emit() {
+            final StringBuilder chunk = new StringBuilder(windowChars);
+            window.forEach(chunk::append);
+            final String text = chunk.toString().strip();
+            if (!text.isEmpty()) {
+                sink.accept(text);
+                emitted++;
+            }
+            windowHasNewText = false;
+        }
+
+        /**
+         * Drops sentences from the front of the emitted chunk until only the overlap is left and the next sentence
+         * fits beside it.
+         */
+        private void keepOverlap(final int nextSentenceChars) {
+            while (!window.isEmpty()
+                    && (windowChars > overlapChars || windowChars + nextSentenceChars > maxChars)) {
+                windowChars -= window.removeFirst().length();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ie.com.rag.service;
+
+import ie.com.rag.utils.SpooledUpload;
+import ie.com.rag.utils.TextUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Single entry point for turning an upload into text. The multipart payload is spooled to disk once and every
+ * parser reads that file, so every ingestion path works from the same {@link ExtractedDocument}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentExtractionService {
+
+    private final PdfExtractionService pdfExtractionService;
+    private final TikaExtractionService tikaExtractionService;
+
+    /**
+     * Reads an uploaded file once and extracts its sanitized text.
+     *
+     * @param file the uploaded file
+     * @return the extracted document
+     */
+    public ExtractedDocument extract(final MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be null or empty");
+        }
+
+        final String filename = StringUtils.hasText(file.getOriginalFilename())
+                ? file.getOriginalFilename()
+                : "unknown-file";
+        final String contentType = StringUtils.hasText(file.getContentType())
+                ? file.getContentType()
+                : "application/octet-stream";
+
+        try (SpooledUpload upload = SpooledUpload.spool(file)) {
+            return extract(upload, filename, contentType);
+        } catch (final IOException e) {
+            log.error("Error extracting text from file {}: {}", filename, e.getMessage(), e);
+            throw new IllegalStateException("Failed to extract text from uploaded file: " + filename, e);
+        }
+    }
+
+    /**
+     * Extracts the sanitized text of a stored upload in place, without copying it.
+     *
+     * @param path        the location of the stored file
+     * @param filename    the original filename
+     * @param contentType the MIME type of the upload
+     * @return the extracted document
+     */
+    public ExtractedDocument extract(final Path path, final String filename, final String contentType) {
+        if (path == null || !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Stored file does not exist: " + path);
+        }
+
+        try (SpooledUpload upload = SpooledUpload.of(path)) {
+            return extract(upload, filename, contentType);
+        } catch (final IOException e) {
+            log.error("Error extracting text from stored file {}: {}", filename, e.getMessage(), e);
+            throw new IllegalStateException("Failed to extract text from stored file: " + filename, e);
+        }
+    }
+
+    /**
+     * Extracts the sanitized text of a spooled file. Every parser reads from the file on disk, so the heap only
+     * holds the extracted text whatever the size of the upload.
+     *
+     * @param upload      the spooled file
+     * @param filename    the name of the file
+     * @param contentType the MIME type of the file
+     * @return the extracted document
+     * @throws IOException if no parser could extract the content
+     */
+    public ExtractedDocument extract(final SpooledUpload upload, final String filename, final String contentType)
+            throws IOException {
+        final String text = TextUtils.sanitizeTextContent(extractText(upload, filename, contentType));
+
+        final String preview = text.length() > 200 ? text.substring(0, 200) + "..." : text;
+        log.debug("Extracted content preview (first 200 chars): {}", preview);
+
+        return new ExtractedDocument(filename, contentType, upload.size(), text);
+    }
+
+    /**
+     * Extracts text content based on the identified content structure, utilizing simple formats, PDF
+     * structures or Apache Tika for everything else.
+     *
+     * @param upload      the spooled file
+     * @param filename    the name of the file
+     * @param contentType the MIME type of the file
+     * @return the extracted textual payload
+     * @throws IOException if no parser could extract the content
+     */
+    private String extractText(final SpooledUpload upload, final String filename, final String contentType)
+            throws IOException {
+        if (contentType.contains("text")) {
+            log.info("Processing text file: {}", filename);
+            // Decoding straight from the mapping skips the intermediate byte[] copy.
+            return StandardCharsets.UTF_8.decode(upload.map()).toString();
+        }
+
+        if (contentType.contains("pdf")) {
+            try {
+                return pdfExtractionService.extractText(upload, filename);
+            } catch (final InterruptedIOException e) {
+                // Out of time already, Tika would only take longer.
+                throw e;
+            } catch (final IOException | RuntimeException e) {
+                log.warn("Failed to parse PDF file {} with PDFBox, falling back to Tika", filename);
+            }
+        }
+
+        return tikaExtractionService.extractText(upload, filename, contentType);
+    }
+
+    /**
+     * Text extracted from one upload, shared by the candidate and the vector store ingestion paths.
+     *
+     * @param filename    the original filename
+     * @param contentType the MIME type of the upload
+     * @param size        the size of the upload in bytes
+     * @param text        the sanitized extracted text
+     */
+    public record ExtractedDocument(String filename, String contentType, long size, String text) {
+    }
+}
@@ -0,0 +1,183 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.AdmissionProperties;
+import ie.com.rag.exception.IngestionOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for document ingestion. Extracting, parsing and embedding a document costs permits weighted
+ * by its size and type, taken from a fair semaphore sized to what the node can sustain, so a burst of large
+ * uploads queues up instead of exhausting memory and threads. Uploads handled within a request wait in a bounded
+ * queue for a bounded time and are turned away once either bound is hit; background work waits for its turn.
+ */
+@Slf4j
+@Service
+public class IngestionAdmissionService {
+
+    private static final Set<String> TEXT_CONTENT_TYPES = Set.of("text/plain");
+
+    private final AdmissionProperties admissionProperties;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public IngestionAdmissionService(final AdmissionProperties admissionProperties, final MeterRegistry meterRegistry) {
+        this.admissionProperties = admissionProperties;
+        this.permits = new Semaphore(capacity(), true);
+        Gauge.builder("rag.ingestion.admission.queue", waiting, AtomicInteger::get)
+                .description("Documents waiting for ingestion permits")
+                .register(meterRegistry);
+        Gauge.builder("rag.ingestion.admission.permits.used", permits, semaphore -> capacity() - semaphore.availablePermits())
+                .description("Ingestion permits held by documents being processed")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("rag.ingestion.admission.wait")
+                .description("Time documents waited for ingestion permits")
+                .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("rag.ingestion.admission.rejected")
+                .description("Uploads turned away by ingestion admission control")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.timeoutRejections = Counter.builder("rag.ingestion.admission.rejected")
+                .description("Uploads turned away by ingestion admission control")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a document handled within a request. The caller waits at most {@code maxWait}, behind at most
+     * {@code maxQueued} other documents.
+     *
+     * @param size        the size of the document in bytes
+     * @param contentType the content type of the document
+     * @return the permit to close once the document is processed
+     * @throws IngestionOverloadedException if the wait queue is full or no permits free up in time
+     */
+    public Permit admit(final long size, final String contentType) {
+        final int weight = weightOf(size, contentType);
+        final long startTime = System.nanoTime();
+        try {
+            // A zero timeout still respects fairness, unlike the untimed tryAcquire.
+            if (permits.tryAcquire(weight, 0, TimeUnit.NANOSECONDS)) {
+                return new Permit(weight);
+            }
+            if (waiting.incrementAndGet() > admissionProperties.maxQueued()) {
+                waiting.decrementAndGet();
+                queueFullRejections.increment();
+                log.warn("[RagWiser/IngestionAdmissionService] - admit: wait queue full, turning away a document of {} bytes",
+                        size);
+                throw new IngestionOverloadedException("Too many documents are waiting to be processed, retry later",
+                        true, admissionProperties.retryAfter());
+            }
+            try {
+                if (!permits.tryAcquire(weight, admissionProperties.maxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                    timeoutRejections.increment();
+                    log.warn("[RagWiser/IngestionAdmissionService] - admit: no capacity for a document of {} bytes within {}",
+                            size, admissionProperties.maxWait());
+                    throw new IngestionOverloadedException("Document processing is at capacity, retry later",
+                            false, admissionProperties.retryAfter());
+                }
+                return new Permit(weight);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ingestion capacity", e);
+        } finally {
+            waitTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Acquires permits for background work, such as queue workers and bulk uploads, waiting as long as it takes.
+     *
+     * @param size        the size of the document in bytes
+     * @param contentType the content type of the document
+     * @return the permit to close once the document is processed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Permit acquire(final long size, final String contentType) throws InterruptedException {
+        final int weight = weightOf(size, contentType);
+        final long startTime = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            permits.acquire(weight);
+            return new Permit(weight);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Takes permits for background work only if they are free right away, so work holding a lease, such as a
+     * claimed queue row, never waits for capacity while its lease runs out.
+     *
+     * @param size        the size of the document in bytes
+     * @param contentType the content type of the document
+     * @return the permit to close once the document is processed, or {@code null} if there is no capacity now
+     */
+    public Permit tryAcquire(final long size, final String contentType) {
+        final int weight = weightOf(size, contentType);
+        try {
+            // A zero timeout still respects fairness, unlike the untimed tryAcquire.
+            return permits.tryAcquire(weight, 0, TimeUnit.NANOSECONDS) ? new Permit(weight) : null;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * The permits a document costs: one, plus one for every {@code permitBytes} of its size, multiplied for
+     * documents that need parsing, and never more than the whole capacity so that any document can be admitted.
+     *
+     * @param size        the size of the document in bytes
+     * @param contentType the content type of the document
+     * @return the weight of the document
+     */
+    int weightOf(final long size, final String contentType) {
+        final long sizeWeight = 1 + Math.max(0, size) / Math.max(1, admissionProperties.permitBytes());
+        final long weight = contentType != null && TEXT_CONTENT_TYPES.contains(contentType)
+                ? sizeWeight
+                : sizeWeight * Math.max(1, admissionProperties.parsedTypeWeight());
+        return (int) Math.min(weight, capacity());
+    }
+
+    private int capacity() {
+        return Math.max(1, admissionProperties.capacity());
+    }
+
+    /**
+     * Permits held for one document. Closing releases them; closing again does nothing.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final int weight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(final int weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release(weight);
+            }
+        }
+    }
+}
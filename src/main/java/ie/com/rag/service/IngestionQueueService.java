@@ -0,0 +1,397 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.IngestionQueueProperties;
+import ie.com.rag.dto.UploadStatusDTO;
+import ie.com.rag.entity.UploadStatus;
+import ie.com.rag.entity.UploadedDocument;
+import ie.com.rag.exception.IndexingFailedException;
+import ie.com.rag.exception.IndexingInProgressException;
+import ie.com.rag.exception.IngestionOverloadedException;
+import ie.com.rag.exception.ResourceNotFoundException;
+import ie.com.rag.repository.UploadedDocumentRepository;
+import ie.com.rag.service.RagUploaderService.RegisteredCv;
+import ie.com.rag.utils.SpooledUpload;
+import ie.com.rag.utils.TextUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable ingestion queue kept in {@code uploaded_documents}. Uploads are stored and queued within the request;
+ * workers claim queued rows with {@code FOR UPDATE SKIP LOCKED} and move them through
+ * PARSING, EMBEDDING and DONE, DUPLICATE or FAILED. Failures that may go away are queued again with a growing delay
+ * until the attempts run out.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestionQueueService {
+
+    private final UploadedDocumentRepository uploadedDocumentRepository;
+    private final DocumentExtractionService documentExtractionService;
+    private final RagUploaderService ragUploaderService;
+    private final RagDocumentService ragDocumentService;
+    private final IngestionQueueProperties queueProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestionAdmissionService admissionService;
+    private final VectorStoreWriter vectorStoreWriter;
+    private final CandidateService candidateService;
+
+    /**
+     * Stores an uploaded CV and queues it for processing.
+     *
+     * @param file  the uploaded CV multipart file
+     * @param name  the name of the candidate
+     * @param email the email address of the candidate
+     * @param phone the contact number of the candidate
+     * @param owner the username of the user queueing the upload
+     * @return the status of the queued upload
+     */
+    public UploadStatusDTO enqueue(final MultipartFile file, final String name, final String email, final String phone,
+                                   final String owner) {
+        ragUploaderService.validateInput(file, name, email);
+
+        final String id = UUID.randomUUID().toString();
+        final Path storedFile = store(file, id);
+
+        final UploadedDocument document = new UploadedDocument();
+        document.setId(id);
+        document.setFilename(StringUtils.hasText(file.getOriginalFilename()) ? file.getOriginalFilename().trim() : id);
+        document.setContentType(StringUtils.hasText(file.getContentType())
+                ? file.getContentType()
+                : "application/octet-stream");
+        document.setFileSize(file.getSize());
+        document.setFilePath(storedFile.toString());
+        document.setStatus(UploadStatus.QUEUED.name());
+        document.setCandidateName(name.trim());
+        document.setCandidateEmail(email.trim());
+        document.setCandidatePhone(phone);
+        document.setUploadedBy(owner);
+        document.setUploadedAt(LocalDateTime.now());
+
+        try {
+            uploadedDocumentRepository.save(document);
+        } catch (final RuntimeException e) {
+            deleteQuietly(storedFile);
+            throw e;
+        }
+
+        log.info("[RagWiser/IngestionQueueService] - enqueue: queued {} as upload {}", document.getFilename(), id);
+        return toStatus(document);
+    }
+
+    /**
+     * Reports the progress of a queued upload.
+     *
+     * @param id    the upload identifier
+     * @param owner the username of the user asking
+     * @return the current status of the upload
+     * @throws ResourceNotFoundException if there is no such upload or another user queued it
+     */
+    public UploadStatusDTO getStatus(final String id, final String owner) {
+        // Another user's upload is reported as missing, so upload ids cannot be probed.
+        return uploadedDocumentRepository.findById(id)
+                .filter(document -> document.getUploadedBy() != null && document.getUploadedBy().equals(owner))
+                .map(this::toStatus)
+                .orElseThrow(() -> new ResourceNotFoundException("Uploaded document", "id", id));
+    }
+
+    /**
+     * Claims the oldest queued uploads for this worker. An upload is only claimed together with its ingestion
+     * permits, so a claimed row never sits waiting for capacity until it is taken for abandoned; uploads left over
+     * once capacity runs out stay queued for the next poll. Claimed rows are moved to PARSING before the locks are
+     * released, so no other worker picks them up.
+     *
+     * @param limit the maximum number of uploads to claim
+     * @return the claimed uploads with their permits, to be closed once processed
+     */
+    List<ClaimedUpload> claim(final int limit) {
+        final List<ClaimedUpload> claimed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                final LocalDateTime now = LocalDateTime.now();
+                for (final UploadedDocument document : uploadedDocumentRepository.findQueuedForClaim(limit, now)) {
+                    final IngestionAdmissionService.Permit permit = admissionService.tryAcquire(
+                            document.getFileSize() == null ? 0 : document.getFileSize(), document.getContentType());
+                    if (permit == null) {
+                        // Younger uploads do not overtake the oldest one waiting for capacity.
+                        break;
+                    }
+                    document.setStatus(UploadStatus.PARSING.name());
+                    document.setAttempts(document.getAttempts() + 1);
+                    document.setClaimedAt(now);
+                    document.setNextAttemptAt(null);
+                    claimed.add(new ClaimedUpload(document, permit));
+                }
+                uploadedDocumentRepository.saveAll(claimed.stream().map(ClaimedUpload::document).toList());
+            });
+        } catch (final RuntimeException e) {
+            claimed.forEach(upload -> upload.permit().close());
+            throw e;
+        }
+        return claimed;
+    }
+
+    /**
+     * Moves the claim time of an upload that is still being processed forward, so a slow CV is not taken for
+     * abandoned while its worker is alive.
+     *
+     * @param document the upload being processed
+     */
+    void heartbeat(final UploadedDocument document) {
+        synchronized (document) {
+            final LocalDateTime now = LocalDateTime.now();
+            if (uploadedDocumentRepository.refreshClaim(document.getId(), document.getVersion(), now) == 1) {
+                document.setClaimedAt(now);
+            } else {
+                log.warn("[RagWiser/IngestionQueueService] - heartbeat: upload {} is no longer claimed by this worker",
+                        document.getId());
+            }
+        }
+    }
+
+    /**
+     * Puts uploads whose worker disappeared back on the queue, and cleans up those that ran out of attempts.
+     *
+     * @return the number of uploads requeued or failed
+     */
+    int requeueStale() {
+        final LocalDateTime cutoff = LocalDateTime.now().minus(queueProperties.staleAfter());
+        final int updated = uploadedDocumentRepository.requeueStale(cutoff, queueProperties.maxAttempts());
+        if (updated > 0) {
+            log.warn("[RagWiser/IngestionQueueService] - requeueStale: {} abandoned uploads requeued or failed", updated);
+        }
+
+        for (final UploadedDocument failed : uploadedDocumentRepository.findByStatusAndFilePathIsNotNull(
+                UploadStatus.FAILED.name())) {
+            discardCandidate(failed);
+            deleteQuietly(Path.of(failed.getFilePath()));
+            failed.setFilePath(null);
+            uploadedDocumentRepository.save(failed);
+        }
+        return updated;
+    }
+
+    /**
+     * Runs the ingestion pipeline for a claimed upload. A candidate registered by an earlier attempt is not
+     * registered again, the attempt resumes with the embedding step after removing the chunks the earlier attempt
+     * stored. An upload matching an existing candidate ends as DUPLICATE without being processed again; one matching a
+     * candidate that is still being indexed waits on the queue until it is. The worker keeps the claim alive with
+     * {@link #heartbeat}; should the upload still be reclaimed, its outcome is left to the new claim.
+     *
+     * @param document the claimed upload
+     * @param permit   the ingestion permits taken when the upload was claimed, released once it is processed
+     */
+    void process(final UploadedDocument document, final IngestionAdmissionService.Permit permit) {
+        final long startTime = System.currentTimeMillis();
+        final Path storedFile = Path.of(document.getFilePath());
+        try (permit; SpooledUpload upload = SpooledUpload.of(storedFile)) {
+            final String text;
+            if (document.getCandidateId() == null) {
+                final RegisteredCv registered = ragUploaderService.registerCv(upload, document.getFilename(),
+                        document.getContentType(), document.getCandidateName(), document.getCandidateEmail(),
+                        document.getCandidatePhone(), cv -> {
+                            document.setCandidateId(cv.candidate().id().toString());
+                            document.setContentHash(cv.fileHash());
+                            // A duplicate must not discard the existing candidate if it fails from here on.
+                            document.setStatus(cv.deduplicated()
+                                    ? UploadStatus.DUPLICATE.name()
+                                    : UploadStatus.EMBEDDING.name());
+                            save(document);
+                        });
+                if (registered.deduplicated()) {
+                    finish(document, storedFile, UploadStatus.DUPLICATE);
+                    log.info("[RagWiser/IngestionQueueService] - process: upload {} matches candidate {} by {} hash",
+                            document.getId(), registered.candidate().id(), registered.match());
+                    return;
+                }
+                text = registered.document().text();
+            } else {
+                text = documentExtractionService.extract(upload, document.getFilename(), document.getContentType()).text();
+                document.setStatus(UploadStatus.EMBEDDING.name());
+                save(document);
+                vectorStoreWriter.deleteCandidateChunks(document.getCandidateId());
+            }
+
+            ragDocumentService.processDocument(text, document.getFilename(), document.getCandidateId());
+            candidateService.markIndexed(document.getCandidateId());
+            finish(document, storedFile, UploadStatus.DONE);
+
+            log.info("[RagWiser/IngestionQueueService] - process: upload {} done in {} ms", document.getId(),
+                    System.currentTimeMillis() - startTime);
+        } catch (final IOException | RuntimeException e) {
+            fail(document, storedFile, e);
+        }
+    }
+
+    /**
+     * Queues an upload that failed for a reason that may go away again, with a delay that doubles on every
+     * attempt, while it has attempts left. Any other failure is final: the stored file is deleted and the
+     * candidate the upload registered is removed with its chunks, so uploading the CV again is not turned away
+     * as a duplicate of a candidate that was never fully indexed. An upload reclaimed by another worker is left
+     * alone.
+     */
+    private void fail(final UploadedDocument document, final Path storedFile, final Exception error) {
+        if (error instanceof OptimisticLockingFailureException) {
+            giveUp(document);
+            return;
+        }
+        document.setErrorMessage(TextUtils.truncateErrorMessage(error.getMessage()));
+        document.setClaimedAt(null);
+
+        if (isRetryable(error) && document.getAttempts() < queueProperties.maxAttempts()) {
+            final Duration delay = queueProperties.retryBackoff()
+                    .multipliedBy(1L << Math.min(Math.max(document.getAttempts() - 1, 0), 10));
+            log.warn("[RagWiser/IngestionQueueService] - process: attempt {} of upload {} failed, retrying in {}: {}",
+                    document.getAttempts(), document.getId(), delay, error.getMessage());
+            document.setStatus(UploadStatus.QUEUED.name());
+            document.setNextAttemptAt(LocalDateTime.now().plus(delay));
+            saveClaimed(document);
+            return;
+        }
+
+        log.error("[RagWiser/IngestionQueueService] - process: upload {} failed: {}", document.getId(),
+                error.getMessage(), error);
+        if (UploadStatus.DUPLICATE.name().equals(document.getStatus())) {
+            // The candidate of a duplicate belongs to an earlier upload and must survive the clean-up of this one.
+            document.setCandidateId(null);
+        }
+        // Recorded as failed first, so the candidate and file are only removed while the upload is still ours; a
+        // worker stopping in between leaves the clean-up to requeueStale.
+        document.setStatus(UploadStatus.FAILED.name());
+        document.setProcessedAt(LocalDateTime.now());
+        if (!saveClaimed(document)) {
+            return;
+        }
+        discardCandidate(document);
+        deleteQuietly(storedFile);
+        document.setFilePath(null);
+        saveClaimed(document);
+    }
+
+    /**
+     * Failures of the embedding model, the database or ingestion capacity may go away on their own, and a CV that
+     * an earlier upload is still indexing is settled once that upload is done. Files that cannot be read or parsed
+     * fail the same way every time.
+     */
+    private boolean isRetryable(final Exception error) {
+        return error instanceof IndexingFailedException
+                || error instanceof IndexingInProgressException
+                || error instanceof TransientDataAccessException
+                || error instanceof RecoverableDataAccessException
+                || error instanceof IngestionOverloadedException;
+    }
+
+    /**
+     * Removes the candidate an upload registered, together with its chunks.
+     */
+    private void discardCandidate(final UploadedDocument document) {
+        if (document.getCandidateId() == null) {
+            return;
+        }
+        try {
+            vectorStoreWriter.deleteCandidateChunks(document.getCandidateId());
+            candidateService.deleteCandidate(document.getCandidateId());
+        } catch (final RuntimeException e) {
+            log.warn("[RagWiser/IngestionQueueService] - discardCandidate: could not remove candidate {}: {}",
+                    document.getCandidateId(), e.getMessage());
+        }
+        document.setCandidateId(null);
+    }
+
+    private void finish(final UploadedDocument document, final Path storedFile, final UploadStatus status) {
+        document.setFilePath(null);
+        document.setStatus(status.name());
+        document.setErrorMessage(null);
+        document.setProcessedAt(LocalDateTime.now());
+        if (saveClaimed(document)) {
+            deleteQuietly(storedFile);
+        }
+    }
+
+    /**
+     * Saves an upload this worker holds, taking over the version it was saved with, so the next save and the
+     * heartbeat keep matching the row.
+     */
+    private void save(final UploadedDocument document) {
+        synchronized (document) {
+            document.setVersion(uploadedDocumentRepository.saveAndFlush(document).getVersion());
+        }
+    }
+
+    /**
+     * Saves an upload this worker holds unless another worker reclaimed it in the meantime.
+     *
+     * @return whether the upload was saved
+     */
+    private boolean saveClaimed(final UploadedDocument document) {
+        try {
+            save(document);
+            return true;
+        } catch (final OptimisticLockingFailureException e) {
+            giveUp(document);
+            return false;
+        }
+    }
+
+    private void giveUp(final UploadedDocument document) {
+        log.warn("[RagWiser/IngestionQueueService] - process: upload {} was reclaimed after its claim went stale, "
+                + "leaving it to the new claim", document.getId());
+    }
+
+    private Path store(final MultipartFile file, final String id) {
+        try {
+            final Path directory = Files.createDirectories(Path.of(queueProperties.storageDir()));
+            final Path target = directory.resolve(id);
+            file.transferTo(target);
+            return target;
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to store uploaded file for processing", e);
+        }
+    }
+
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            log.warn("[RagWiser/IngestionQueueService] - deleteQuietly: could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * A claimed upload together with the ingestion permits it was claimed with.
+     *
+     * @param document the claimed upload
+     * @param permit   the permits to release once the upload is processed
+     */
+    record ClaimedUpload(UploadedDocument document, IngestionAdmissionService.Permit permit) {
+    }
+
+    private UploadStatusDTO toStatus(final UploadedDocument document) {
+        return new UploadStatusDTO(
+                UUID.fromString(document.getId()),
+                document.getFilename(),
+                document.getStatus(),
+                document.getAttempts(),
+                document.getCandidateId() == null ? null : UUID.fromString(document.getCandidateId()),
+                document.getErrorMessage(),
+                document.getUploadedAt(),
+                document.getProcessedAt()
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.IngestionQueueProperties;
+import ie.com.rag.entity.UploadedDocument;
+import ie.com.rag.service.IngestionQueueService.ClaimedUpload;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the ingestion queue and runs claimed uploads on a fixed pool, so ingestion throughput is set by the
+ * number of workers rather than by request threads. Several nodes can run workers against the same queue. The claims
+ * of uploads in progress are refreshed several times per stale period, so only uploads whose worker is gone are
+ * requeued.
+ */
+@Slf4j
+@Component
+public class IngestionQueueWorker {
+
+    private final IngestionQueueService queueService;
+    private final IngestionQueueProperties queueProperties;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final ExecutorService workers;
+    private final Semaphore freeWorkers;
+    private final Set<UploadedDocument> inProgress = ConcurrentHashMap.newKeySet();
+
+    public IngestionQueueWorker(final IngestionQueueService queueService,
+                                final IngestionQueueProperties queueProperties) {
+        this.queueService = queueService;
+        this.queueProperties = queueProperties;
+        final int workerCount = Math.max(1, queueProperties.workers());
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        this.freeWorkers = new Semaphore(workerCount);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!queueProperties.enabled()) {
+            log.info("[RagWiser/IngestionQueueWorker] - start: ingestion workers disabled on this node");
+            return;
+        }
+
+        final long pollMillis = queueProperties.pollInterval().toMillis();
+        final long staleMillis = queueProperties.staleAfter().toMillis();
+        scheduler.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::requeueStale, staleMillis, staleMillis, TimeUnit.MILLISECONDS);
+        final long heartbeatMillis = Math.max(1, staleMillis / 3);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        log.info("[RagWiser/IngestionQueueWorker] - start: {} ingestion workers polling every {} ms",
+                freeWorkers.availablePermits(), pollMillis);
+    }
+
+    /**
+     * Claims as many uploads as there are idle workers and hands them over. Only the scheduler thread claims,
+     * so the idle count can only grow between the check and the hand-over.
+     */
+    private void poll() {
+        try {
+            final int idle = freeWorkers.availablePermits();
+            if (idle == 0) {
+                return;
+            }
+
+            final List<ClaimedUpload> claimed = queueService.claim(idle);
+            for (final ClaimedUpload upload : claimed) {
+                freeWorkers.acquireUninterruptibly();
+                inProgress.add(upload.document());
+                workers.execute(() -> {
+                    try {
+                        queueService.process(upload.document(), upload.permit());
+                    } finally {
+                        inProgress.remove(upload.document());
+                        freeWorkers.release();
+                    }
+                });
+            }
+        } catch (final RuntimeException e) {
+            // An exception escaping a scheduled task would cancel all further polls.
+            log.warn("[RagWiser/IngestionQueueWorker] - poll: could not claim queued uploads: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        for (final UploadedDocument document : inProgress) {
+            try {
+                queueService.heartbeat(document);
+            } catch (final RuntimeException e) {
+                log.warn("[RagWiser/IngestionQueueWorker] - heartbeat: could not refresh the claim of upload {}: {}",
+                        document.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void requeueStale() {
+        try {
+            queueService.requeueStale();
+        } catch (final RuntimeException e) {
+            log.warn("[RagWiser/IngestionQueueWorker] - requeueStale: could not requeue abandoned uploads: {}",
+                    e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdown();
+    }
+}
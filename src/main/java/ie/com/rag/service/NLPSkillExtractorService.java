@@ -2,89 +2,200 @@ package ie.com.rag.service;
 
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
 import ie.com.rag.Constants;
-import ie.com.rag.utils.SkillDatabaseLoader;
+import ie.com.rag.config.NlpProperties;
+import ie.com.rag.utils.CvSectionSegmenter;
+import ie.com.rag.utils.CvSectionSegmenter.Section;
+import ie.com.rag.utils.HashUtils;
+import ie.com.rag.utils.SkillsDictionary;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class NLPSkillExtractorService {
 
-    private StanfordCoreNLP pipeline;
-    private Set<String> allKnownSkillsLower;
-    private Set<String> technicalTermsLower;
+    /**
+     * The order in which sections are annotated when a document is longer than the annotation budget, most likely
+     * to name skills first.
+     */
+    private static final List<Section> NER_SECTION_ORDER = List.of(
+            Section.SKILLS, Section.EXPERIENCE, Section.PROJECTS, Section.SUMMARY, Section.ACHIEVEMENTS,
+            Section.EDUCATION, Section.HEADER, Section.LANGUAGES, Section.INTERESTS, Section.REFERENCES
+    );
 
-    @PostConstruct
-    public void init() {
-        initializeSkillDatabase();
-        initializePipeline();
-    }
+    private final NlpAnnotationService nlpAnnotationService;
+    private final NlpProperties nlpProperties;
+    private final SkillExtractionCache skillExtractionCache;
+    private final SkillsDictionaryService skillsDictionaryService;
 
     public List<String> extractSkills(final String cvContent) {
+        return extract(cvContent, false).orElseGet(List::of);
+    }
+
+    /**
+     * Extracts skills for background re-processing. Unlike {@link #extractSkills(String)}, a document that NER
+     * cannot annotate right now gets no result rather than a dictionary-only one, so the caller can keep what it
+     * has instead of replacing it with a poorer result. The document is annotated one segment at a time on the
+     * NLP threads left over by uploads.
+     *
+     * @param cvContent the CV text
+     * @return the skills, or empty if NER was unavailable, busy or too slow for this document
+     */
+    public Optional<List<String>> extractSkillsWithNer(final String cvContent) {
+        return extract(cvContent, true);
+    }
+
+    private Optional<List<String>> extract(final String cvContent, final boolean nerRequired) {
         if (!StringUtils.hasText(cvContent)) {
-            return List.of();
+            return Optional.of(List.of());
+        }
+
+        // One snapshot for the whole extraction, so a dictionary reload never mixes two versions in one result.
+        final SkillsDictionary dictionary = skillsDictionaryService.current();
+        final String textHash = HashUtils.sha256OfNormalizedText(cvContent);
+        final Optional<List<String>> cached = skillExtractionCache.get(textHash, dictionary.getVersion());
+        if (cached.isPresent()) {
+            log.debug("[NLPSkillExtractor] - EXTRACT: skills found in cache: {}", cached.get().size());
+            return cached;
         }
 
         try {
             final Set<String> extracted = new HashSet<>();
-            extracted.addAll(extractByPatterns(cvContent));
-            extracted.addAll(extractByContext(cvContent));
-            extracted.addAll(extractByNer(cvContent));
+            extracted.addAll(extractByPatterns(dictionary, cvContent));
+            extracted.addAll(extractByContext(dictionary, cvContent));
+            final Optional<Set<String>> nerSkills = extractByNer(dictionary, cvContent, nerRequired);
+            if (nerSkills.isEmpty() && nerRequired) {
+                return Optional.empty();
+            }
+            // NER is unavailable, busy or too slow for this document, so fall back to the dictionary.
+            extracted.addAll(nerSkills.orElseGet(() -> extractByDictionary(dictionary, cvContent)));
 
-            final List<String> result = buildSkillList(extracted);
+            final List<String> result = buildSkillList(dictionary, extracted);
             log.debug("[NLPSkillExtractor] - EXTRACT: skills found: {}", result.size());
-            return result;
+            if (nerSkills.isPresent()) {
+                // Only complete results are cached, a fallback result is extracted again next time.
+                skillExtractionCache.put(textHash, dictionary.getVersion(), result);
+            }
+            return Optional.of(result);
 
         } catch (final RuntimeException e) {
+            if (nerRequired) {
+                log.warn("[NLPSkillExtractor] - EXTRACT: NLP extraction failed: {}", e.getMessage());
+                return Optional.empty();
+            }
             log.warn("[NLPSkillExtractor] - EXTRACT: NLP extraction failed, using fallback: {}", e.getMessage());
-            return simpleExtract(cvContent);
+            return Optional.of(simpleExtract(dictionary, cvContent));
         }
     }
 
-    private Set<String> extractByNer(final String cvContent) {
-        if (pipeline == null) {
-            return Set.of();
+    private Optional<Set<String>> extractByNer(final SkillsDictionary dictionary, final String cvContent,
+                                               final boolean background) {
+        final List<String> segments = nerSegments(cvContent, nlpProperties.segmentChars(),
+                nlpProperties.maxAnnotatedChars());
+        final Optional<List<CoreMap>> sentences = background
+                ? nlpAnnotationService.annotateInBackground(segments)
+                : nlpAnnotationService.annotate(segments);
+        if (sentences.isEmpty()) {
+            return Optional.empty();
         }
 
         final Set<String> skills = new HashSet<>();
-        try {
-            final Annotation document = new Annotation(cvContent);
-            pipeline.annotate(document);
+        for (final CoreMap sentence : sentences.get()) {
+            final List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+            if (tokens == null) {
+                continue;
+            }
+            collectSkillsFromTokens(dictionary, tokens, skills);
+        }
+        return Optional.of(skills);
+    }
 
-            final List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
-            if (sentences == null || sentences.isEmpty()) {
-                return skills;
+    /**
+     * Split a CV into the segments annotated in parallel. A short CV is one segment. A longer one is split into
+     * its sections, most relevant first, and sections are split at line breaks or packed together so every
+     * segment stays within {@code segmentChars}. Segments stop once {@code maxAnnotatedChars} is reached.
+     *
+     * @param cvContent         the CV text
+     * @param segmentChars      the largest segment, in characters
+     * @param maxAnnotatedChars the most characters annotated in total
+     * @return the segments to annotate
+     */
+    static List<String> nerSegments(final String cvContent, final int segmentChars, final int maxAnnotatedChars) {
+        final int segmentLimit = Math.max(1, segmentChars);
+        final int budget = Math.max(1, maxAnnotatedChars);
+        if (cvContent.length() <= segmentLimit && cvContent.length() <= budget) {
+            return List.of(cvContent);
+        }
+
+        final Map<Section, String> sections = CvSectionSegmenter.segment(cvContent).sections();
+        final List<String> segments = new ArrayList<>();
+        final StringBuilder segment = new StringBuilder();
+        int remaining = budget;
+
+        for (final Section section : NER_SECTION_ORDER) {
+            final String text = sections.get(section);
+            if (text == null) {
+                continue;
             }
+            int start = 0;
+            while (start < text.length() && remaining > 0) {
+                final int newline = text.indexOf('\n', start);
+                final int maxLength = Math.min(segmentLimit, remaining);
+                int end = newline < 0 ? text.length() : newline;
+                if (end - start > maxLength) {
+                    // A line longer than a segment, or than what is left of the budget, is cut at its last space.
+                    end = start + maxLength;
+                    final int space = text.lastIndexOf(' ', end);
+                    if (space > start) {
+                        end = space;
+                    }
+                }
 
-            for (final CoreMap sentence : sentences) {
-                final List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
-                if (tokens == null) {
+                final String line = text.substring(start, end);
+                start = end < text.length() && (text.charAt(end) == '\n' || text.charAt(end) == ' ') ? end + 1 : end;
+                if (line.isBlank()) {
                     continue;
                 }
-                collectSkillsFromTokens(tokens, skills);
+                if (!segment.isEmpty() && segment.length() + 1 + line.length() > segmentLimit) {
+                    segments.add(segment.toString());
+                    segment.setLength(0);
+                }
+                if (!segment.isEmpty()) {
+                    segment.append('\n');
+                }
+                segment.append(line);
+                remaining -= line.length();
             }
-        } catch (final RuntimeException e) {
-            log.warn("[NLPSkillExtractor] - NER: extraction error: {}", e.getMessage());
         }
+        if (!segment.isEmpty()) {
+            segments.add(segment.toString());
+        }
+        return segments;
+    }
 
-        return skills;
+    private Set<String> extractByDictionary(final SkillsDictionary dictionary, final String cvContent) {
+        return dictionary.getMatcher().findAll(cvContent).stream()
+                .map(skill -> capitalize(dictionary, skill))
+                .collect(Collectors.toSet());
     }
 
-    private void collectSkillsFromTokens(final List<CoreLabel> tokens, final Set<String> skills) {
+    private void collectSkillsFromTokens(final SkillsDictionary dictionary, final List<CoreLabel> tokens,
+                                         final Set<String> skills) {
         final StringBuilder phraseBuilder = new StringBuilder();
 
         for (final CoreLabel token : tokens) {
@@ -93,15 +204,15 @@ public class NLPSkillExtractorService {
                 continue;
             }
 
-            if (isKnownSkill(word)) {
-                skills.add(capitalize(word));
+            if (dictionary.isKnownSkill(word)) {
+                skills.add(capitalize(dictionary, word));
             }
 
             final String ner = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
             final String pos = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
 
-            final boolean isTechEntity = "ORGANIZATION".equals(ner) && isTechnicalTerm(word);
-            final boolean isTechNoun = pos != null && (pos.startsWith("NNP") || "NN".equals(pos)) && isTechnicalTerm(word);
+            final boolean isTechEntity = "ORGANIZATION".equals(ner) && isTechnicalTerm(dictionary, word);
+            final boolean isTechNoun = pos != null && (pos.startsWith("NNP") || "NN".equals(pos)) && isTechnicalTerm(dictionary, word);
 
             if (isTechEntity || isTechNoun) {
                 if (phraseBuilder.length() > 0) {
@@ -109,43 +220,42 @@ public class NLPSkillExtractorService {
                 }
                 phraseBuilder.append(word);
             } else if (phraseBuilder.length() > 0) {
-                flushPhrase(phraseBuilder, skills);
+                flushPhrase(dictionary, phraseBuilder, skills);
             }
         }
 
         if (phraseBuilder.length() > 0) {
-            flushPhrase(phraseBuilder, skills);
+            flushPhrase(dictionary, phraseBuilder, skills);
         }
     }
 
-    private void flushPhrase(final StringBuilder phraseBuilder, final Set<String> skills) {
+    private void flushPhrase(final SkillsDictionary dictionary, final StringBuilder phraseBuilder,
+                             final Set<String> skills) {
         final String phrase = phraseBuilder.toString().trim();
-        if (isKnownSkill(phrase)) {
-            skills.add(capitalize(phrase));
+        if (dictionary.isKnownSkill(phrase)) {
+            skills.add(capitalize(dictionary, phrase));
         }
         phraseBuilder.setLength(0);
     }
 
-    private Set<String> extractByPatterns(final String cvContent) {
+    private Set<String> extractByPatterns(final SkillsDictionary dictionary, final String cvContent) {
         final Set<String> skills = new HashSet<>();
 
-        final Matcher techMatcher = Constants.TECH_PATTERN.matcher(cvContent);
-        while (techMatcher.find()) {
-            skills.add(capitalize(techMatcher.group()));
-        }
+        dictionary.getTechTermClassifier().findVocabulary(cvContent)
+                .forEach(term -> skills.add(capitalize(dictionary, term)));
 
         final Matcher versionMatcher = Constants.VERSION_PATTERN.matcher(cvContent);
         while (versionMatcher.find()) {
             final String technology = versionMatcher.group(1);
-            if (isTechnicalTerm(technology)) {
-                skills.add(capitalize(technology));
+            if (isTechnicalTerm(dictionary, technology)) {
+                skills.add(capitalize(dictionary, technology));
             }
         }
 
         return skills;
     }
 
-    private Set<String> extractByContext(final String cvContent) {
+    private Set<String> extractByContext(final SkillsDictionary dictionary, final String cvContent) {
         final Set<String> skills = new HashSet<>();
 
         for (final String line : cvContent.split("\\n")) {
@@ -159,80 +269,42 @@ public class NLPSkillExtractorService {
                 Arrays.stream(line.split("[,;•\\-*|]"))
                         .map(s -> s.trim().replaceAll("^[\\s•\\-*]+", ""))
                         .filter(s -> s.length() >= Constants.MIN_SKILL_LENGTH && s.length() <= Constants.MAX_SKILL_LENGTH)
-                        .filter(this::isValidSkill)
-                        .forEach(s -> skills.add(capitalize(s)));
+                        .filter(s -> isValidSkill(dictionary, s))
+                        .forEach(s -> skills.add(capitalize(dictionary, s)));
             } else if (isExperienceContextLine(lowerLine)) {
-                allKnownSkillsLower.stream()
-                        .filter(lowerLine::contains)
-                        .forEach(knownSkill -> skills.add(capitalize(knownSkill)));
+                dictionary.getMatcher().findAll(line).forEach(knownSkill -> skills.add(capitalize(dictionary, knownSkill)));
             }
         }
 
         return skills;
     }
 
-    private List<String> buildSkillList(final Set<String> rawSkills) {
+    private List<String> buildSkillList(final SkillsDictionary dictionary, final Set<String> rawSkills) {
         return rawSkills.stream()
                 .filter(StringUtils::hasText)
                 .map(String::trim)
-                .filter(this::isValidSkill)
+                .filter(skill -> isValidSkill(dictionary, skill))
                 .distinct()
                 .sorted()
                 .toList();
     }
 
-    private List<String> simpleExtract(final String cvContent) {
+    private List<String> simpleExtract(final SkillsDictionary dictionary, final String cvContent) {
         if (!StringUtils.hasText(cvContent)) {
             return List.of();
         }
 
-        final String lowerContent = cvContent.toLowerCase();
-        return allKnownSkillsLower.stream()
-                .filter(lowerContent::contains)
-                .map(this::capitalize)
+        return dictionary.getMatcher().findAll(cvContent).stream()
+                .map(skill -> capitalize(dictionary, skill))
                 .sorted()
                 .toList();
     }
 
-    private void initializeSkillDatabase() {
-        technicalTermsLower = SkillDatabaseLoader.getEntries().stream()
-                .filter(e -> Constants.TECHNICAL_CATEGORIES.contains(e.getCategory()))
-                .map(e -> e.getSkillName().toLowerCase())
-                .collect(Collectors.toUnmodifiableSet());
-
-        allKnownSkillsLower = SkillDatabaseLoader.getAllSkills().stream()
-                .filter(StringUtils::hasText)
-                .map(String::trim)
-                .map(String::toLowerCase)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    private void initializePipeline() {
-        try {
-            final Properties props = new Properties();
-            props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-            props.setProperty("ner.useSUTime", "false");
-            props.setProperty("tokenize.language", "en");
-            pipeline = new StanfordCoreNLP(props);
-            log.info("[NLPSkillExtractor] - INIT: NLP pipeline initialized successfully");
-        } catch (final RuntimeException e) {
-            log.error("[NLPSkillExtractor] - INIT: Failed to initialize NLP pipeline: {}", e.getMessage(), e);
-        }
-    }
-
-    private boolean isKnownSkill(final String skill) {
-        return StringUtils.hasText(skill) && allKnownSkillsLower.contains(skill.trim().toLowerCase());
-    }
-
-    private boolean isTechnicalTerm(final String term) {
-        if (!StringUtils.hasText(term)) {
-            return false;
-        }
-        final String normalized = term.trim().toLowerCase();
-        return technicalTermsLower.contains(normalized) || Constants.TECH_PATTERN.matcher(normalized).find();
+    private boolean isTechnicalTerm(final SkillsDictionary dictionary, final String term) {
+        return dictionary.getTechTermClassifier().isTechnicalTerm(term);
     }
 
-    private boolean isValidSkill(final String skill) {
+    private boolean isValidSkill(final SkillsDictionary dictionary, final String skill) {
         if (!StringUtils.hasText(skill)) {
             return false;
         }
@@ -240,7 +312,7 @@ public class NLPSkillExtractorService {
         final boolean isLengthValid = clean.length() >= Constants.MIN_SKILL_LENGTH && clean.length() <= Constants.MAX_SKILL_LENGTH;
         return isLengthValid
                 && Constants.VALID_SKILL_PATTERN.matcher(clean).matches()
-                && (isKnownSkill(clean) || isTechnicalTerm(clean));
+                && (dictionary.isKnownSkill(clean) || isTechnicalTerm(dictionary, clean));
     }
 
     private boolean isSkillSectionLine(final String lowerLine) {
@@ -251,12 +323,12 @@ public class NLPSkillExtractorService {
         return Constants.EXPERIENCE_MARKERS.stream().anyMatch(lowerLine::contains);
     }
 
-    private String capitalize(final String skill) {
+    private String capitalize(final SkillsDictionary dictionary, final String skill) {
         if (!StringUtils.hasText(skill)) {
             return skill;
         }
         final String trimmed = skill.trim();
-        final String properCase = SkillDatabaseLoader.getProperCapitalization(trimmed.toLowerCase());
+        final String properCase = dictionary.getProperCapitalization(trimmed);
         return properCase != null ? properCase : Character.toUpperCase(trimmed.charAt(0)) + trimmed.substring(1);
     }
 }
@@ -0,0 +1,328 @@
+package ie.com.rag.service;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.CoreMap;
+import ie.com.rag.config.NlpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs CoreNLP annotation off the request thread, on a bounded pool of NLP threads; the segments of a long
+ * document are annotated in parallel. Pipelines only run the annotators whose output skill extraction reads. A document that waits or runs longer than the timeout, or that
+ * finds the queue full, is given up on so the caller can fall back to dictionary extraction.
+ * <p>
+ * Loading the models takes many seconds and a lot of memory, so it happens on a background thread once the
+ * application is ready; until then, or if NER is disabled, every document is given up on straight away.
+ * <p>
+ * CoreNLP annotators are thread-safe, so by default all NLP threads share one pipeline. With
+ * {@code pipelinePerThread} each thread builds its own instead; CoreNLP still shares loaded models between
+ * pipelines with the same settings, so this only separates per-pipeline state.
+ * <p>
+ * Background jobs annotate one segment at a time and share all but one NLP thread, so however many documents a job
+ * works on, uploads always have a thread of their own and never queue behind more than a few job segments.
+ */
+@Slf4j
+@Service
+public class NlpAnnotationService {
+
+    private final NlpProperties nlpProperties;
+    private final ThreadPoolExecutor nlpExecutor;
+    private final Semaphore backgroundSlots;
+    private final ThreadLocal<StanfordCoreNLP> threadPipeline = new ThreadLocal<>();
+    private final Timer queueWaitTimer;
+    private final Timer annotateTimer;
+    private final Counter timeouts;
+    private final Counter rejections;
+    private final Counter failures;
+    private final Counter unavailable;
+    private volatile StanfordCoreNLP sharedPipeline;
+    private volatile WarmUpState state;
+
+    public NlpAnnotationService(final NlpProperties nlpProperties, final MeterRegistry meterRegistry) {
+        this.nlpProperties = nlpProperties;
+        final int concurrency = Math.max(1, nlpProperties.concurrency());
+        this.nlpExecutor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, nlpProperties.queueCapacity())));
+        this.backgroundSlots = new Semaphore(Math.max(1, concurrency - 1));
+        Gauge.builder("rag.nlp.queue", nlpExecutor, executor -> executor.getQueue().size())
+                .description("Documents waiting for an NLP thread")
+                .register(meterRegistry);
+        Gauge.builder("rag.nlp.active", nlpExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Documents being annotated")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("rag.nlp.queue.wait")
+                .description("Time documents waited for an NLP thread")
+                .register(meterRegistry);
+        this.annotateTimer = Timer.builder("rag.nlp.annotate")
+                .description("Time spent annotating one document")
+                .register(meterRegistry);
+        this.timeouts = fallbackCounter(meterRegistry, "timeout");
+        this.rejections = fallbackCounter(meterRegistry, "queue_full");
+        this.failures = fallbackCounter(meterRegistry, "error");
+        this.unavailable = fallbackCounter(meterRegistry, "unavailable");
+        this.state = nlpProperties.nerEnabled() ? WarmUpState.LOADING : WarmUpState.DISABLED;
+    }
+
+    /**
+     * Where loading the NLP models stands.
+     */
+    public enum WarmUpState {
+        DISABLED,
+        LOADING,
+        READY,
+        FAILED
+    }
+
+    /**
+     * Loads the pipeline on a background thread once the application is ready to serve requests, and annotates
+     * a sample sentence so the models are fully initialized before the first upload.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (state != WarmUpState.LOADING) {
+            log.info("[RagWiser/NlpAnnotationService] - warmUp: NER disabled, skills are extracted without CoreNLP");
+            return;
+        }
+
+        Thread.ofPlatform().name("nlp-warm-up").daemon().start(() -> {
+            final long startTime = System.currentTimeMillis();
+            try {
+                final StanfordCoreNLP pipeline = buildPipeline();
+                pipeline.annotate(new Annotation("Jane built microservices with Java and Spring at Google."));
+                sharedPipeline = pipeline;
+                state = WarmUpState.READY;
+                log.info("[RagWiser/NlpAnnotationService] - warmUp: NLP pipeline with annotators {} ready in {} ms",
+                        nlpProperties.annotators(), System.currentTimeMillis() - startTime);
+            } catch (final RuntimeException e) {
+                state = WarmUpState.FAILED;
+                log.error("[RagWiser/NlpAnnotationService] - warmUp: Failed to initialize NLP pipeline: {}",
+                        e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * @return where loading the NLP models stands
+     */
+    public WarmUpState getState() {
+        return state;
+    }
+
+    /**
+     * @return how many segments are waiting for an NLP thread
+     */
+    public int getQueuedSegments() {
+        return nlpExecutor.getQueue().size();
+    }
+
+    /**
+     * Annotates a document on an NLP thread.
+     *
+     * @param text the text to annotate
+     * @return the annotated sentences, or empty if the pipeline is unavailable, busy, too slow or failed
+     */
+    public Optional<List<CoreMap>> annotate(final String text) {
+        return annotate(List.of(text));
+    }
+
+    /**
+     * Annotates the segments of one document in parallel, each on its own NLP thread, within one timeout.
+     *
+     * @param segments the parts of the document to annotate
+     * @return the annotated sentences of all segments in segment order, or empty if the pipeline is unavailable,
+     * busy, too slow or failed for any of them
+     */
+    public Optional<List<CoreMap>> annotate(final List<String> segments) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+
+        final long submittedAt = System.nanoTime();
+        final long deadline = submittedAt + nlpProperties.timeout().toNanos();
+        final List<Future<List<CoreMap>>> results = new ArrayList<>(segments.size());
+        return guarded(() -> {
+            try {
+                for (final String segment : segments) {
+                    results.add(nlpExecutor.submit(() -> annotateSegment(segment, submittedAt)));
+                }
+
+                final List<CoreMap> sentences = new ArrayList<>();
+                for (final Future<List<CoreMap>> result : results) {
+                    addSentences(sentences, result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                }
+                return sentences;
+            } finally {
+                // Segments still queued after a failure are of no use any more. CoreNLP does not check for
+                // interrupts, so a running one finishes anyway; the pool bound keeps it contained.
+                results.forEach(result -> result.cancel(true));
+            }
+        });
+    }
+
+    /**
+     * Annotates the segments of one document for a background job, one segment at a time, each within the
+     * timeout. A segment waits for one of the background slots before it is queued, so the job never holds more
+     * than all but one NLP thread.
+     *
+     * @param segments the parts of the document to annotate
+     * @return the annotated sentences of all segments in segment order, or empty if the pipeline is unavailable,
+     * busy, too slow or failed for any of them
+     */
+    public Optional<List<CoreMap>> annotateInBackground(final List<String> segments) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+
+        final long timeoutNanos = nlpProperties.timeout().toNanos();
+        return guarded(() -> {
+            final List<CoreMap> sentences = new ArrayList<>();
+            for (final String segment : segments) {
+                final long submittedAt = System.nanoTime();
+                if (!backgroundSlots.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException("No background NLP slot became free");
+                }
+                // Whoever claims the segment first releases its slot: the NLP thread once it has annotated it, or
+                // this thread when it gives up on a segment that has not started.
+                final AtomicBoolean claimed = new AtomicBoolean();
+                final Future<List<CoreMap>> result;
+                try {
+                    result = nlpExecutor.submit(() -> {
+                        if (!claimed.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        try {
+                            return annotateSegment(segment, submittedAt);
+                        } finally {
+                            backgroundSlots.release();
+                        }
+                    });
+                } catch (final RejectedExecutionException e) {
+                    backgroundSlots.release();
+                    throw e;
+                }
+                try {
+                    addSentences(sentences, result.get(Math.max(0, submittedAt + timeoutNanos - System.nanoTime()),
+                            TimeUnit.NANOSECONDS));
+                } finally {
+                    result.cancel(true);
+                    if (claimed.compareAndSet(false, true)) {
+                        backgroundSlots.release();
+                    }
+                }
+            }
+            return sentences;
+        });
+    }
+
+    private boolean isReady() {
+        if (state != WarmUpState.READY) {
+            if (state != WarmUpState.DISABLED) {
+                unavailable.increment();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private List<CoreMap> annotateSegment(final String segment, final long submittedAt) {
+        queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        final Annotation document = new Annotation(segment);
+        annotateTimer.record(() -> pipeline().annotate(document));
+        return document.get(CoreAnnotations.SentencesAnnotation.class);
+    }
+
+    private void addSentences(final List<CoreMap> sentences, final List<CoreMap> segmentSentences) {
+        if (segmentSentences != null) {
+            sentences.addAll(segmentSentences);
+        }
+    }
+
+    /**
+     * Runs an annotation and turns every way it can fail into an empty result, counted by reason.
+     */
+    private Optional<List<CoreMap>> guarded(final Annotating annotation) {
+        try {
+            return Optional.of(annotation.run());
+        } catch (final RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("[RagWiser/NlpAnnotationService] - annotate: NLP queue full, skipping annotation");
+            return Optional.empty();
+        } catch (final TimeoutException e) {
+            timeouts.increment();
+            log.warn("[RagWiser/NlpAnnotationService] - annotate: annotation timed out after {}", nlpProperties.timeout());
+            return Optional.empty();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (final ExecutionException e) {
+            failures.increment();
+            log.warn("[RagWiser/NlpAnnotationService] - annotate: annotation failed: {}", e.getCause().getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private StanfordCoreNLP pipeline() {
+        if (!nlpProperties.pipelinePerThread()) {
+            return sharedPipeline;
+        }
+        StanfordCoreNLP pipeline = threadPipeline.get();
+        if (pipeline == null) {
+            pipeline = buildPipeline();
+            threadPipeline.set(pipeline);
+        }
+        return pipeline;
+    }
+
+    private StanfordCoreNLP buildPipeline() {
+        final Properties props = new Properties();
+        props.setProperty("annotators", nlpProperties.annotators());
+        props.setProperty("tokenize.language", "en");
+        // Skill extraction reads tokens, part-of-speech tags and coarse NER tags only, so lemma, SUTime, numeric
+        // and fine-grained NER are left out; lemma is not required without them.
+        props.setProperty("ner.useSUTime", "false");
+        props.setProperty("ner.applyNumericClassifiers", "false");
+        props.setProperty("ner.applyFineGrained", "false");
+        props.setProperty("ner.buildEntityMentions", "false");
+        return new StanfordCoreNLP(props, false);
+    }
+
+    private Counter fallbackCounter(final MeterRegistry meterRegistry, final String reason) {
+        return Counter.builder("rag.nlp.fallback")
+                .description("Documents whose skills were extracted without NER")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        nlpExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Annotating {
+        List<CoreMap> run() throws InterruptedException, ExecutionException, TimeoutException;
+    }
+}
@@ -0,0 +1,128 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.PdfExtractionProperties;
+import ie.com.rag.utils.SpooledUpload;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PDF text extraction with PDFBox. Long PDFs are split into page ranges extracted in parallel on a bounded pool
+ * shared by all uploads; each range opens its own document handle, since a {@link PDDocument} must not be used
+ * from several threads, and the ranges are joined back in page order.
+ */
+@Slf4j
+@Service
+public class PdfExtractionService {
+
+    private final PdfExtractionProperties pdfProperties;
+    private final ExecutorService extractionExecutor;
+
+    public PdfExtractionService(final PdfExtractionProperties pdfProperties) {
+        this.pdfProperties = pdfProperties;
+        this.extractionExecutor = Executors.newFixedThreadPool(Math.max(1, pdfProperties.maxConcurrency()));
+    }
+
+    /**
+     * Extracts the text of a spooled PDF, page by page in reading order.
+     *
+     * @param upload   the spooled PDF
+     * @param filename the name of the file
+     * @return the text of the first {@code maxPages} pages, each followed by a line break
+     * @throws InterruptedIOException if extraction does not finish within the configured time
+     * @throws IOException            if the PDF cannot be read
+     */
+    public String extractText(final SpooledUpload upload, final String filename) throws IOException {
+        final File file = upload.path().toFile();
+        final long deadline = System.nanoTime() + pdfProperties.extractionTimeout().toNanos();
+
+        final int pageCount;
+        final int pages;
+        try (PDDocument pdf = load(file)) {
+            pageCount = pdf.getNumberOfPages();
+            pages = Math.min(pageCount, Math.max(1, pdfProperties.maxPages()));
+            if (pages < pdfProperties.parallelMinPages()) {
+                final String text = extractPages(pdf, 1, pages);
+                log.info("PDF file processed successfully: {} pages extracted from {}", pages, filename);
+                return text;
+            }
+        }
+
+        if (pages < pageCount) {
+            log.warn("[RagWiser/PdfExtractionService] - extractText: {} has {} pages, only the first {} are extracted",
+                    filename, pageCount, pages);
+        }
+
+        final int pagesPerTask = Math.max(1, pdfProperties.pagesPerTask());
+        final List<Future<String>> ranges = new ArrayList<>((pages + pagesPerTask - 1) / pagesPerTask);
+        for (int startPage = 1; startPage <= pages; startPage += pagesPerTask) {
+            final int first = startPage;
+            final int last = Math.min(startPage + pagesPerTask - 1, pages);
+            ranges.add(extractionExecutor.submit(() -> {
+                try (PDDocument pdf = load(file)) {
+                    return extractPages(pdf, first, last);
+                }
+            }));
+        }
+
+        final StringBuilder text = new StringBuilder();
+        try {
+            for (final Future<String> range : ranges) {
+                text.append(range.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (final TimeoutException e) {
+            throw new InterruptedIOException("Extracting " + filename + " timed out after "
+                    + pdfProperties.extractionTimeout());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting " + filename);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Unexpected error while extracting text from PDF: " + filename, e.getCause());
+        } finally {
+            // Ranges still queued or running after a failure are of no use any more.
+            ranges.forEach(range -> range.cancel(true));
+        }
+
+        log.info("PDF file processed successfully: {} pages extracted from {} in {} ranges", pages, filename,
+                ranges.size());
+        return text.toString();
+    }
+
+    private PDDocument load(final File file) throws IOException {
+        // Loading from the file with a file-backed cache keeps PDFBox from buffering the document on the heap.
+        return Loader.loadPDF(file, IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    private String extractPages(final PDDocument pdf, final int firstPage, final int lastPage) throws IOException {
+        final PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(true);
+        stripper.setPageEnd("\n");
+        stripper.setStartPage(firstPage);
+        stripper.setEndPage(lastPage);
+        return stripper.getText(pdf);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.RetrievalProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QueryExpansionService {
+
+    private static final Pattern CLAUSE_SEPARATOR = Pattern.compile(
+            "\\s*(?:[,;]|\\band\\b|\\bas well as\\b|\\balso\\b|\\bplus\\b)\\s*",
+            Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[?.!]+$");
+    private static final Pattern LIST_MARKER = Pattern.compile("^\\s*(?:\\d+[.)]|[-*•])\\s*");
+    private static final int MIN_SUB_QUERY_LENGTH = 3;
+    private static final int MIN_WORDS_FOR_LLM_EXPANSION = 8;
+
+    private static final String EXPANSION_PROMPT = """
+            Split the following recruiter question into at most %d short, independent search queries.
+            Each query must target one requirement of the question. Answer with one query per line and nothing else.
+
+            QUESTION:
+            %s
+            """;
+
+    private final ChatModel chatModel;
+    private final RetrievalProperties retrievalProperties;
+
+    /**
+     * Expands a question into the list of queries that should be searched. The original question is always
+     * the first entry so the fused ranking never loses what a single search would have found.
+     *
+     * @param question the user's query
+     * @return the original question followed by its sub-queries, capped at the configured maximum
+     */
+    public List<String> expand(final String question) {
+        if (!StringUtils.hasText(question)) {
+            throw new IllegalArgumentException("Question cannot be null or empty");
+        }
+
+        final String original = question.trim();
+        final Set<String> queries = new LinkedHashSet<>();
+        queries.add(original);
+        queries.addAll(splitByRules(original));
+
+        if (queries.size() == 1 && shouldUseLlm(original)) {
+            queries.addAll(splitWithLlm(original));
+        }
+
+        final List<String> expanded = queries.stream()
+                .limit(Math.max(1, retrievalProperties.maxSubQueries()))
+                .toList();
+        log.debug("[RagWiser/QueryExpansionService] - expand: {} queries for question", expanded.size());
+        return expanded;
+    }
+
+    /**
+     * Splits a question on conjunctions and list separators, the cheap local path used before any LLM call.
+     *
+     * @param question the trimmed question
+     * @return the clauses found, or an empty list when the question has a single clause
+     */
+    List<String> splitByRules(final String question) {
+        final String withoutPunctuation = TRAILING_PUNCTUATION.matcher(question).replaceAll("");
+        final List<String> clauses = Arrays.stream(CLAUSE_SEPARATOR.split(withoutPunctuation))
+                .map(String::trim)
+                .filter(clause -> clause.length() >= MIN_SUB_QUERY_LENGTH)
+                .toList();
+
+        return clauses.size() > 1 ? clauses : List.of();
+    }
+
+    private boolean shouldUseLlm(final String question) {
+        return retrievalProperties.llmExpansionEnabled()
+                && question.split("\\s+").length >= MIN_WORDS_FOR_LLM_EXPANSION;
+    }
+
+    private List<String> splitWithLlm(final String question) {
+        try {
+            final String response = chatModel.call(EXPANSION_PROMPT.formatted(retrievalProperties.maxSubQueries(), question));
+            if (!StringUtils.hasText(response)) {
+                return List.of();
+            }
+
+            return response.lines()
+                    .map(line -> LIST_MARKER.matcher(line).replaceFirst("").trim())
+                    .filter(line -> line.length() >= MIN_SUB_QUERY_LENGTH)
+                    .toList();
+        } catch (final RuntimeException e) {
+            log.warn("[RagWiser/QueryExpansionService] - splitWithLlm: expansion failed, searching the original question only: {}",
+                    e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -1,33 +1,25 @@
 package ie.com.rag.service;
 
+import ie.com.rag.exception.IndexingFailedException;
+import ie.com.rag.service.DocumentExtractionService.ExtractedDocument;
+import ie.com.rag.service.VectorStoreWriter.BatchingSink;
+import ie.com.rag.service.VectorStoreWriter.WriteResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.TikaException;
-import org.apache.tika.metadata.Metadata;
-import org.apache.tika.parser.AutoDetectParser;
-import org.apache.tika.parser.ParseContext;
-import org.apache.tika.parser.Parser;
-import org.apache.tika.sax.BodyContentHandler;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.tool.annotation.Tool;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
-import org.xml.sax.SAXException;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static ie.com.rag.Constants.PROMPT;
 
@@ -36,13 +28,16 @@ import static ie.com.rag.Constants.PROMPT;
 @RequiredArgsConstructor
 public class RagDocumentService {
 
+    public static final String CANDIDATE_ID_KEY = "candidateId";
+
     private final ChatModel chatModel;
-    private final VectorStore vectorStore;
+    private final VectorStoreWriter vectorStoreWriter;
+    private final RetrievalService retrievalService;
+    private final DocumentExtractionService documentExtractionService;
+    private final DocumentChunker documentChunker;
 
     private static final int MAX_DOCUMENT_TOKENS = 6000;
     private static final int APPROX_CHARS_PER_TOKEN = 4;
-    private static final int DEFAULT_VECTOR_CHUNK_SIZE = 2000;
-    private static final int TIKA_MAX_STRING_LENGTH = 10 * 1024 * 1024;
 
     /**
      * Uses Retrieval-Augmented Generation (RAG) to answer a user's question based on processed documents.
@@ -77,10 +72,8 @@ public class RagDocumentService {
      * @return a concatenated string containing formatted context from matched documents
      */
     private String findSimilarData(final String question) {
-        final List<Document> documents = vectorStore.similaritySearch(SearchRequest
-                .query(question)
-                .withTopK(5));
-        if (documents == null || documents.isEmpty()) {
+        final List<Document> documents = retrievalService.retrieve(question).documents();
+        if (documents.isEmpty()) {
             return "";
         }
 
@@ -114,213 +107,87 @@ public class RagDocumentService {
     }
 
     /**
-     * Processes a document's content, chunks it appropriately, and stores it in the vector store.
+     * Processes a document's content, chunks it appropriately, and stores it in the vector store in batches.
      *
-     * @param content  the raw textual data to process
-     * @param filename the name associated with the text source
+     * @param content     the raw textual data to process
+     * @param filename    the name associated with the text source
+     * @param candidateId the candidate the document belongs to, or {@code null} for other documents
+     * @return how many chunks were written
+     * @throws IndexingFailedException if some chunks could not be stored; the others stay in the vector store
      */
-    public void processDocument(final String content, final String filename) {
-        if (!StringUtils.hasText(filename)) {
-            throw new IllegalArgumentException("Filename cannot be null or empty");
-        }
-
-        final String sanitizedContent = sanitizeTextContent(content);
-        if (!StringUtils.hasText(sanitizedContent)) {
-            log.warn("Skipping vector storage for empty sanitized content, filename: {}", filename);
-            return;
-        }
-
-        final List<String> chunks = chunkContent(sanitizedContent);
-        if (chunks.isEmpty()) {
-            return;
-        }
-
-        for (int i = 0; i < chunks.size(); i++) {
-            final String sanitizedChunk = sanitizeTextContent(chunks.get(i));
-            if (!StringUtils.hasText(sanitizedChunk)) {
-                continue;
-            }
-
-            final Map<String, Object> metadata = new HashMap<>();
-            metadata.put("filename", filename);
-            metadata.put("type", "cv");
-            metadata.put("chunk", i + 1);
-            metadata.put("totalChunks", chunks.size());
-
-            final Document document = new Document(sanitizedChunk, metadata);
-            try {
-                vectorStore.add(List.of(document));
-            } catch (final RuntimeException e) {
-                throw new IllegalStateException("Failed to persist document chunk in vector store", e);
-            }
-        }
+    public WriteResult processDocument(final String content, final String filename, final String candidateId) {
+        return processDocument(new StringReader(content == null ? "" : content), filename, candidateId);
     }
 
     /**
-     * Cleans up text content by normalizing whitespace, removing control characters, and standardizing line breaks.
+     * Streams a document through the chunker into the vector store; every full embedding batch is written while
+     * the rest of the document is still being read.
      *
-     * @param content the text to sanitize
-     * @return the sanitized string ready for chunking
+     * @param content     the raw textual data to process
+     * @param filename    the name associated with the text source
+     * @param candidateId the candidate the document belongs to, or {@code null} for other documents
+     * @return how many chunks were written
+     * @throws IndexingFailedException if some chunks could not be stored; the others stay in the vector store
      */
-    private String sanitizeTextContent(final String content) {
-        if (content == null) {
-            return "";
-        }
-
-        String sanitized = content.replace("\u0000", "");
-        sanitized = sanitized.replaceAll("[\u0001-\u0008\u000B\u000C\u000E-\u001F\u007F]", "");
-        sanitized = sanitized.replaceAll("\r\n", "\n").replaceAll("\r", "\n");
-        sanitized = sanitized.replaceAll("[ \t]+", " ");
-        sanitized = sanitized.replaceAll("\n[ \t]+", "\n");
-        sanitized = sanitized.replaceAll("[ \t]+\n", "\n");
-        sanitized = sanitized.replaceAll("\n{3,}", "\n\n");
-
-        return sanitized.trim();
+    public WriteResult processDocument(final Reader content, final String filename, final String candidateId) {
+        final BatchingSink sink = vectorStoreWriter.openSink();
+        chunkDocument(content, filename, candidateId, sink);
+        final WriteResult result = sink.finish();
+        if (result.failed() > 0) {
+            throw new IndexingFailedException(result.failed() + " of " + (result.written() + result.failed())
+                    + " chunks of " + filename + " could not be stored");
+        }
+        return result;
     }
 
     /**
-     * Splits a long string of text into smaller context chunks suitable for vector storage and embedding.
+     * Chunks a document's content into vector store documents without storing them, so callers can batch the
+     * chunks of several files into the same embedding calls. Chunks of a CV carry the id of their candidate, which
+     * identifies them regardless of the file name.
      *
-     * @param content the sanitized text of the document
-     * @return a list of textual chunks
+     * @param content     the raw textual data to process
+     * @param filename    the name associated with the text source
+     * @param candidateId the candidate the document belongs to, or {@code null} for other documents
+     * @param sink        receives each chunk as soon as it is cut
+     * @return the number of chunks produced, zero when the content has no text
      */
-    private List<String> chunkContent(final String content) {
-        if (!StringUtils.hasText(content)) {
-            return Collections.emptyList();
-        }
-
-        final List<String> chunks = new ArrayList<>();
-
-        if (content.length() <= DEFAULT_VECTOR_CHUNK_SIZE) {
-            chunks.add(content);
-            return chunks;
+    public int chunkDocument(final Reader content, final String filename, final String candidateId,
+                             final Consumer<Document> sink) {
+        if (!StringUtils.hasText(filename)) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
         }
 
-        final String[] paragraphs = content.split("\n\n");
-        StringBuilder currentChunk = new StringBuilder();
-
-        for (final String paragraph : paragraphs) {
-            if (!StringUtils.hasText(paragraph)) {
-                continue;
+        final int[] chunkNumber = {0};
+        final int chunks = documentChunker.chunk(content, chunk -> {
+            final Map<String, Object> metadata = new HashMap<>();
+            metadata.put("filename", filename);
+            metadata.put("type", "cv");
+            metadata.put("chunk", ++chunkNumber[0]);
+            if (candidateId != null) {
+                metadata.put(CANDIDATE_ID_KEY, candidateId);
             }
 
-            if (currentChunk.length() + paragraph.length() + 2 > DEFAULT_VECTOR_CHUNK_SIZE) {
-                if (!currentChunk.isEmpty()) {
-                    chunks.add(currentChunk.toString().trim());
-                    currentChunk = new StringBuilder();
-                }
+            sink.accept(new Document(chunk, metadata));
+        });
 
-                if (paragraph.length() > DEFAULT_VECTOR_CHUNK_SIZE) {
-                    for (int i = 0; i < paragraph.length(); i += DEFAULT_VECTOR_CHUNK_SIZE) {
-                        chunks.add(paragraph.substring(i, Math.min(i + DEFAULT_VECTOR_CHUNK_SIZE, paragraph.length())));
-                    }
-                } else {
-                    currentChunk.append(paragraph).append("\n\n");
-                }
-            } else {
-                currentChunk.append(paragraph).append("\n\n");
-            }
-        }
-
-        if (!currentChunk.isEmpty()) {
-            chunks.add(currentChunk.toString().trim());
+        if (chunks == 0) {
+            log.warn("Skipping vector storage for empty sanitized content, filename: {}", filename);
         }
-
         return chunks;
     }
 
     /**
-     * Receives a multipart file, extracts its text content using Apache Tika, and stores it into the vector database.
+     * Receives a multipart file, extracts its text content once and stores it into the vector database.
      *
      * @param file the uploaded file to process
-     * @throws IOException if the file processing encounters an I/O error or extraction fails
      */
     public void processAndStoreFile(final MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("File cannot be null or empty");
-        }
-
-        final String filename = StringUtils.hasText(file.getOriginalFilename())
-                ? file.getOriginalFilename()
-                : "unknown-file";
+        final ExtractedDocument document = documentExtractionService.extract(file);
 
-        try {
-            final String extractedText = extractTextWithTika(file);
-
-            if (!StringUtils.hasText(extractedText)) {
-                throw new IllegalStateException("No text could be extracted from the file: " + filename);
-            }
-
-            processDocument(extractedText, filename);
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to process file: " + filename, e);
+        if (!StringUtils.hasText(document.text())) {
+            throw new IllegalStateException("No text could be extracted from the file: " + document.filename());
         }
-    }
-
-    /**
-     * Extracts text content from a multipart file leveraging Apache Tika's basic payload parser.
-     *
-     * @param file the file to parse
-     * @return the textual content of the file
-     * @throws IOException if reading the file fails or the text extraction encounters severe errors
-     */
-    private String extractTextWithTika(final MultipartFile file) throws IOException {
-        try (final InputStream inputStream = file.getInputStream()) {
-            final Tika tika = new Tika();
-            tika.setMaxStringLength(TIKA_MAX_STRING_LENGTH);
-
-            final String extractedText = tika.parseToString(inputStream);
-            if (!StringUtils.hasText(extractedText)) {
-                // Explicit fallback path: advanced parser can recover content for some edge files.
-                return extractTextWithAdvancedTika(file);
-            }
 
-            return extractedText;
-
-        } catch (final TikaException e) {
-            return extractTextWithAdvancedTika(file);
-        } catch (final RuntimeException e) {
-            throw new IOException("Unexpected runtime error while extracting text from file: "
-                    + file.getOriginalFilename(), e);
-        }
-    }
-
-    /**
-     * Fallback mechanism using an advanced AutoDetectParser from Apache Tika to parse complex documents.
-     *
-     * @param file the file that failed initial basic parsing
-     * @return the textual content derived from the advanced processing
-     * @throws IOException if parsing severely fails or a read limit is exceeded
-     */
-    private String extractTextWithAdvancedTika(final MultipartFile file) throws IOException {
-        try (final InputStream inputStream = file.getInputStream()) {
-            final Parser parser = new AutoDetectParser();
-
-            final Metadata metadata = new Metadata();
-            metadata.set("resourceName", file.getOriginalFilename());
-            if (file.getContentType() != null) {
-                metadata.set("Content-Type", file.getContentType());
-            }
-
-            final BodyContentHandler handler = new BodyContentHandler(TIKA_MAX_STRING_LENGTH);
-            final ParseContext context = new ParseContext();
-            context.set(Parser.class, parser);
-
-            parser.parse(inputStream, handler, metadata, context);
-
-            final String extractedText = handler.toString();
-            if (!StringUtils.hasText(extractedText)) {
-                return "";
-            }
-
-            final byte[] utf8Bytes = extractedText.getBytes(StandardCharsets.UTF_8);
-            return new String(utf8Bytes, StandardCharsets.UTF_8);
-
-        } catch (final SAXException | TikaException e) {
-            throw new IOException("Failed to extract text using advanced Tika parser: " + e.getMessage(), e);
-        } catch (final RuntimeException e) {
-            throw new IOException("Unexpected runtime error in advanced Tika parser while extracting text from file: "
-                    + file.getOriginalFilename(), e);
-        }
+        processDocument(document.text(), document.filename(), null);
     }
 }
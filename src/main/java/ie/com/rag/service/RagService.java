@@ -6,8 +6,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,7 +21,7 @@ public class RagService {
     private static final int MAX_DOCUMENT_CHARS = MAX_CONTEXT_TOKENS * CHARS_PER_TOKEN;
 
     private final ChatModel chatModel;
-    private final VectorStore vectorStore;
+    private final RetrievalService retrievalService;
     private final DashboardService dashboardService;
 
     public String ask(final String question) {
@@ -45,8 +43,7 @@ public class RagService {
     }
 
     private String findSimilarData(final String question) {
-        final List<Document> documents = vectorStore.similaritySearch(
-                SearchRequest.query(question).withTopK(5));
+        final List<Document> documents = retrievalService.retrieve(question).documents();
 
         final StringBuilder result = new StringBuilder();
         int currentLength = 0;
@@ -1,94 +1,205 @@
 package ie.com.rag.service;
 
 import ie.com.rag.dto.CandidateDTO;
-import ie.com.rag.utils.TextUtils;
+import ie.com.rag.exception.CandidateSaveException;
+import ie.com.rag.exception.IndexingFailedException;
+import ie.com.rag.exception.IndexingInProgressException;
+import ie.com.rag.service.DocumentExtractionService.ExtractedDocument;
+import ie.com.rag.utils.CvSectionSegmenter;
+import ie.com.rag.utils.CvSectionSegmenter.CvSections;
+import ie.com.rag.utils.HashUtils;
+import ie.com.rag.utils.SkillMatcher;
+import ie.com.rag.utils.SpooledUpload;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.document.Document;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RagUploaderService {
 
+    private static final List<String> COMMON_SKILLS = List.of(
+            "Java", "Python", "JavaScript", "React", "Angular", "Spring", "Node.js",
+            "SQL", "PostgreSQL", "MySQL", "MongoDB", "Docker", "Kubernetes",
+            "AWS", "Azure", "Git", "Jenkins", "CI/CD", "Agile", "Scrum",
+            "HTML", "CSS", "REST API", "Microservices", "Leadership", "Communication"
+    );
+    private static final SkillMatcher COMMON_SKILL_MATCHER = SkillMatcher.compile(COMMON_SKILLS);
+
     private final CandidateService candidateService;
     private final DashboardService dashboardService;
     private final RagDocumentService ragDocumentService;
+    private final DocumentExtractionService documentExtractionService;
     private final NLPSkillExtractorService nlpSkillExtractorService;
     private final TransactionTemplate transactionTemplate;
+    private final IngestionAdmissionService admissionService;
+    private final VectorStoreWriter vectorStoreWriter;
 
     /**
-     * Processes an uploaded Curriculum Vitae (CV) file and creates a new candidate record.
+     * Processes an uploaded Curriculum Vitae (CV) file and creates a new candidate record, or returns the existing
+     * candidate when the same CV was uploaded before.
      *
      * @param file  the uploaded CV multipart file
      * @param name  the name of the candidate
      * @param email the email address of the candidate
      * @param phone the contact number of the candidate
-     * @return the saved candidate data
+     * @return the saved or reused candidate together with how it was matched
+     * @throws ie.com.rag.exception.IngestionOverloadedException if ingestion is at capacity
+     * @throws IndexingFailedException if the CV could not be fully indexed; the candidate is not kept
      */
-    public CandidateDTO processCV(final MultipartFile file, final String name, final String email, final String phone) {
+    public RegisteredCv processCV(final MultipartFile file, final String name, final String email, final String phone) {
         validateInput(file, name, email);
         log.info("Processing CV upload for candidate: {} ({})", name, email);
 
         final String originalFilename = resolveOriginalFilename(file);
         final String contentType = resolveContentType(file);
 
-        final String cvContent = extractTextFromFile(file);
+        try (IngestionAdmissionService.Permit permit = admissionService.admit(file.getSize(), contentType);
+             SpooledUpload upload = SpooledUpload.spool(file)) {
+            final RegisteredCv registered = registerCv(upload, originalFilename, contentType, name, email, phone,
+                    cv -> dashboardService.saveUploadedDocumentInfo(originalFilename, upload.size(), contentType,
+                            cv.fileHash()));
+
+            if (registered.deduplicated()) {
+                log.info("CV matches existing candidate {} by {} hash, skipping processing",
+                        registered.candidate().id(), registered.match());
+                return registered;
+            }
+
+            final String candidateId = registered.candidate().id().toString();
+            try {
+                ragDocumentService.processDocument(registered.document().text(), originalFilename, candidateId);
+                candidateService.markIndexed(candidateId);
+                log.info("CV content processed through RAG service successfully");
+            } catch (final RuntimeException e) {
+                // A candidate without its chunks would be unsearchable, and deduplication would turn away the
+                // retry, so the upload is undone as a whole.
+                log.warn("Failed to process CV through RAG service for candidate {}, rolling back: {}", candidateId,
+                        e.getMessage());
+                vectorStoreWriter.deleteCandidateChunks(candidateId);
+                candidateService.deleteCandidate(candidateId);
+                throw new IndexingFailedException("The CV could not be indexed and was not saved, retry the upload: "
+                        + e.getMessage(), e);
+            }
+
+            log.info("CV processing completed successfully for candidate ID: {}", registered.candidate().id());
+            return registered;
+        } catch (final IOException e) {
+            log.error("Error extracting text from file {}: {}", originalFilename, e.getMessage(), e);
+            throw new IllegalStateException("Failed to extract text from uploaded file: " + originalFilename, e);
+        }
+    }
+
+    /**
+     * Registers the candidate of a spooled CV. An upload whose bytes, or whose normalized text, match an existing
+     * candidate reuses that candidate and skips extraction, NLP and embedding. A new candidate is saved unindexed;
+     * the caller marks it indexed with {@link CandidateService#markIndexed} once all its chunks are stored.
+     *
+     * @param upload            the spooled CV
+     * @param filename          the original filename
+     * @param contentType       the MIME type of the upload
+     * @param name              the name of the candidate
+     * @param email             the email address of the candidate
+     * @param phone             the contact number of the candidate
+     * @param withinTransaction work that must commit or roll back together with the candidate
+     * @return the saved or reused candidate, with the extracted text unless the file itself matched
+     * @throws IOException                 if the CV cannot be read or parsed
+     * @throws IndexingInProgressException if the CV matches a candidate that an earlier upload is still indexing
+     */
+    public RegisteredCv registerCv(final SpooledUpload upload, final String filename, final String contentType,
+                                   final String name, final String email, final String phone,
+                                   final Consumer<RegisteredCv> withinTransaction) throws IOException {
+        final String fileHash = HashUtils.sha256(upload.map());
+        final Optional<CandidateDTO> sameFile = candidateService.findByFileHash(fileHash);
+        if (sameFile.isPresent()) {
+            return reuse(new RegisteredCv(sameFile.get(), null, DeduplicationMatch.FILE, fileHash), withinTransaction);
+        }
+
+        final ExtractedDocument document = documentExtractionService.extract(upload, filename, contentType);
+        final String textHash = HashUtils.sha256OfNormalizedText(document.text());
+        final Optional<CandidateDTO> sameText = candidateService.findByTextHash(textHash);
+        if (sameText.isPresent()) {
+            return reuse(new RegisteredCv(sameText.get(), document, DeduplicationMatch.TEXT, fileHash), withinTransaction);
+        }
+
+        try {
+            return registerCandidate(document, name, email, phone, fileHash, textHash, withinTransaction);
+        } catch (final CandidateSaveException | DataIntegrityViolationException e) {
+            // A concurrent upload of the same CV may have claimed the unique text hash first.
+            final CandidateDTO winner = candidateService.findByTextHash(textHash).orElseThrow(() -> e);
+            return reuse(new RegisteredCv(winner, document, DeduplicationMatch.TEXT, fileHash), withinTransaction);
+        }
+    }
+
+    private RegisteredCv reuse(final RegisteredCv registered, final Consumer<RegisteredCv> withinTransaction) {
+        transactionTemplate.executeWithoutResult(status -> withinTransaction.accept(registered));
+        return registered;
+    }
+
+    /**
+     * Extracts the candidate details from an already extracted CV and saves the candidate.
+     *
+     * @param document          the extracted CV
+     * @param name              the name of the candidate
+     * @param email             the email address of the candidate
+     * @param phone             the contact number of the candidate
+     * @param fileHash          the SHA-256 of the uploaded file
+     * @param textHash          the SHA-256 of the normalized CV text
+     * @param withinTransaction work that must commit or roll back together with the candidate
+     * @return the saved candidate
+     */
+    private RegisteredCv registerCandidate(final ExtractedDocument document, final String name, final String email,
+                                           final String phone, final String fileHash, final String textHash,
+                                           final Consumer<RegisteredCv> withinTransaction) {
+        final String cvContent = document.text();
         log.debug("Extracted CV content length: {} characters", cvContent.length());
 
         final List<String> skills = extractSkills(cvContent);
-        final String experience = extractExperience(cvContent);
-        final String education = extractEducation(cvContent);
-        final Integer yearsOfExperience = extractYearsOfExperience(cvContent);
+        final CvSections sections = CvSectionSegmenter.segment(cvContent);
+        final String experience = sections.experience();
+        final String education = sections.education();
+        final Integer yearsOfExperience = sections.yearsOfExperience();
 
         log.debug("Extracted skills: {}", skills);
         log.debug("Extracted experience: {}", experience);
         log.debug("Extracted education: {}", education);
         log.debug("Extracted years of experience: {}", yearsOfExperience);
 
-        final CandidateDTO savedCandidate = transactionTemplate.execute(status -> {
+        final RegisteredCv registered = transactionTemplate.execute(status -> {
             final CandidateDTO candidate = candidateService.saveCandidate(
                     name,
                     email,
                     phone,
                     cvContent,
-                    originalFilename,
+                    document.filename(),
                     skills,
                     experience,
                     education,
-                    yearsOfExperience
+                    yearsOfExperience,
+                    fileHash,
+                    textHash
             );
-            dashboardService.saveUploadedDocumentInfo(originalFilename, file.getSize(), contentType);
-            return candidate;
+            final RegisteredCv cv = new RegisteredCv(candidate, document, DeduplicationMatch.NONE, fileHash);
+            withinTransaction.accept(cv);
+            return cv;
         });
 
-        if (savedCandidate == null) {
+        if (registered == null) {
             throw new IllegalStateException("Failed to persist uploaded CV data");
         }
-
-        try {
-            ragDocumentService.processDocument(cvContent, originalFilename);
-            log.info("CV content processed through RAG service successfully");
-        } catch (final RuntimeException e) {
-            log.warn("Failed to process CV through RAG service for candidate {}: {}", savedCandidate.id(), e.getMessage());
-        }
-
-        log.info("CV processing completed successfully for candidate ID: {}", savedCandidate.id());
-        return savedCandidate;
+        return registered;
     }
 
     /**
@@ -98,7 +209,7 @@ public class RagUploaderService {
      * @param name  the applicant's name
      * @param email the applicant's email
      */
-    private void validateInput(final MultipartFile file, final String name, final String email) {
+    void validateInput(final MultipartFile file, final String name, final String email) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is required");
         }
@@ -140,58 +251,6 @@ public class RagUploaderService {
         return "application/octet-stream";
     }
 
-    /**
-     * Extracts text content based on the identified content structure, utilizing simple formats or PDF structures.
-     *
-     * @param file the multipart input object
-     * @return the extracted textual payload
-     */
-    private String extractTextFromFile(final MultipartFile file) {
-        try {
-            final String contentType = file.getContentType();
-            String content;
-
-            if (contentType != null && contentType.contains("text")) {
-                content = new String(file.getBytes(), StandardCharsets.UTF_8);
-                log.info("Processing text file: {}", file.getOriginalFilename());
-            } else if (contentType != null && contentType.contains("pdf")) {
-                try {
-                    final ByteArrayResource resource = new ByteArrayResource(file.getBytes());
-                    final PagePdfDocumentReader pdfReader = new PagePdfDocumentReader(resource);
-                    final List<Document> documents = pdfReader.get();
-
-                    content = documents.stream()
-                            .map(Document::getContent)
-                            .collect(Collectors.joining("\n"));
-
-                    log.info("PDF file processed successfully: {} pages extracted from {}",
-                            documents.size(), file.getOriginalFilename());
-                } catch (final RuntimeException e) {
-                    log.warn("Failed to parse PDF file {}, using UTF-8 fallback", file.getOriginalFilename());
-                    content = new String(file.getBytes(), StandardCharsets.UTF_8);
-                }
-            } else if (contentType != null && (contentType.contains("word") || contentType.contains("docx"))) {
-                log.warn("Word document parsing is not implemented for {}, using UTF-8 fallback", file.getOriginalFilename());
-                content = new String(file.getBytes(), StandardCharsets.UTF_8);
-            } else {
-                content = new String(file.getBytes(), StandardCharsets.UTF_8);
-                log.warn("Unknown file type {} for {}, using UTF-8 fallback", contentType, file.getOriginalFilename());
-            }
-
-            if (content != null) {
-                content = TextUtils.sanitizeTextContent(content);
-                final String preview = content.length() > 200 ? content.substring(0, 200) + "..." : content;
-                log.debug("Extracted content preview (first 200 chars): {}", preview);
-            }
-
-            return content;
-
-        } catch (final IOException e) {
-            log.error("Error extracting text from file {}: {}", file.getOriginalFilename(), e.getMessage(), e);
-            throw new IllegalStateException("Failed to extract text from uploaded file", e);
-        }
-    }
-
     /**
      * Retrieves an extrapolated skillset array utilizing the internal NLP sequence processor.
      *
@@ -210,132 +269,32 @@ public class RagUploaderService {
             return extractedSkills;
         }
 
-        final String[] commonSkills = {
-            "Java", "Python", "JavaScript", "React", "Angular", "Spring", "Node.js",
-            "SQL", "PostgreSQL", "MySQL", "MongoDB", "Docker", "Kubernetes",
-            "AWS", "Azure", "Git", "Jenkins", "CI/CD", "Agile", "Scrum",
-            "HTML", "CSS", "REST API", "Microservices", "Leadership", "Communication"
-        };
         log.warn("NLP skill extraction returned no results, using static fallback list");
-        return Arrays.stream(commonSkills)
-            .filter(skill -> cvContent.toLowerCase().contains(skill.toLowerCase()))
+        final Set<String> found = COMMON_SKILL_MATCHER.findAll(cvContent);
+        return COMMON_SKILLS.stream()
+            .filter(skill -> found.contains(skill.toLowerCase(Locale.ROOT)))
             .toList();
     }
 
     /**
-     * Extracts an extrapolated experience block natively from regex parsing heuristics.
+     * A CV upload resolved to a candidate.
      *
-     * @param cvContent the plaintext sequence
-     * @return the experience paragraph string
+     * @param candidate the saved or reused candidate
+     * @param document  the extracted CV, {@code null} when the file matched and was not parsed again
+     * @param match     how the upload was matched to an existing candidate
+     * @param fileHash  the SHA-256 of the uploaded file
      */
-    private String extractExperience(final String cvContent) {
-        if (!StringUtils.hasText(cvContent)) {
-            return "Experience details not clearly identified";
-        }
-
-        final Pattern experiencePattern = Pattern.compile(
-            "(?i)(experience|work history|employment|career)(.*?)(?=education|skills|references|$)",
-            Pattern.DOTALL
-        );
-
-        final Matcher matcher = experiencePattern.matcher(cvContent);
-        if (matcher.find()) {
-            return matcher.group(2).trim().substring(0, Math.min(1000, matcher.group(2).trim().length()));
-        }
-
-        return "Experience details not clearly identified";
-    }
-
-    /**
-     * Determines educational credentials relying structurally on generic keyword anchors.
-     *
-     * @param cvContent the target extraction sequence
-     * @return a consolidated representation of the applicant's academic history
-     */
-    private String extractEducation(final String cvContent) {
-        if (!StringUtils.hasText(cvContent)) {
-            return "Education details not clearly identified";
-        }
-
-        final Pattern educationHeaderPattern = Pattern.compile(
-            "(?i)\\b(education|academic|qualifications?|degrees?|diplomas?|certifications?|training|schooling|university|college)\\b[\\s:]*\\n?(.*?)(?=\\n\\s*\\b(experience|work|employment|skills|references|achievements|projects|languages)\\b|$)",
-            Pattern.DOTALL
-        );
-
-        final Matcher headerMatcher = educationHeaderPattern.matcher(cvContent);
-        if (headerMatcher.find()) {
-            final String educationContent = headerMatcher.group(2).trim();
-            if (educationContent.length() > 10) {
-                return educationContent.substring(0, Math.min(1000, educationContent.length()));
-            }
-        }
-
-        final Pattern degreePattern = Pattern.compile(
-            "(?i)\\b(bachelor'?s?|master'?s?|phd|doctorate|associate|diploma|certificate|b\\.?[a-z]{1,4}|m\\.?[a-z]{1,4}|ph\\.?d\\.?)\\s+(of|in|degree)\\s+[a-zA-Z\\s,]+",
-            Pattern.CASE_INSENSITIVE
-        );
+    public record RegisteredCv(CandidateDTO candidate, ExtractedDocument document, DeduplicationMatch match,
+                               String fileHash) {
 
-        final Matcher degreeMatcher = degreePattern.matcher(cvContent);
-        final StringBuilder educationInfo = new StringBuilder();
-
-        while (degreeMatcher.find()) {
-            if (educationInfo.length() > 0) {
-                educationInfo.append("; ");
-            }
-            educationInfo.append(degreeMatcher.group().trim());
-        }
-
-        if (educationInfo.length() > 0) {
-            return educationInfo.toString();
-        }
-
-        final Pattern institutionPattern = Pattern.compile(
-            "(?i)\\b(university|college|institute|academy|school)\\s+of\\s+[a-zA-Z\\s,]+|[a-zA-Z\\s,]+\\s+(university|college|institute)",
-            Pattern.CASE_INSENSITIVE
-        );
-
-        final Matcher institutionMatcher = institutionPattern.matcher(cvContent);
-        final StringBuilder institutionInfo = new StringBuilder();
-
-        while (institutionMatcher.find()) {
-            if (institutionInfo.length() > 0) {
-                institutionInfo.append("; ");
-            }
-            institutionInfo.append(institutionMatcher.group().trim());
+        public boolean deduplicated() {
+            return match != DeduplicationMatch.NONE;
         }
-
-        if (institutionInfo.length() > 0) {
-            return institutionInfo.toString();
-        }
-
-        return "Education details not clearly identified";
     }
 
-    /**
-     * Intercepts quantifiable indicators identifying years of experience related conceptually.
-     *
-     * @param cvContent the analyzed text blob
-     * @return an integer reflecting the extracted years
-     */
-    private Integer extractYearsOfExperience(final String cvContent) {
-        if (!StringUtils.hasText(cvContent)) {
-            return null;
-        }
-
-        final Pattern yearsPattern = Pattern.compile(
-                "(\\d+)\\+?\\s*years?\\s*(?:of\\s*)?(?:experience|work)",
-                Pattern.CASE_INSENSITIVE
-        );
-        final Matcher matcher = yearsPattern.matcher(cvContent);
-
-        if (matcher.find()) {
-            try {
-                return Integer.parseInt(matcher.group(1));
-            } catch (final NumberFormatException e) {
-                log.warn("Could not parse years of experience value: {}", matcher.group(1));
-            }
-        }
-
-        return null;
+    public enum DeduplicationMatch {
+        NONE,
+        FILE,
+        TEXT
     }
 }
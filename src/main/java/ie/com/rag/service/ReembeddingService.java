@@ -0,0 +1,302 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.config.ReembeddingProperties;
+import ie.com.rag.dto.JobStatusDTO;
+import ie.com.rag.entity.JobCheckpoint;
+import ie.com.rag.entity.JobStatus;
+import ie.com.rag.exception.JobStateException;
+import ie.com.rag.repository.JobCheckpointRepository;
+import ie.com.rag.service.CheckpointedJob.Budget;
+import ie.com.rag.service.VectorStoreWriter.BatchingSink;
+import ie.com.rag.service.VectorStoreWriter.WriteResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ie.com.rag.service.RagDocumentService.CANDIDATE_ID_KEY;
+import static ie.com.rag.service.VectorStoreWriter.EMBEDDING_COLUMN;
+import static ie.com.rag.service.VectorStoreWriter.SHADOW_EMBEDDING_COLUMN;
+
+/**
+ * Regenerates the vector store after an embedding model change without taking it offline. New vectors are built
+ * in a shadow column while retrieval keeps using the current one: CVs are re-chunked from
+ * {@code candidates.cv_content}, then every other stored chunk is re-embedded in place. Both passes walk their
+ * table in key order within an embedding budget and checkpoint after every item, so a stopped run resumes
+ * where it left off. Once complete, the shadow column replaces the current one in a single transaction. Runs and
+ * swaps are claimed in {@code job_checkpoints}, so any node may start, swap or report on them.
+ */
+@Slf4j
+@Service
+public class ReembeddingService {
+
+    public static final String JOB_NAME = "reembedding";
+
+    private static final String FIRST_CHUNK_KEY = "00000000-0000-0000-0000-000000000000";
+    private static final int HNSW_MAX_DIMENSIONS = 2000;
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    // Candidates registered after the run started had their chunks written to the shadow column on upload.
+    private static final String CANDIDATE_PAGE = "SELECT id, original_file_name, cv_content FROM candidates "
+            + "WHERE cv_content IS NOT NULL AND id > ? AND created_at < ? ORDER BY id LIMIT ?";
+    private static final String DELETE_SHADOW_CHUNKS_OF_CANDIDATE = "DELETE FROM vector_store "
+            + "WHERE metadata->>'" + CANDIDATE_ID_KEY + "' = ? AND " + SHADOW_EMBEDDING_COLUMN + " IS NOT NULL";
+    // Chunks of candidates are rebuilt from cv_content, so only chunks of other sources are re-embedded in place.
+    private static final String CHUNK_PAGE = "SELECT id::text AS id, content, metadata::text AS metadata "
+            + "FROM vector_store WHERE id > ?::uuid AND " + SHADOW_EMBEDDING_COLUMN + " IS NULL AND content IS NOT NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM candidates c WHERE c.cv_content IS NOT NULL "
+            + "AND c.id = vector_store.metadata->>'" + CANDIDATE_ID_KEY + "') ORDER BY id LIMIT ?";
+    // Holds the checkpoint row until the swap commits, so a concurrent swap or start finds the run swapped.
+    private static final String CLAIM_SWAP = "UPDATE job_checkpoints SET phase = '" + Phase.SWAPPED.name() + "' "
+            + "WHERE job_name = ? AND run_id = ? AND status = '" + JobStatus.COMPLETED.name() + "' "
+            + "AND phase <> '" + Phase.SWAPPED.name() + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final RagDocumentService ragDocumentService;
+    private final VectorStoreWriter vectorStoreWriter;
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final ReembeddingProperties reembeddingProperties;
+    private final CheckpointedJob job;
+
+    public ReembeddingService(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+                              final JobCheckpointRepository checkpointRepository,
+                              final RagDocumentService ragDocumentService, final VectorStoreWriter vectorStoreWriter,
+                              final EmbeddingModel embeddingModel, final ObjectMapper objectMapper,
+                              final ReembeddingProperties reembeddingProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.ragDocumentService = ragDocumentService;
+        this.vectorStoreWriter = vectorStoreWriter;
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+        this.reembeddingProperties = reembeddingProperties;
+        this.job = new CheckpointedJob(JOB_NAME, "Re-embedding", checkpointRepository);
+    }
+
+    /**
+     * Starts a re-embedding, or resumes a stopped or failed one from its checkpoint.
+     *
+     * @return the status of the started run
+     */
+    public JobStatusDTO start() {
+        return CheckpointedJob.toStatus(job.start(
+                existing -> !Phase.SWAPPED.name().equals(existing.getPhase()),
+                Phase.CANDIDATES.name(),
+                this::prepareShadowColumn,
+                this::run));
+    }
+
+    /**
+     * Asks the running re-embedding to stop after its current item.
+     *
+     * @return the status of the run
+     */
+    public JobStatusDTO stop() {
+        return job.stop();
+    }
+
+    /**
+     * Reports the progress of the latest re-embedding.
+     *
+     * @return the status of the latest run
+     */
+    public JobStatusDTO getStatus() {
+        return job.getStatus();
+    }
+
+    /**
+     * Replaces the current vectors with the re-embedded ones in one transaction. Chunks without a new vector are
+     * deleted, so a run with failures is only swapped in when forced. Whether the run is still going is read from
+     * its checkpoint, so a run on another node is seen too.
+     *
+     * @param force whether to swap in a run that had failures
+     * @return the status of the swapped run
+     */
+    public JobStatusDTO swap(final boolean force) {
+        final JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                .orElseThrow(() -> new JobStateException("There is no completed re-embedding to swap in"));
+        if (JobStatus.RUNNING.name().equals(checkpoint.getStatus())) {
+            throw new JobStateException("Re-embedding is still running");
+        }
+        if (!JobStatus.COMPLETED.name().equals(checkpoint.getStatus())
+                || Phase.SWAPPED.name().equals(checkpoint.getPhase())) {
+            throw new JobStateException("There is no completed re-embedding to swap in");
+        }
+        if (checkpoint.getFailed() > 0 && !force) {
+            throw new JobStateException(checkpoint.getFailed()
+                    + " items could not be re-embedded and would be dropped; swap with force to accept that");
+        }
+
+        final int dimensions = embeddingModel.dimensions();
+        final Integer dropped = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(CLAIM_SWAP, JOB_NAME, checkpoint.getRunId()) == 0) {
+                throw new JobStateException("Re-embedding run " + checkpoint.getRunId()
+                        + " was swapped in or restarted meanwhile");
+            }
+            final int deleted = jdbcTemplate.update("DELETE FROM vector_store WHERE " + SHADOW_EMBEDDING_COLUMN + " IS NULL");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS vector_store_embedding_idx");
+            jdbcTemplate.execute("ALTER TABLE vector_store DROP COLUMN " + EMBEDDING_COLUMN);
+            jdbcTemplate.execute("ALTER TABLE vector_store RENAME COLUMN " + SHADOW_EMBEDDING_COLUMN + " TO "
+                    + EMBEDDING_COLUMN);
+            // Same limit as V6: pgvector HNSW indexes support up to 2000 dimensions.
+            if (dimensions <= HNSW_MAX_DIMENSIONS) {
+                jdbcTemplate.execute("CREATE INDEX vector_store_embedding_idx ON vector_store "
+                        + "USING HNSW (" + EMBEDDING_COLUMN + " vector_cosine_ops)");
+            }
+
+            checkpoint.setPhase(Phase.SWAPPED.name());
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            return deleted;
+        });
+
+        log.info("[RagWiser/ReembeddingService] - swap: run {} swapped in, {} chunks without a new vector dropped",
+                checkpoint.getRunId(), dropped);
+        return CheckpointedJob.toStatus(checkpoint);
+    }
+
+    private void prepareShadowColumn(final JobCheckpoint checkpoint) {
+        if (JobStatus.COMPLETED.name().equals(checkpoint.getStatus())) {
+            throw new JobStateException("Re-embedding run " + checkpoint.getRunId()
+                    + " is complete, swap it in before starting another one");
+        }
+
+        final int dimensions = embeddingModel.dimensions();
+        jdbcTemplate.execute("ALTER TABLE vector_store ADD COLUMN IF NOT EXISTS " + SHADOW_EMBEDDING_COLUMN
+                + " vector(" + dimensions + ")");
+        log.info("[RagWiser/ReembeddingService] - start: run {} starts at phase {} into {}-d shadow column",
+                checkpoint.getRunId(), checkpoint.getPhase(), dimensions);
+    }
+
+    private boolean run(final JobCheckpoint checkpoint) {
+        final Budget budget = job.budget(reembeddingProperties.chunksPerMinute());
+        if (Phase.CANDIDATES.name().equals(checkpoint.getPhase())) {
+            if (!reembedCandidates(checkpoint, budget)) {
+                return false;
+            }
+            checkpoint.setPhase(Phase.CHUNKS.name());
+            checkpoint.setLastKey(null);
+        }
+        return reembedChunks(checkpoint, budget);
+    }
+
+    /**
+     * Re-chunks every candidate CV registered before the run started into new rows. Shadow rows the candidate
+     * already has, left by a previous attempt or written by an upload racing the start of the run, are removed
+     * first, so the candidate never ends up with two sets of chunks.
+     *
+     * @return whether every candidate was visited, false when the run was stopped
+     */
+    private boolean reembedCandidates(final JobCheckpoint checkpoint, final Budget budget) {
+        String lastKey = checkpoint.getLastKey() == null ? "" : checkpoint.getLastKey();
+        while (true) {
+            final List<CandidateCv> page = jdbcTemplate.query(CANDIDATE_PAGE,
+                    (rs, rowNum) -> new CandidateCv(rs.getString("id"), rs.getString("original_file_name"),
+                            rs.getString("cv_content")),
+                    lastKey, checkpoint.getStartedAt(), reembeddingProperties.pageSize());
+            if (page.isEmpty()) {
+                return true;
+            }
+
+            for (final CandidateCv cv : page) {
+                if (job.isStopRequested()) {
+                    return false;
+                }
+                final boolean succeeded = reembedCandidate(cv, budget);
+                lastKey = cv.id();
+                job.advance(checkpoint, lastKey, succeeded ? 1 : 0, succeeded ? 0 : 1);
+            }
+        }
+    }
+
+    private boolean reembedCandidate(final CandidateCv cv, final Budget budget) {
+        try {
+            jdbcTemplate.update(DELETE_SHADOW_CHUNKS_OF_CANDIDATE, cv.id());
+
+            final String filename = StringUtils.hasText(cv.fileName()) ? cv.fileName() : cv.id();
+            final BatchingSink sink = vectorStoreWriter.openRebuildSink();
+            ragDocumentService.chunkDocument(new StringReader(cv.content()), filename, cv.id(), chunk -> {
+                budget.consume(1);
+                sink.accept(chunk);
+            });
+            return sink.finish().failed() == 0;
+        } catch (final RuntimeException e) {
+            if (job.isStopRequested()) {
+                throw e;
+            }
+            log.warn("[RagWiser/ReembeddingService] - reembedCandidate: candidate {} failed: {}", cv.id(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Re-embeds the remaining chunks in place, page by page in id order.
+     *
+     * @return whether every chunk was visited, false when the run was stopped
+     */
+    private boolean reembedChunks(final JobCheckpoint checkpoint, final Budget budget) {
+        String lastKey = checkpoint.getLastKey() == null ? FIRST_CHUNK_KEY : checkpoint.getLastKey();
+        while (!job.isStopRequested()) {
+            final List<Document> page = jdbcTemplate.query(CHUNK_PAGE,
+                    (rs, rowNum) -> new Document(rs.getString("id"), rs.getString("content"),
+                            readMetadata(rs.getString("metadata"))),
+                    lastKey, reembeddingProperties.pageSize());
+            if (page.isEmpty()) {
+                return true;
+            }
+
+            budget.consume(page.size());
+            final WriteResult result = vectorStoreWriter.rewrite(page);
+            lastKey = page.get(page.size() - 1).getId();
+            job.advance(checkpoint, lastKey, result.written(), result.failed());
+        }
+        return false;
+    }
+
+    private Map<String, Object> readMetadata(final String json) {
+        if (json == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (final JsonProcessingException e) {
+            log.warn("[RagWiser/ReembeddingService] - readMetadata: unreadable chunk metadata replaced: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        job.shutdown();
+    }
+
+    /**
+     * Phases of a re-embedding run, in order.
+     */
+    enum Phase {
+        CANDIDATES,
+        CHUNKS,
+        SWAPPED
+    }
+
+    record CandidateCv(String id, String fileName, String content) {
+    }
+}
@@ -0,0 +1,245 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.RetrievalProperties;
+import ie.com.rag.config.RetrievalProperties.RetrievalMode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Service
+public class RetrievalService {
+
+    private static final String DISTANCE_METADATA_KEY = "distance";
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final VectorStore vectorStore;
+    private final QueryExpansionService queryExpansionService;
+    private final RetrievalProperties retrievalProperties;
+    private final DistributionSummary chosenKSummary;
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RetrievalService(final VectorStore vectorStore, final QueryExpansionService queryExpansionService,
+                            final RetrievalProperties retrievalProperties, final MeterRegistry meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.queryExpansionService = queryExpansionService;
+        this.retrievalProperties = retrievalProperties;
+        this.chosenKSummary = DistributionSummary.builder("rag.retrieval.k")
+                .description("Number of documents selected by the adaptive retrieval policy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the documents relevant to a question, letting the similarity distribution decide how many to keep.
+     *
+     * @param question the user's query
+     * @return the selected documents together with the K that was chosen
+     */
+    public RetrievalResult retrieve(final String question) {
+        if (!StringUtils.hasText(question)) {
+            throw new IllegalArgumentException("Question cannot be null or empty");
+        }
+
+        final RetrievalResult result = retrievalProperties.mode() == RetrievalMode.MULTI_QUERY
+                ? retrieveMultiQuery(question)
+                : retrieveSingle(question);
+
+        chosenKSummary.record(result.chosenK());
+        log.info("[RagWiser/RetrievalService] - retrieve: chose K={} out of {} candidates",
+                result.chosenK(), result.candidateCount());
+        return result;
+    }
+
+    /**
+     * Retrieves the documents for a single query without expanding it, cutting the nearest candidates with the same
+     * adaptive selection as {@link #retrieve}.
+     *
+     * @param query the search text
+     * @param topK  how many nearest candidates to consider
+     * @return the selected documents, most relevant first
+     */
+    public List<Document> retrieveSingle(final String query, final int topK) {
+        return selectAdaptively(search(query, topK), true);
+    }
+
+    private RetrievalResult retrieveSingle(final String question) {
+        final List<Document> candidates = search(question, retrievalProperties.candidateTopK());
+        final List<Document> selected = selectAdaptively(candidates, true);
+        return new RetrievalResult(selected, selected.size(), candidates.size());
+    }
+
+    /**
+     * Searches every sub-query concurrently on virtual threads and merges the rankings with reciprocal rank fusion.
+     * A failed sub-query is logged and left out of the fusion; the retrieval only fails when every sub-query did.
+     *
+     * @param question the user's query
+     * @return the fused and cut selection
+     */
+    private RetrievalResult retrieveMultiQuery(final String question) {
+        final List<String> queries = queryExpansionService.expand(question);
+        if (queries.size() == 1) {
+            return retrieveSingle(question);
+        }
+
+        final List<CompletableFuture<List<Document>>> searches = queries.stream()
+                .map(query -> CompletableFuture.supplyAsync(() -> search(query, retrievalProperties.candidateTopK()),
+                        searchExecutor))
+                .toList();
+
+        final List<List<Document>> rankings = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < searches.size(); i++) {
+            try {
+                rankings.add(searches.get(i).join());
+            } catch (final CompletionException e) {
+                final Throwable cause = e.getCause() == null ? e : e.getCause();
+                log.warn("[RagWiser/RetrievalService] - retrieveMultiQuery: sub-query '{}' failed: {}",
+                        queries.get(i), cause.getMessage());
+                if (failure == null) {
+                    failure = cause instanceof RuntimeException runtimeException ? runtimeException : e;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (rankings.isEmpty()) {
+            throw failure;
+        }
+
+        final List<Document> fused = fuseRankings(rankings);
+        // Fused order is by rank agreement, not by similarity, so neighbour score gaps carry no signal here.
+        final List<Document> selected = selectAdaptively(fused, false);
+        log.debug("[RagWiser/RetrievalService] - retrieveMultiQuery: {} of {} sub-queries fused into {} candidates",
+                rankings.size(), queries.size(), fused.size());
+        return new RetrievalResult(selected, selected.size(), fused.size());
+    }
+
+    /**
+     * Fetches the nearest candidates without a similarity threshold; {@link #selectAdaptively} applies
+     * {@code minSimilarity} only after {@code minK}, so weak matches still give the model some context.
+     */
+    private List<Document> search(final String query, final int topK) {
+        final List<Document> documents = vectorStore.similaritySearch(SearchRequest
+                .query(query)
+                .withTopK(topK));
+        return documents == null ? List.of() : documents;
+    }
+
+    /**
+     * Merges several rankings with reciprocal rank fusion, keeping the closest distance seen for each document.
+     *
+     * @param rankings one similarity-ordered result list per query
+     * @return the distinct documents ordered by fused score
+     */
+    List<Document> fuseRankings(final List<List<Document>> rankings) {
+        final Map<String, Double> fusedScores = new LinkedHashMap<>();
+        final Map<String, Document> bestHits = new LinkedHashMap<>();
+
+        for (final List<Document> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                final Document document = ranking.get(rank);
+                final String key = document.getId();
+                fusedScores.merge(key, 1.0 / (retrievalProperties.rrfK() + rank + 1), Double::sum);
+                bestHits.merge(key, document, (current, candidate) ->
+                        similarityOf(candidate) > similarityOf(current) ? candidate : current);
+            }
+        }
+
+        return fusedScores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .map(entry -> bestHits.get(entry.getKey()))
+                .toList();
+    }
+
+    /**
+     * Cuts a ranked candidate list at the first score gap or low-similarity document,
+     * bounded by the configured min/max K and the context token budget.
+     *
+     * @param candidates    the ranked documents, most relevant first
+     * @param applyScoreGap whether a similarity drop between neighbours ends the selection
+     * @return the documents that should be placed in the prompt
+     */
+    List<Document> selectAdaptively(final List<Document> candidates, final boolean applyScoreGap) {
+        final int maxChars = retrievalProperties.maxContextTokens() * CHARS_PER_TOKEN;
+        final List<Document> selected = new ArrayList<>();
+        double previousSimilarity = Double.NaN;
+        int usedChars = 0;
+
+        for (final Document candidate : candidates) {
+            if (selected.size() >= retrievalProperties.maxK()) {
+                break;
+            }
+
+            final double similarity = similarityOf(candidate);
+            final int contentLength = candidate.getContent() == null ? 0 : candidate.getContent().length();
+            final boolean isMinKSatisfied = selected.size() >= retrievalProperties.minK();
+
+            if (isMinKSatisfied && !Double.isNaN(similarity)) {
+                if (similarity < retrievalProperties.minSimilarity()) {
+                    break;
+                }
+                final boolean isScoreGap = applyScoreGap && !Double.isNaN(previousSimilarity)
+                        && previousSimilarity - similarity >= retrievalProperties.scoreGap();
+                if (isScoreGap) {
+                    break;
+                }
+            }
+
+            // Guardrail: the first document is always kept, the prompt assembly truncates it if needed.
+            if (!selected.isEmpty() && usedChars + contentLength > maxChars) {
+                break;
+            }
+
+            selected.add(candidate);
+            usedChars += contentLength;
+            previousSimilarity = similarity;
+        }
+
+        return selected;
+    }
+
+    /**
+     * Resolves the cosine similarity of a search hit from the distance the pgvector store attaches to it.
+     *
+     * @param document the search hit
+     * @return the similarity, or {@code NaN} when the store did not report a score
+     */
+    private double similarityOf(final Document document) {
+        final Map<String, Object> metadata = document.getMetadata();
+        if (metadata != null && metadata.get(DISTANCE_METADATA_KEY) instanceof Number distance) {
+            return 1.0 - distance.doubleValue();
+        }
+        return Double.NaN;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdown();
+    }
+
+    /**
+     * Outcome of an adaptive retrieval.
+     *
+     * @param documents      the documents selected for the prompt, most relevant first
+     * @param chosenK        the number of documents that were selected
+     * @param candidateCount the number of candidates the vector store returned before the cut
+     */
+    public record RetrievalResult(List<Document> documents, int chosenK, int candidateCount) {
+    }
+}
@@ -0,0 +1,130 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.SkillCacheProperties;
+import ie.com.rag.entity.SkillExtractionCacheEntry;
+import ie.com.rag.repository.SkillExtractionCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content-addressed cache of skill extraction results, keyed by the normalized text hash and the extraction
+ * version. A bounded in-memory tier sits in front of the {@code skill_extraction_cache} table, so re-uploads and
+ * re-processing of the same text skip NLP on every node. Changing the skills dictionary or
+ * {@link #EXTRACTION_LOGIC_VERSION} changes the version, so stale results are never read.
+ */
+@Slf4j
+@Service
+public class SkillExtractionCache {
+
+    /**
+     * Bump when a change to skill extraction should invalidate cached results.
+     */
+    static final int EXTRACTION_LOGIC_VERSION = 1;
+
+    private final SkillExtractionCacheRepository cacheRepository;
+    private final SkillCacheProperties cacheProperties;
+    private final Map<String, List<String>> localEntries;
+    private final Counter localHits;
+    private final Counter storedHits;
+    private final Counter misses;
+
+    public SkillExtractionCache(final SkillExtractionCacheRepository cacheRepository,
+                                final SkillCacheProperties cacheProperties, final MeterRegistry meterRegistry) {
+        this.cacheRepository = cacheRepository;
+        this.cacheProperties = cacheProperties;
+        this.localEntries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, List<String>> eldest) {
+                return size() > cacheProperties.maxLocalEntries();
+            }
+        });
+        this.localHits = lookupCounter(meterRegistry, "local");
+        this.storedHits = lookupCounter(meterRegistry, "stored");
+        this.misses = lookupCounter(meterRegistry, "miss");
+    }
+
+    /**
+     * Looks up the skills extracted earlier from the same text.
+     *
+     * @param textHash          the hash of the normalized text
+     * @param dictionaryVersion the version of the skills dictionary the skills are wanted for
+     * @return the cached skills, or empty if the text was not extracted with this version
+     */
+    public Optional<List<String>> get(final String textHash, final String dictionaryVersion) {
+        if (!cacheProperties.enabled()) {
+            return Optional.empty();
+        }
+
+        final String key = keyOf(textHash, dictionaryVersion);
+        final List<String> local = localEntries.get(key);
+        if (local != null) {
+            localHits.increment();
+            return Optional.of(local);
+        }
+
+        try {
+            final Optional<List<String>> stored = cacheRepository.findById(key)
+                    .map(entry -> List.copyOf(entry.getSkills()));
+            stored.ifPresentOrElse(skills -> {
+                storedHits.increment();
+                localEntries.put(key, skills);
+            }, misses::increment);
+            return stored;
+        } catch (final DataAccessException e) {
+            log.warn("[RagWiser/SkillExtractionCache] - get: cache lookup failed, extracting again: {}", e.getMessage());
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the skills extracted from a text.
+     *
+     * @param textHash          the hash of the normalized text
+     * @param dictionaryVersion the version of the skills dictionary the skills were extracted with
+     * @param skills            the extracted skills
+     */
+    public void put(final String textHash, final String dictionaryVersion, final List<String> skills) {
+        if (!cacheProperties.enabled()) {
+            return;
+        }
+
+        final String version = version(dictionaryVersion);
+        final String key = version + ":" + textHash;
+        final List<String> copy = List.copyOf(skills);
+        localEntries.put(key, copy);
+        try {
+            cacheRepository.save(new SkillExtractionCacheEntry(key, textHash, version, copy, null));
+        } catch (final DataIntegrityViolationException e) {
+            // Another node stored the same text first; its result is just as good.
+            log.debug("[RagWiser/SkillExtractionCache] - put: {} already cached", key);
+        } catch (final DataAccessException e) {
+            log.warn("[RagWiser/SkillExtractionCache] - put: could not store extraction result: {}", e.getMessage());
+        }
+    }
+
+    private String keyOf(final String textHash, final String dictionaryVersion) {
+        return version(dictionaryVersion) + ":" + textHash;
+    }
+
+    private String version(final String dictionaryVersion) {
+        return "e" + EXTRACTION_LOGIC_VERSION + "-" + dictionaryVersion;
+    }
+
+    private Counter lookupCounter(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder("rag.skills.cache")
+                .description("Skill extraction cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,324 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.ReextractionProperties;
+import ie.com.rag.dto.JobStatusDTO;
+import ie.com.rag.entity.JobCheckpoint;
+import ie.com.rag.entity.JobStatus;
+import ie.com.rag.exception.JobStateException;
+import ie.com.rag.repository.JobCheckpointRepository;
+import ie.com.rag.service.CheckpointedJob.Budget;
+import ie.com.rag.service.NlpAnnotationService.WarmUpState;
+import ie.com.rag.utils.CvSectionSegmenter;
+import ie.com.rag.utils.CvSectionSegmenter.CvSections;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Refreshes the skills, experience, education and years of experience of stored candidates from their
+ * {@code cv_content} after the skills dictionary or the extraction logic changes, without re-uploading. Candidates
+ * are read in id order a page at a time; the candidates of a page are extracted in parallel on a few workers, and
+ * only the rows whose fields changed are written back, in one batch per page. The checkpoint moves after every
+ * page, so a stopped run resumes where it left off. Candidates that fail are recorded in {@code job_failed_items}
+ * and extracted once more in a retry pass at the end of the run; those that fail again stay counted as failed.
+ * <p>
+ * The job stays out of the way of uploads: it extracts within a budget of candidates per minute, only starts a
+ * candidate while no upload is waiting for an NLP thread, and annotates each candidate one segment at a time on
+ * the NLP threads uploads leave over, so its segments never pile up in the NLP queue.
+ * A candidate NER cannot annotate keeps its current fields until it succeeds. A run is claimed in
+ * {@code job_checkpoints}, so only one node runs it at a time.
+ */
+@Slf4j
+@Service
+public class SkillReextractionService {
+
+    public static final String JOB_NAME = "skill-reextraction";
+
+    private static final long NLP_BUSY_PAUSE_MILLIS = 200;
+
+    private static final String CANDIDATE_PAGE = "SELECT id, text_hash, cv_content, skills, experience, education, "
+            + "years_of_experience FROM candidates WHERE cv_content IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+    static final String FAILED_CANDIDATE_PAGE = "SELECT c.id, c.text_hash, c.cv_content, c.skills, c.experience, "
+            + "c.education, c.years_of_experience FROM candidates c JOIN job_failed_items f ON f.item_key = c.id "
+            + "WHERE f.job_name = ? AND f.run_id = ? AND c.cv_content IS NOT NULL AND c.id > ? ORDER BY c.id LIMIT ?";
+    static final String RECORD_FAILURE = "INSERT INTO job_failed_items (job_name, item_key, run_id, failed_at) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (job_name, item_key) DO UPDATE SET run_id = EXCLUDED.run_id, "
+            + "failed_at = EXCLUDED.failed_at";
+    static final String CLEAR_FAILURE = "DELETE FROM job_failed_items WHERE job_name = ? AND item_key = ?";
+    private static final String CLEAR_FAILURES_OF_OTHER_RUNS = "DELETE FROM job_failed_items "
+            + "WHERE job_name = ? AND run_id <> ?";
+    // A candidate whose CV was replaced while it was being extracted keeps the fields of its new CV.
+    static final String UPDATE_CANDIDATE = "UPDATE candidates SET skills = ?, experience = ?, education = ?, "
+            + "years_of_experience = ?, updated_at = ? WHERE id = ? AND text_hash IS NOT DISTINCT FROM ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final NLPSkillExtractorService nlpSkillExtractorService;
+    private final NlpAnnotationService nlpAnnotationService;
+    private final ReextractionProperties reextractionProperties;
+    private final CheckpointedJob job;
+    private final ExecutorService workers;
+
+    public SkillReextractionService(final JdbcTemplate jdbcTemplate, final JobCheckpointRepository checkpointRepository,
+                                    final NLPSkillExtractorService nlpSkillExtractorService,
+                                    final NlpAnnotationService nlpAnnotationService,
+                                    final ReextractionProperties reextractionProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.nlpSkillExtractorService = nlpSkillExtractorService;
+        this.nlpAnnotationService = nlpAnnotationService;
+        this.reextractionProperties = reextractionProperties;
+        this.job = new CheckpointedJob(JOB_NAME, "Re-extraction", checkpointRepository);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, reextractionProperties.concurrency()));
+    }
+
+    /**
+     * Starts a re-extraction, or resumes a stopped or failed one from its checkpoint.
+     *
+     * @return the status of the started run
+     */
+    public JobStatusDTO start() {
+        final WarmUpState nerState = nlpAnnotationService.getState();
+        if (nerState != WarmUpState.READY) {
+            throw new JobStateException("NER is " + nerState.name().toLowerCase()
+                    + " on this node, start re-extraction where the NLP models are loaded");
+        }
+
+        final JobCheckpoint checkpoint = job.start(
+                existing -> !JobStatus.COMPLETED.name().equals(existing.getStatus()),
+                Phase.EXTRACTING.name(),
+                resumed -> jdbcTemplate.update(CLEAR_FAILURES_OF_OTHER_RUNS, JOB_NAME, resumed.getRunId()),
+                this::run);
+        log.info("[RagWiser/SkillReextractionService] - start: run {} started after candidate '{}'",
+                checkpoint.getRunId(), checkpoint.getLastKey() == null ? "" : checkpoint.getLastKey());
+        return CheckpointedJob.toStatus(checkpoint);
+    }
+
+    /**
+     * Asks the running re-extraction to stop after its current page.
+     *
+     * @return the status of the run
+     */
+    public JobStatusDTO stop() {
+        return job.stop();
+    }
+
+    /**
+     * Reports the progress of the latest re-extraction.
+     *
+     * @return the status of the latest run
+     */
+    public JobStatusDTO getStatus() {
+        return job.getStatus();
+    }
+
+    private boolean run(final JobCheckpoint checkpoint) {
+        final Budget budget = job.budget(reextractionProperties.candidatesPerMinute());
+        if (Phase.EXTRACTING.name().equals(checkpoint.getPhase())) {
+            if (!reextractCandidates(checkpoint, budget, false)) {
+                return false;
+            }
+            checkpoint.setPhase(Phase.RETRYING.name());
+            checkpoint.setLastKey(null);
+        }
+        return reextractCandidates(checkpoint, budget, true);
+    }
+
+    /**
+     * Extracts candidates page by page: every candidate, or in the retry pass the ones that failed earlier in the
+     * run. A page interrupted by a stop is not written, it is extracted again on resume; the skill extraction
+     * cache makes that cheap.
+     *
+     * @return whether every candidate was visited, false when the run was stopped
+     */
+    private boolean reextractCandidates(final JobCheckpoint checkpoint, final Budget budget, final boolean retrying) {
+        String lastKey = checkpoint.getLastKey() == null ? "" : checkpoint.getLastKey();
+        while (!job.isStopRequested()) {
+            final List<StoredCandidate> page = retrying
+                    ? jdbcTemplate.query(FAILED_CANDIDATE_PAGE, this::mapCandidate, JOB_NAME, checkpoint.getRunId(),
+                    lastKey, reextractionProperties.pageSize())
+                    : jdbcTemplate.query(CANDIDATE_PAGE, this::mapCandidate, lastKey, reextractionProperties.pageSize());
+            if (page.isEmpty()) {
+                return true;
+            }
+
+            final List<Future<Optional<CandidateFields>>> results = new ArrayList<>(page.size());
+            for (final StoredCandidate candidate : page) {
+                results.add(workers.submit(() -> reextract(candidate, budget)));
+            }
+
+            final List<CandidateUpdate> changed = new ArrayList<>();
+            final List<String> succeeded = new ArrayList<>();
+            final List<String> failed = new ArrayList<>();
+            for (int i = 0; i < page.size(); i++) {
+                final StoredCandidate candidate = page.get(i);
+                final Optional<CandidateFields> fields = await(results.get(i));
+                if (fields.isEmpty()) {
+                    failed.add(candidate.id());
+                    continue;
+                }
+                succeeded.add(candidate.id());
+                if (!fields.get().equals(candidate.fields())) {
+                    changed.add(new CandidateUpdate(candidate, fields.get()));
+                }
+            }
+            if (job.isStopRequested()) {
+                return false;
+            }
+
+            final int updated = update(changed);
+            lastKey = page.get(page.size() - 1).id();
+            if (retrying) {
+                // Candidates failing again stay recorded and counted as failed.
+                clearFailures(succeeded);
+                job.advance(checkpoint, lastKey, succeeded.size(), -succeeded.size());
+            } else {
+                recordFailures(failed, checkpoint.getRunId());
+                job.advance(checkpoint, lastKey, succeeded.size(), failed.size());
+            }
+            log.debug("[RagWiser/SkillReextractionService] - reextractCandidates: {} of {} candidates up to {} updated",
+                    updated, page.size(), lastKey);
+        }
+        return false;
+    }
+
+    private Optional<CandidateFields> reextract(final StoredCandidate candidate, final Budget budget) {
+        if (job.isStopRequested()) {
+            return Optional.empty();
+        }
+        try {
+            budget.consume(1);
+            awaitNlpHeadroom();
+            return nlpSkillExtractorService.extractSkillsWithNer(candidate.cvContent())
+                    .map(skills -> CandidateFields.extract(candidate.cvContent(), skills));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.requestStop();
+            return Optional.empty();
+        } catch (final RuntimeException e) {
+            log.warn("[RagWiser/SkillReextractionService] - reextract: candidate {} failed: {}", candidate.id(),
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Uploads waiting for an NLP thread go first; the job only hands over a candidate while none are waiting.
+     */
+    private void awaitNlpHeadroom() throws InterruptedException {
+        while (nlpAnnotationService.getQueuedSegments() > 0 && !job.isStopRequested()) {
+            Thread.sleep(NLP_BUSY_PAUSE_MILLIS);
+        }
+    }
+
+    private Optional<CandidateFields> await(final Future<Optional<CandidateFields>> result) {
+        try {
+            return result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.requestStop();
+            throw new IllegalStateException("Interrupted while waiting for extraction", e);
+        } catch (final ExecutionException e) {
+            log.warn("[RagWiser/SkillReextractionService] - await: extraction failed: {}", e.getCause().getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private int update(final List<CandidateUpdate> changed) {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        final int[][] counts = jdbcTemplate.batchUpdate(UPDATE_CANDIDATE, changed, changed.size(), (ps, change) -> {
+            final CandidateFields fields = change.fields();
+            ps.setArray(1, ps.getConnection().createArrayOf("text", fields.skills().toArray()));
+            ps.setString(2, fields.experience());
+            ps.setString(3, fields.education());
+            ps.setObject(4, fields.yearsOfExperience(), Types.INTEGER);
+            ps.setTimestamp(5, now);
+            ps.setString(6, change.candidate().id());
+            ps.setString(7, change.candidate().textHash());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> Math.max(0, count)).sum();
+    }
+
+    private void recordFailures(final List<String> candidateIds, final String runId) {
+        if (candidateIds.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(RECORD_FAILURE, candidateIds.stream()
+                .map(id -> new Object[]{JOB_NAME, id, runId, now})
+                .toList());
+    }
+
+    private void clearFailures(final List<String> candidateIds) {
+        if (candidateIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(CLEAR_FAILURE, candidateIds.stream()
+                .map(id -> new Object[]{JOB_NAME, id})
+                .toList());
+    }
+
+    private StoredCandidate mapCandidate(final ResultSet rs, final int rowNum) throws SQLException {
+        return new StoredCandidate(rs.getString("id"), rs.getString("text_hash"), rs.getString("cv_content"),
+                new CandidateFields(readSkills(rs.getArray("skills")), rs.getString("experience"),
+                        rs.getString("education"), rs.getObject("years_of_experience", Integer.class)));
+    }
+
+    private static List<String> readSkills(final Array skills) throws SQLException {
+        if (skills == null) {
+            return List.of();
+        }
+        return Arrays.asList((String[]) skills.getArray());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        job.shutdown();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Passes of a re-extraction run, in order.
+     */
+    enum Phase {
+        EXTRACTING,
+        RETRYING
+    }
+
+    /**
+     * The fields of a candidate derived from its CV.
+     */
+    record CandidateFields(List<String> skills, String experience, String education, Integer yearsOfExperience) {
+
+        static CandidateFields extract(final String cvContent, final List<String> skills) {
+            final CvSections sections = CvSectionSegmenter.segment(cvContent);
+            return new CandidateFields(skills, sections.experience(), sections.education(),
+                    sections.yearsOfExperience());
+        }
+    }
+
+    record StoredCandidate(String id, String textHash, String cvContent, CandidateFields fields) {
+    }
+
+    private record CandidateUpdate(StoredCandidate candidate, CandidateFields fields) {
+    }
+}
@@ -0,0 +1,149 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.SkillsDictionaryProperties;
+import ie.com.rag.dto.SkillsDictionaryDTO;
+import ie.com.rag.utils.SkillDatabaseLoader;
+import ie.com.rag.utils.SkillsDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current skills dictionary. The dictionary is compiled once into an immutable snapshot and published
+ * through an atomic reference, so readers never lock or wait: a reload compiles a new snapshot on the side and
+ * swaps it in, and extractions already running finish with the snapshot they started with.
+ * <p>
+ * The dictionary is read from the configured file, or from the bundled skills.json when none is set. A configured
+ * file is checked for changes every {@code reloadInterval}, and admins can reload it on demand.
+ */
+@Slf4j
+@Service
+public class SkillsDictionaryService {
+
+    private static final String BUNDLED_SOURCE = "classpath:skills.json";
+
+    private final SkillsDictionaryProperties dictionaryProperties;
+    private final AtomicReference<LoadedDictionary> current = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+            Thread.ofPlatform().name("skills-dictionary-reload").daemon().unstarted(runnable));
+    private volatile FileTime lastModified;
+
+    public SkillsDictionaryService(final SkillsDictionaryProperties dictionaryProperties) {
+        this.dictionaryProperties = dictionaryProperties;
+        // A dictionary that cannot be loaded at startup is a misconfiguration, so it stops the application.
+        final LoadedDictionary initial = load();
+        current.set(initial);
+        log.info("[RagWiser/SkillsDictionaryService] - init: loaded {} skills from {}, version {}",
+                initial.dictionary().size(), source(), initial.dictionary().getVersion());
+    }
+
+    private record LoadedDictionary(SkillsDictionary dictionary, LocalDateTime loadedAt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        final Duration interval = dictionaryProperties.reloadInterval();
+        if (!StringUtils.hasText(dictionaryProperties.file()) || interval == null || interval.isZero()) {
+            return;
+        }
+        final long intervalMillis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reloadIfModified, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the current dictionary; callers that look up several things should hold on to it for a
+     * consistent view
+     */
+    public SkillsDictionary current() {
+        return current.get().dictionary();
+    }
+
+    /**
+     * @return the version, source and size of the current dictionary
+     */
+    public SkillsDictionaryDTO getStatus() {
+        final LoadedDictionary loaded = current.get();
+        return new SkillsDictionaryDTO(
+                loaded.dictionary().getVersion(),
+                source(),
+                loaded.dictionary().size(),
+                loaded.dictionary().getCapitalizationCount(),
+                loaded.loadedAt()
+        );
+    }
+
+    /**
+     * Reads and compiles the dictionary again and swaps it in if it changed. Reloads are serialized; readers are
+     * never held up by one.
+     *
+     * @return the status of the dictionary in use afterwards
+     * @throws IllegalArgumentException if the dictionary cannot be read or is invalid; the current one is kept
+     */
+    public synchronized SkillsDictionaryDTO reload() {
+        final LoadedDictionary loaded = load();
+        final SkillsDictionary previous = current();
+        if (previous.getVersion().equals(loaded.dictionary().getVersion())) {
+            log.debug("[RagWiser/SkillsDictionaryService] - reload: dictionary unchanged, version {}",
+                    previous.getVersion());
+            return getStatus();
+        }
+
+        current.set(loaded);
+        log.info("[RagWiser/SkillsDictionaryService] - reload: swapped in {} skills, version {} -> {}",
+                loaded.dictionary().size(), previous.getVersion(), loaded.dictionary().getVersion());
+        return getStatus();
+    }
+
+    private void reloadIfModified() {
+        try {
+            final FileTime modified = Files.getLastModifiedTime(Path.of(dictionaryProperties.file()));
+            if (!modified.equals(lastModified)) {
+                reload();
+            }
+        } catch (final IOException | RuntimeException e) {
+            // An exception escaping a scheduled task would cancel all further checks.
+            log.warn("[RagWiser/SkillsDictionaryService] - reloadIfModified: keeping the current dictionary: {}",
+                    e.getMessage());
+        }
+    }
+
+    private LoadedDictionary load() {
+        try {
+            final byte[] content;
+            if (StringUtils.hasText(dictionaryProperties.file())) {
+                final Path path = Path.of(dictionaryProperties.file());
+                final FileTime modified = Files.getLastModifiedTime(path);
+                content = Files.readAllBytes(path);
+                lastModified = modified;
+            } else {
+                content = SkillDatabaseLoader.readBundled();
+            }
+            return new LoadedDictionary(SkillDatabaseLoader.load(content), LocalDateTime.now());
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Skills dictionary " + source() + " could not be loaded: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private String source() {
+        return StringUtils.hasText(dictionaryProperties.file()) ? dictionaryProperties.file() : BUNDLED_SOURCE;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
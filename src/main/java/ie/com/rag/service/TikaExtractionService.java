@@ -0,0 +1,149 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.TikaParserProperties;
+import ie.com.rag.utils.SpooledUpload;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.microsoft.OfficeParser;
+import org.apache.tika.parser.microsoft.ooxml.OOXMLParser;
+import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.parser.txt.TXTParser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shared Tika text extraction. One thread-safe parser, built only from the parsers for the upload content types
+ * in {@link ie.com.rag.Constants#ALLOWED_UPLOAD_CONTENT_TYPES}, is warmed at startup and reused by every request
+ * instead of loading the full parser registry per file. Parses run on a bounded pool with a timeout.
+ */
+@Slf4j
+@Service
+public class TikaExtractionService {
+
+    private final TikaParserProperties tikaProperties;
+    private final Parser parser = new AutoDetectParser(
+            new PDFParser(),
+            new OfficeParser(),
+            new OOXMLParser(),
+            new TXTParser()
+    );
+    private final ExecutorService parseExecutor;
+
+    public TikaExtractionService(final TikaParserProperties tikaProperties) {
+        this.tikaProperties = tikaProperties;
+        this.parseExecutor = Executors.newFixedThreadPool(Math.max(1, tikaProperties.maxConcurrency()));
+    }
+
+    /**
+     * Parses representative documents once so the parser classes, detectors and fonts are loaded before the
+     * first upload arrives.
+     */
+    @PostConstruct
+    public void warmUp() {
+        final long startTime = System.currentTimeMillis();
+        try {
+            parse(TikaInputStream.get("warm-up".getBytes(StandardCharsets.UTF_8)), "warm-up.txt", "text/plain");
+            parse(TikaInputStream.get(blankPdf()), "warm-up.pdf", "application/pdf");
+            log.info("[RagWiser/TikaExtractionService] - warmUp: Tika parser ready in {} ms",
+                    System.currentTimeMillis() - startTime);
+        } catch (final IOException | RuntimeException e) {
+            log.warn("[RagWiser/TikaExtractionService] - warmUp: Tika warm-up failed, first parses will be slower: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts the text of a spooled upload.
+     *
+     * @param upload      the spooled file
+     * @param filename    the name of the file
+     * @param contentType the MIME type of the file, used as a detection hint
+     * @return the extracted text, truncated at the configured maximum length
+     * @throws IOException if the file cannot be parsed or parsing times out
+     */
+    public String extractText(final SpooledUpload upload, final String filename, final String contentType)
+            throws IOException {
+        final Future<String> result = parseExecutor.submit(() -> {
+            try (InputStream inputStream = TikaInputStream.get(upload.path())) {
+                return parse(inputStream, filename, contentType);
+            }
+        });
+
+        try {
+            return result.get(tikaProperties.parseTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            // Parsers only stop at their next interrupt check, the pool bound keeps runaway parses contained.
+            result.cancel(true);
+            throw new IOException("Parsing " + filename + " timed out after " + tikaProperties.parseTimeout(), e);
+        } catch (final InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + filename, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Unexpected error while extracting text from file: " + filename, e.getCause());
+        }
+    }
+
+    private String parse(final InputStream inputStream, final String filename, final String contentType)
+            throws IOException {
+        final Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, filename);
+        metadata.set(Metadata.CONTENT_TYPE, contentType);
+
+        final BodyContentHandler handler = new BodyContentHandler(tikaProperties.maxTextLength());
+        final ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+
+        try {
+            parser.parse(inputStream, handler, metadata, context);
+        } catch (final SAXException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new IOException("Failed to extract text using Tika: " + e.getMessage(), e);
+            }
+            log.warn("[RagWiser/TikaExtractionService] - parse: text of {} truncated at {} characters", filename,
+                    tikaProperties.maxTextLength());
+        } catch (final TikaException e) {
+            throw new IOException("Failed to extract text using Tika: " + e.getMessage(), e);
+        }
+        return handler.toString();
+    }
+
+    private byte[] blankPdf() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            document.addPage(new PDPage());
+            document.save(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parseExecutor.shutdownNow();
+    }
+}
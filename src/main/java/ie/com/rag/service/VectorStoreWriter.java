@@ -0,0 +1,533 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.config.EmbeddingBatchProperties;
+import ie.com.rag.utils.HashUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Writes chunks to the vector store in sized batches: one embedding call and one multi-row insert per batch
+ * instead of one of each per chunk. Batches failing with a transient error are retried with backoff; a batch the
+ * store rejects for any other reason is split in halves without further retries, so a single bad chunk only loses
+ * itself. Embedding failures are not split, a smaller call cannot fix them. Every chunk is stored with the hash of
+ * its exact text, up to whitespace layout, and with the model and dimensions its vector comes from; chunks whose
+ * hash is already in the store with a vector of the current model reuse that vector instead of being embedded
+ * again. While a re-embedding has the {@code embedding_shadow} column in place, vectors are
+ * written to and reused from that column. New uploads then also fill {@code embedding} when both columns have the same dimensions, so
+ * search finds them before the swap; otherwise they are not searchable until the swap, which is logged and counted
+ * in {@code rag.embedding.unsearchable.chunks}.
+ */
+@Slf4j
+@Component
+public class VectorStoreWriter {
+
+    public static final String CHUNK_HASH_KEY = "chunkHash";
+    public static final String EMBEDDING_MODEL_KEY = "embeddingModel";
+    public static final String EMBEDDING_COLUMN = "embedding";
+    public static final String SHADOW_EMBEDDING_COLUMN = "embedding_shadow";
+
+    private static final String ROW_PLACEHOLDER = "(?::uuid, ?, ?::json, ?::vector)";
+    private static final String MIRRORED_ROW_PLACEHOLDER = "(?::uuid, ?, ?::json, ?::vector, ?::vector)";
+    private static final String DELETE_CANDIDATE_CHUNKS = "DELETE FROM vector_store WHERE metadata->>'"
+            + RagDocumentService.CANDIDATE_ID_KEY + "' = ?";
+    // The type modifier of a pgvector column is its number of dimensions.
+    private static final String VECTOR_COLUMNS = "SELECT attname, atttypmod FROM pg_attribute "
+            + "WHERE attrelid = 'vector_store'::regclass AND NOT attisdropped "
+            + "AND attname IN ('" + EMBEDDING_COLUMN + "', '" + SHADOW_EMBEDDING_COLUMN + "')";
+
+    private final EmbeddingModel embeddingModel;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EmbeddingBatchProperties batchProperties;
+    private final Counter embeddedChunks;
+    private final Counter reusedChunks;
+    private final Counter unsearchableChunks;
+    private volatile String modelId;
+
+    public VectorStoreWriter(final EmbeddingModel embeddingModel, final JdbcTemplate jdbcTemplate,
+                             final ObjectMapper objectMapper, final EmbeddingBatchProperties batchProperties,
+                             final MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchProperties = batchProperties;
+        this.embeddedChunks = Counter.builder("rag.embedding.chunks")
+                .description("Chunk vectors resolved for the vector store, by where they came from")
+                .tag("source", "model")
+                .register(meterRegistry);
+        this.reusedChunks = Counter.builder("rag.embedding.chunks")
+                .description("Chunk vectors resolved for the vector store, by where they came from")
+                .tag("source", "reused")
+                .register(meterRegistry);
+        this.unsearchableChunks = Counter.builder("rag.embedding.unsearchable.chunks")
+                .description("Uploaded chunks that search cannot find until a running re-embedding is swapped in")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Embeds and stores documents, which may belong to one or to many source files.
+     *
+     * @param documents the chunks to store
+     * @return how many chunks were written and how many had to be dropped
+     */
+    public WriteResult write(final List<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return new WriteResult(0, List.of());
+        }
+
+        return checked(writeAll(documents, WriteMode.INSERT));
+    }
+
+    /**
+     * Embeds stored chunks again and replaces their vector and metadata in place, keeping their ids. Used to
+     * regenerate vectors after an embedding model change.
+     *
+     * @param documents stored chunks, with the id of their {@code vector_store} row
+     * @return how many chunks were re-embedded and how many failed
+     */
+    public WriteResult rewrite(final List<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return new WriteResult(0, List.of());
+        }
+        return writeAll(documents, WriteMode.REPLACE);
+    }
+
+    /**
+     * Opens a sink that takes chunks one at a time, as a chunker produces them, and writes every full batch
+     * straight away.
+     *
+     * @return a sink for the chunks of one document
+     */
+    public BatchingSink openSink() {
+        return new BatchingSink(WriteMode.INSERT);
+    }
+
+    /**
+     * Opens a sink for chunks rebuilt by a re-embedding. They only get a vector in the shadow column, so search
+     * keeps seeing the chunks they replace until the swap.
+     *
+     * @return a sink for the rebuilt chunks of one document
+     */
+    public BatchingSink openRebuildSink() {
+        return new BatchingSink(WriteMode.REBUILD);
+    }
+
+    /**
+     * Deletes every stored chunk of a candidate, so a failed or retried ingestion does not leave partial or
+     * duplicate chunks behind.
+     *
+     * @param candidateId the candidate whose chunks to delete
+     * @return the number of chunks deleted
+     */
+    public int deleteCandidateChunks(final String candidateId) {
+        return jdbcTemplate.update(DELETE_CANDIDATE_CHUNKS, candidateId);
+    }
+
+    private WriteResult writeAll(final List<Document> documents, final WriteMode mode) {
+        final int batchSize = Math.max(1, batchProperties.batchSize());
+        int written = 0;
+        final List<Document> dropped = new ArrayList<>();
+
+        for (int start = 0; start < documents.size(); start += batchSize) {
+            final List<Document> batch = documents.subList(start, Math.min(start + batchSize, documents.size()));
+            final WriteResult result = writeBatch(batch, mode);
+            written += result.written();
+            dropped.addAll(result.dropped());
+        }
+
+        log.debug("[RagWiser/VectorStoreWriter] - writeAll: stored {} chunks in {} batches", written,
+                (documents.size() + batchSize - 1) / batchSize);
+        return new WriteResult(written, dropped);
+    }
+
+    private WriteResult checked(final WriteResult result) {
+        if (result.written() == 0 && result.failed() > 0) {
+            throw new IllegalStateException("Failed to persist document chunks in vector store");
+        }
+        if (result.failed() > 0) {
+            log.warn("[RagWiser/VectorStoreWriter] - write: {} of {} chunks could not be stored", result.failed(),
+                    result.written() + result.failed());
+        }
+        return result;
+    }
+
+    private WriteResult writeBatch(final List<Document> batch, final WriteMode mode) {
+        final Target target;
+        final List<List<Double>> embeddings;
+        try {
+            // Resolved per batch, so a shadow column added or swapped in by a re-embedding is picked up by the
+            // next batch.
+            target = withRetry(() -> resolveTarget(mode));
+            embeddings = withRetry(() -> embed(batch, target.column()));
+        } catch (final RuntimeException e) {
+            // Smaller model calls fail the same way, so the batch is not split.
+            log.warn("[RagWiser/VectorStoreWriter] - writeBatch: dropping {} chunks, embedding failed: {}", batch.size(),
+                    e.getMessage());
+            return new WriteResult(0, List.copyOf(batch));
+        }
+
+        try {
+            withRetry(() -> store(batch, embeddings, target, mode));
+            if (mode == WriteMode.INSERT && !target.mirrored() && !EMBEDDING_COLUMN.equals(target.column())) {
+                unsearchableChunks.increment(batch.size());
+            }
+            return new WriteResult(batch.size(), List.of());
+        } catch (final RuntimeException e) {
+            if (isTransient(e) || batch.size() == 1) {
+                log.warn("[RagWiser/VectorStoreWriter] - writeBatch: dropping {} chunks after retries: {}", batch.size(),
+                        e.getMessage());
+                return new WriteResult(0, List.copyOf(batch));
+            }
+            return isolate(batch, embeddings, target, mode);
+        }
+    }
+
+    /**
+     * Splits a batch the store rejected in halves until the rejected chunks are isolated, reusing the vectors
+     * already resolved. The error is not transient, so the halves are written once each without retries or pauses.
+     */
+    private WriteResult isolate(final List<Document> batch, final List<List<Double>> embeddings, final Target target,
+                                final WriteMode mode) {
+        final int middle = batch.size() / 2;
+        final WriteResult left = storeOrIsolate(batch.subList(0, middle), embeddings.subList(0, middle), target, mode);
+        final WriteResult right = storeOrIsolate(batch.subList(middle, batch.size()),
+                embeddings.subList(middle, batch.size()), target, mode);
+        final List<Document> dropped = new ArrayList<>(left.dropped());
+        dropped.addAll(right.dropped());
+        return new WriteResult(left.written() + right.written(), dropped);
+    }
+
+    private WriteResult storeOrIsolate(final List<Document> batch, final List<List<Double>> embeddings,
+                                       final Target target, final WriteMode mode) {
+        try {
+            store(batch, embeddings, target, mode);
+            return new WriteResult(batch.size(), List.of());
+        } catch (final RuntimeException e) {
+            if (batch.size() > 1) {
+                return isolate(batch, embeddings, target, mode);
+            }
+            log.warn("[RagWiser/VectorStoreWriter] - writeBatch: dropping chunk {} of {}: {}",
+                    batch.get(0).getMetadata().get("chunk"), batch.get(0).getMetadata().get("filename"), e.getMessage());
+            return new WriteResult(0, List.copyOf(batch));
+        }
+    }
+
+    private int store(final List<Document> batch, final List<List<Double>> embeddings, final Target target,
+                      final WriteMode mode) {
+        return mode == WriteMode.REPLACE
+                ? update(batch, embeddings, target.column())
+                : insert(batch, embeddings, target);
+    }
+
+    /**
+     * Resolves a vector for every chunk of the batch. Vectors of hashes already in the store from the current model
+     * are reused, and only the distinct unknown texts are sent to the embedding model.
+     */
+    private List<List<Double>> embed(final List<Document> batch, final String column) {
+        final String model = modelId();
+        batch.forEach(document -> document.getMetadata().put(EMBEDDING_MODEL_KEY, model));
+        final List<String> hashes = batch.stream().map(this::chunkHash).toList();
+        final Map<String, List<Double>> vectors = findKnownEmbeddings(new LinkedHashSet<>(hashes), column, model);
+
+        final Map<String, String> unknown = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!vectors.containsKey(hashes.get(i))) {
+                unknown.putIfAbsent(hashes.get(i), batch.get(i).getContent());
+            }
+        }
+
+        if (!unknown.isEmpty()) {
+            final List<List<Double>> embedded = embeddingModel.embed(new ArrayList<>(unknown.values()));
+            if (embedded == null || embedded.size() != unknown.size()) {
+                throw new IllegalStateException("Embedding model returned an unexpected number of vectors");
+            }
+            int index = 0;
+            for (final String hash : unknown.keySet()) {
+                vectors.put(hash, embedded.get(index++));
+            }
+        }
+
+        embeddedChunks.increment(unknown.size());
+        reusedChunks.increment(batch.size() - unknown.size());
+        return hashes.stream().map(vectors::get).toList();
+    }
+
+    /**
+     * Identifies the vectors of the embedding model: its name and dimensions. Chunks stored before models were
+     * recorded have none, so their vectors are never reused.
+     */
+    private String modelId() {
+        String id = modelId;
+        if (id == null) {
+            id = batchProperties.model() + ":" + embeddingModel.dimensions();
+            modelId = id;
+        }
+        return id;
+    }
+
+    private String chunkHash(final Document document) {
+        return (String) document.getMetadata().computeIfAbsent(CHUNK_HASH_KEY,
+                key -> HashUtils.sha256OfChunkText(document.getContent()));
+    }
+
+    /**
+     * Resolves the columns a batch is written to. Without a re-embedding in progress that is {@code embedding}.
+     * With a shadow column, vectors of the new model go there, and uploads also copy them into {@code embedding}
+     * when its dimensions match, so they stay searchable until the swap.
+     */
+    private Target resolveTarget(final WriteMode mode) {
+        final Map<String, Integer> dimensions = new HashMap<>();
+        jdbcTemplate.query(VECTOR_COLUMNS, rs -> {
+            dimensions.put(rs.getString("attname"), rs.getInt("atttypmod"));
+        });
+        final Integer shadowDimensions = dimensions.get(SHADOW_EMBEDDING_COLUMN);
+        if (shadowDimensions == null) {
+            return new Target(EMBEDDING_COLUMN, false);
+        }
+
+        final boolean mirrored = mode == WriteMode.INSERT
+                && shadowDimensions.equals(dimensions.get(EMBEDDING_COLUMN));
+        if (mode == WriteMode.INSERT && !mirrored) {
+            log.warn("[RagWiser/VectorStoreWriter] - resolveTarget: a re-embedding to {} dimensions is in progress, "
+                    + "uploaded chunks are not searchable until it is swapped in", shadowDimensions);
+        }
+        return new Target(SHADOW_EMBEDDING_COLUMN, mirrored);
+    }
+
+    private Map<String, List<Double>> findKnownEmbeddings(final Set<String> hashes, final String column,
+                                                          final String model) {
+        final String sql = "SELECT DISTINCT ON (metadata->>'" + CHUNK_HASH_KEY + "') metadata->>'" + CHUNK_HASH_KEY
+                + "' AS chunk_hash, " + column + "::text AS embedding FROM vector_store WHERE " + column + " IS NOT NULL "
+                + "AND metadata->>'" + EMBEDDING_MODEL_KEY + "' = ? "
+                + "AND metadata->>'" + CHUNK_HASH_KEY + "' IN (" + placeholders(hashes.size(), "?") + ")";
+        final List<Object> parameters = new ArrayList<>(hashes.size() + 1);
+        parameters.add(model);
+        parameters.addAll(hashes);
+        final Map<String, List<Double>> known = new HashMap<>();
+        jdbcTemplate.query(sql,
+                rs -> {
+                    known.put(rs.getString("chunk_hash"), parseVectorLiteral(rs.getString("embedding")));
+                },
+                parameters.toArray());
+        return known;
+    }
+
+    private int insert(final List<Document> batch, final List<List<Double>> embeddings, final Target target) {
+        final StringBuilder sql = new StringBuilder("INSERT INTO vector_store (id, content, metadata, ")
+                .append(target.column())
+                .append(target.mirrored() ? ", " + EMBEDDING_COLUMN : "")
+                .append(") VALUES ");
+        final List<Object> parameters = new ArrayList<>(batch.size() * 5);
+
+        for (int i = 0; i < batch.size(); i++) {
+            final Document document = batch.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(target.mirrored() ? MIRRORED_ROW_PLACEHOLDER : ROW_PLACEHOLDER);
+            parameters.add(resolveId(document));
+            parameters.add(document.getContent());
+            parameters.add(toJson(document));
+            final String vector = toVectorLiteral(embeddings.get(i));
+            parameters.add(vector);
+            if (target.mirrored()) {
+                parameters.add(vector);
+            }
+        }
+
+        return jdbcTemplate.update(sql.toString(), parameters.toArray());
+    }
+
+    private int update(final List<Document> batch, final List<List<Double>> embeddings, final String column) {
+        final String sql = "UPDATE vector_store SET metadata = v.metadata::json, " + column + " = v.embedding::vector "
+                + "FROM (VALUES " + placeholders(batch.size(), "(?::uuid, ?, ?)") + ") AS v(id, metadata, embedding) "
+                + "WHERE vector_store.id = v.id";
+        final List<Object> parameters = new ArrayList<>(batch.size() * 3);
+        for (int i = 0; i < batch.size(); i++) {
+            parameters.add(batch.get(i).getId());
+            parameters.add(toJson(batch.get(i)));
+            parameters.add(toVectorLiteral(embeddings.get(i)));
+        }
+        return jdbcTemplate.update(sql, parameters.toArray());
+    }
+
+    private String placeholders(final int count, final String placeholder) {
+        return String.join(", ", Collections.nCopies(count, placeholder));
+    }
+
+    private <T> T withRetry(final Supplier<T> action) {
+        final int maxAttempts = Math.max(0, batchProperties.maxRetries()) + 1;
+        long backoffMillis = batchProperties.retryBackoff().toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (final RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                log.debug("[RagWiser/VectorStoreWriter] - withRetry: attempt {} failed, retrying: {}", attempt, e.getMessage());
+                sleep(backoffMillis);
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    /**
+     * Whether an error may go away on its own, such as a timeout, a dropped connection or a rate limit. Other
+     * errors fail the same way on every attempt, so they are not retried.
+     */
+    private boolean isTransient(final Throwable error) {
+        return error instanceof TransientDataAccessException
+                || error instanceof RecoverableDataAccessException
+                || error instanceof TransientAiException
+                || error instanceof ResourceAccessException;
+    }
+
+    private void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a vector store write", e);
+        }
+    }
+
+    private String resolveId(final Document document) {
+        try {
+            return UUID.fromString(document.getId()).toString();
+        } catch (final IllegalArgumentException e) {
+            // The id column is a UUID, ids from other generators are replaced.
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private String toJson(final Document document) {
+        try {
+            return objectMapper.writeValueAsString(document.getMetadata());
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize document metadata", e);
+        }
+    }
+
+    private List<Double> parseVectorLiteral(final String literal) {
+        final String values = literal.substring(1, literal.length() - 1);
+        final List<Double> vector = new ArrayList<>();
+        int start = 0;
+        while (start < values.length()) {
+            final int comma = values.indexOf(',', start);
+            final int end = comma < 0 ? values.length() : comma;
+            vector.add(Double.parseDouble(values.substring(start, end)));
+            start = end + 1;
+        }
+        return vector;
+    }
+
+    private String toVectorLiteral(final List<Double> embedding) {
+        final StringBuilder literal = new StringBuilder(embedding.size() * 12).append('[');
+        for (int i = 0; i < embedding.size(); i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(embedding.get(i).floatValue());
+        }
+        return literal.append(']').toString();
+    }
+
+    /**
+     * Buffers streamed chunks up to the batch size. Not thread-safe; each document gets its own sink.
+     */
+    public final class BatchingSink implements Consumer<Document> {
+
+        private final List<Document> pending = new ArrayList<>();
+        private final List<Document> dropped = new ArrayList<>();
+        private final WriteMode mode;
+        private int written;
+
+        private BatchingSink(final WriteMode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public void accept(final Document document) {
+            pending.add(document);
+            if (pending.size() >= Math.max(1, batchProperties.batchSize())) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes the last partial batch.
+         *
+         * @return how many chunks of the document were written and how many had to be dropped
+         */
+        public WriteResult finish() {
+            flush();
+            return checked(new WriteResult(written, List.copyOf(dropped)));
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            final WriteResult result = writeBatch(pending, mode);
+            written += result.written();
+            dropped.addAll(result.dropped());
+            pending.clear();
+        }
+    }
+
+    private enum WriteMode {
+        /** New chunks, searchable as soon as they are written. */
+        INSERT,
+        /** New chunks replacing others at the swap of a re-embedding. */
+        REBUILD,
+        /** New vectors for stored chunks. */
+        REPLACE
+    }
+
+    /**
+     * The column vectors are resolved for and written to, and whether they are also copied into {@code embedding}.
+     */
+    private record Target(String column, boolean mirrored) {
+    }
+
+    /**
+     * Outcome of a batched write.
+     *
+     * @param written the number of chunks stored
+     * @param dropped the chunks that could not be stored, so callers can tell which source files they belong to
+     */
+    public record WriteResult(int written, List<Document> dropped) {
+
+        /**
+         * @return the number of chunks dropped after retries
+         */
+        public int failed() {
+            return dropped.size();
+        }
+    }
+}
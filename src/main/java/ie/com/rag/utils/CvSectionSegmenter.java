@@ -0,0 +1,279 @@
+package ie.com.rag.utils;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Splits CV text into headed sections in a single pass over its lines, without regular expressions, so the
+ * running time stays linear in the length of the text whatever its shape.
+ */
+public final class CvSectionSegmenter {
+
+    public static final String EXPERIENCE_NOT_FOUND = "Experience details not clearly identified";
+    public static final String EDUCATION_NOT_FOUND = "Education details not clearly identified";
+
+    private static final int MAX_SUMMARY_LENGTH = 1000;
+    private static final int MAX_HEADING_LENGTH = 40;
+    private static final int MAX_HEADING_WORDS = 4;
+    private static final int MIN_EDUCATION_SECTION_LENGTH = 10;
+
+    private static final Map<String, Section> HEADINGS = Map.ofEntries(
+            Map.entry("experience", Section.EXPERIENCE),
+            Map.entry("work experience", Section.EXPERIENCE),
+            Map.entry("professional experience", Section.EXPERIENCE),
+            Map.entry("relevant experience", Section.EXPERIENCE),
+            Map.entry("work history", Section.EXPERIENCE),
+            Map.entry("employment", Section.EXPERIENCE),
+            Map.entry("employment history", Section.EXPERIENCE),
+            Map.entry("career", Section.EXPERIENCE),
+            Map.entry("career history", Section.EXPERIENCE),
+            Map.entry("education", Section.EDUCATION),
+            Map.entry("education and training", Section.EDUCATION),
+            Map.entry("academic background", Section.EDUCATION),
+            Map.entry("academic history", Section.EDUCATION),
+            Map.entry("qualifications", Section.EDUCATION),
+            Map.entry("qualification", Section.EDUCATION),
+            Map.entry("degrees", Section.EDUCATION),
+            Map.entry("certifications", Section.EDUCATION),
+            Map.entry("certificates", Section.EDUCATION),
+            Map.entry("training", Section.EDUCATION),
+            Map.entry("schooling", Section.EDUCATION),
+            Map.entry("skills", Section.SKILLS),
+            Map.entry("technical skills", Section.SKILLS),
+            Map.entry("key skills", Section.SKILLS),
+            Map.entry("core skills", Section.SKILLS),
+            Map.entry("competencies", Section.SKILLS),
+            Map.entry("core competencies", Section.SKILLS),
+            Map.entry("technologies", Section.SKILLS),
+            Map.entry("summary", Section.SUMMARY),
+            Map.entry("professional summary", Section.SUMMARY),
+            Map.entry("profile", Section.SUMMARY),
+            Map.entry("about me", Section.SUMMARY),
+            Map.entry("objective", Section.SUMMARY),
+            Map.entry("projects", Section.PROJECTS),
+            Map.entry("key projects", Section.PROJECTS),
+            Map.entry("achievements", Section.ACHIEVEMENTS),
+            Map.entry("awards", Section.ACHIEVEMENTS),
+            Map.entry("languages", Section.LANGUAGES),
+            Map.entry("references", Section.REFERENCES),
+            Map.entry("interests", Section.INTERESTS),
+            Map.entry("hobbies", Section.INTERESTS)
+    );
+
+    private static final String[] EDUCATION_KEYWORDS = {
+            "bachelor", "master", "phd", "ph.d", "doctorate", "diploma", "degree",
+            "university", "college", "institute", "academy"
+    };
+
+    private CvSectionSegmenter() {
+    }
+
+    /**
+     * Sections of a CV. Text before the first recognised heading belongs to {@link #HEADER}.
+     */
+    public enum Section {
+        HEADER,
+        SUMMARY,
+        EXPERIENCE,
+        EDUCATION,
+        SKILLS,
+        PROJECTS,
+        ACHIEVEMENTS,
+        LANGUAGES,
+        REFERENCES,
+        INTERESTS
+    }
+
+    /**
+     * Segment CV text and derive the experience summary, the education summary and the stated years of
+     * experience from the same pass.
+     *
+     * @param text The extracted CV text.
+     * @return The sections and the details derived from them.
+     */
+    public static CvSections segment(final String text) {
+        if (text == null || text.isBlank()) {
+            return new CvSections(Map.of(), EXPERIENCE_NOT_FOUND, EDUCATION_NOT_FOUND, null);
+        }
+
+        final Map<Section, StringBuilder> sections = new EnumMap<>(Section.class);
+        final StringBuilder educationLines = new StringBuilder();
+        Section current = Section.HEADER;
+        Integer years = null;
+
+        int start = 0;
+        while (start <= text.length()) {
+            final int newline = text.indexOf('\n', start);
+            final int end = newline < 0 ? text.length() : newline;
+            final String line = text.substring(start, end).strip();
+            start = end + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            final String lowerLine = line.toLowerCase(Locale.ROOT);
+            if (years == null) {
+                years = findYearsOfExperience(lowerLine);
+            }
+
+            String content = line;
+            final int colon = line.indexOf(':');
+            final Section heading = colon > 0 && colon <= MAX_HEADING_LENGTH
+                    ? headingOf(lowerLine, colon)
+                    : headingOf(lowerLine, lowerLine.length());
+            if (heading != null) {
+                current = heading;
+                content = colon > 0 && colon <= MAX_HEADING_LENGTH ? line.substring(colon + 1).strip() : "";
+            }
+            if (!content.isEmpty()) {
+                append(sections.computeIfAbsent(current, section -> new StringBuilder()), content, '\n');
+                if (current != Section.EDUCATION && containsEducationKeyword(lowerLine)) {
+                    append(educationLines, content, ';');
+                }
+            }
+        }
+
+        final Map<Section, String> sectionTexts = new EnumMap<>(Section.class);
+        sections.forEach((section, builder) -> sectionTexts.put(section, builder.toString()));
+
+        final String experienceSection = sectionTexts.get(Section.EXPERIENCE);
+        final String experience = experienceSection == null ? EXPERIENCE_NOT_FOUND : truncate(experienceSection);
+
+        final String educationSection = sectionTexts.get(Section.EDUCATION);
+        final String education;
+        if (educationSection != null && educationSection.length() > MIN_EDUCATION_SECTION_LENGTH) {
+            education = truncate(educationSection);
+        } else if (!educationLines.isEmpty()) {
+            education = truncate(educationLines.toString());
+        } else {
+            education = EDUCATION_NOT_FOUND;
+        }
+
+        return new CvSections(Collections.unmodifiableMap(sectionTexts), experience, education, years);
+    }
+
+    /**
+     * Resolve a line, or the part of it before a colon, to a section heading. Headings are short, so longer
+     * lines are rejected before any lookup.
+     */
+    private static Section headingOf(final String lowerLine, final int end) {
+        if (end > MAX_HEADING_LENGTH) {
+            return null;
+        }
+
+        final StringBuilder normalized = new StringBuilder(end);
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < end; i++) {
+            final char c = lowerLine.charAt(i);
+            if (Character.isLetter(c)) {
+                if (!inWord) {
+                    if (words > 0) {
+                        normalized.append(' ');
+                    }
+                    words++;
+                    inWord = true;
+                }
+                normalized.append(c);
+            } else if (c == '&') {
+                inWord = false;
+                normalized.append(" and");
+            } else {
+                inWord = false;
+            }
+        }
+
+        return words == 0 || words > MAX_HEADING_WORDS ? null : HEADINGS.get(normalized.toString());
+    }
+
+    /**
+     * Find "N years of experience", "N+ years experience" or "N years work" in a lower-cased line. Every digit
+     * run is inspected once and the text after it is matched without backtracking.
+     */
+    private static Integer findYearsOfExperience(final String lowerLine) {
+        int i = 0;
+        while (i < lowerLine.length()) {
+            if (!Character.isDigit(lowerLine.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            final int numberStart = i;
+            while (i < lowerLine.length() && Character.isDigit(lowerLine.charAt(i))) {
+                i++;
+            }
+            final int numberEnd = i;
+
+            int j = numberEnd;
+            if (j < lowerLine.length() && lowerLine.charAt(j) == '+') {
+                j++;
+            }
+            j = skipWhitespace(lowerLine, j);
+            if (!lowerLine.startsWith("year", j)) {
+                continue;
+            }
+            j += "year".length();
+            if (j < lowerLine.length() && lowerLine.charAt(j) == 's') {
+                j++;
+            }
+            j = skipWhitespace(lowerLine, j);
+            if (lowerLine.startsWith("of", j)) {
+                j = skipWhitespace(lowerLine, j + "of".length());
+            }
+            if (lowerLine.startsWith("experience", j) || lowerLine.startsWith("work", j)) {
+                try {
+                    return Integer.parseInt(lowerLine, numberStart, numberEnd, 10);
+                } catch (final NumberFormatException e) {
+                    // Too many digits to be a number of years, keep looking.
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int skipWhitespace(final String text, final int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean containsEducationKeyword(final String lowerLine) {
+        for (final String keyword : EDUCATION_KEYWORDS) {
+            if (lowerLine.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void append(final StringBuilder builder, final String content, final char separator) {
+        if (!builder.isEmpty()) {
+            builder.append(separator);
+            if (separator != '\n') {
+                builder.append(' ');
+            }
+        }
+        builder.append(content);
+    }
+
+    private static String truncate(final String text) {
+        final String trimmed = text.strip();
+        return trimmed.length() > MAX_SUMMARY_LENGTH ? trimmed.substring(0, MAX_SUMMARY_LENGTH) : trimmed;
+    }
+
+    /**
+     * Result of segmenting a CV.
+     *
+     * @param sections          The text of every section found, in document order within each section.
+     * @param experience        The experience section, at most 1000 characters.
+     * @param education         The education section, or the lines mentioning degrees and institutions.
+     * @param yearsOfExperience The first stated number of years of experience, or {@code null}.
+     */
+    public record CvSections(Map<Section, String> sections, String experience, String education,
+                             Integer yearsOfExperience) {
+    }
+}
@@ -0,0 +1,63 @@
+package ie.com.rag.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+public final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    /**
+     * Hash raw content, such as a memory-mapped upload, without copying it onto the heap.
+     *
+     * @param content The content to hash; its position is moved to its limit.
+     * @return Lower-case hex SHA-256 digest.
+     */
+    public static String sha256(final ByteBuffer content) {
+        final MessageDigest digest = newDigest();
+        digest.update(content);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash extracted text after normalizing case and whitespace, so copies of the same CV that were re-saved,
+     * re-exported or re-wrapped produce the same digest.
+     *
+     * @param text The extracted text.
+     * @return Lower-case hex SHA-256 digest of the normalized text.
+     */
+    public static String sha256OfNormalizedText(final String text) {
+        final String normalized = text == null
+                ? ""
+                : text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+        final MessageDigest digest = newDigest();
+        return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Hash a chunk of text for reusing its embedding. Only whitespace runs are collapsed: case and punctuation
+     * change what an embedding model sees, so texts differing in them must not share a vector.
+     *
+     * @param text The chunk text.
+     * @return Lower-case hex SHA-256 digest of the text with collapsed whitespace.
+     */
+    public static String sha256OfChunkText(final String text) {
+        final String collapsed = text == null ? "" : text.replaceAll("\\s+", " ").trim();
+        final MessageDigest digest = newDigest();
+        return HexFormat.of().formatHex(digest.digest(collapsed.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -3,27 +3,20 @@ package ie.com.rag.utils;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
-@Slf4j
+/**
+ * Reads the skills dictionary format: a JSON document with the {@code skills} and their categories, and the
+ * preferred {@code capitalization} of skill names. Loading a document compiles it into a {@link SkillsDictionary}
+ * versioned by the SHA-256 of its bytes, so the version changes whenever the dictionary does.
+ */
 public final class SkillDatabaseLoader {
 
     private static final String SKILLS_FILE = "/skills.json";
-    private static final List<SkillEntry> ENTRIES;
-    private static final Map<String, String> CAPITALIZATION_MAP;
-
-    static {
-        final SkillsFile file = loadSkillsFile();
-        ENTRIES = file != null ? List.copyOf(file.getSkills()) : List.of();
-        CAPITALIZATION_MAP = file != null ? buildCapitalizationMap(file.getCapitalization()) : Map.of();
-    }
 
     private SkillDatabaseLoader() {
         throw new UnsupportedOperationException("This class should never be instantiated");
@@ -38,73 +31,33 @@ public final class SkillDatabaseLoader {
         SOFT_SKILL
     }
 
-    public static List<SkillEntry> getEntries() {
-        return ENTRIES;
-    }
-
-    public static Set<String> getAllSkills() {
-        return ENTRIES.stream()
-                .map(SkillEntry::getSkillName)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    public static Set<String> getSkillsByCategory(final SkillCategory category) {
-        return ENTRIES.stream()
-                .filter(e -> e.getCategory() == category)
-                .map(SkillEntry::getSkillName)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    public static Set<String> getTechnicalSkills() {
-        return getSkillsByCategory(SkillCategory.TECHNICAL);
-    }
-
-    public static Set<String> getFrameworks() {
-        return getSkillsByCategory(SkillCategory.FRAMEWORK);
-    }
-
-    public static Set<String> getDatabases() {
-        return getSkillsByCategory(SkillCategory.DATABASE);
-    }
-
-    public static Set<String> getCloudPlatforms() {
-        return getSkillsByCategory(SkillCategory.CLOUD_PLATFORM);
-    }
-
-    public static Set<String> getMethodologies() {
-        return getSkillsByCategory(SkillCategory.METHODOLOGY);
-    }
-
-    public static Set<String> getSoftSkills() {
-        return getSkillsByCategory(SkillCategory.SOFT_SKILL);
-    }
-
-    public static String getProperCapitalization(final String skill) {
-        if (skill == null || skill.isBlank()) {
-            return null;
-        }
-        return CAPITALIZATION_MAP.get(skill.toLowerCase());
-    }
-
-    private static SkillsFile loadSkillsFile() {
+    /**
+     * @return the skills.json bundled with the application
+     * @throws IOException if it is missing or cannot be read
+     */
+    public static byte[] readBundled() throws IOException {
         try (InputStream is = SkillDatabaseLoader.class.getResourceAsStream(SKILLS_FILE)) {
             if (is == null) {
-                log.error("[SkillDatabaseLoader] - INIT: skills.json not found in classpath");
-                return null;
+                throw new IOException("skills.json not found in classpath");
             }
-            return new ObjectMapper().readValue(is, SkillsFile.class);
-        } catch (final IOException e) {
-            log.error("[SkillDatabaseLoader] - INIT: Failed to load skills.json: {}", e.getMessage());
-            return null;
+            return is.readAllBytes();
         }
     }
 
-    private static Map<String, String> buildCapitalizationMap(final List<CapitalizationEntry> entries) {
-        if (entries == null) {
-            return Map.of();
+    /**
+     * Parse and compile a skills dictionary.
+     *
+     * @param content the skills JSON document
+     * @return the compiled dictionary
+     * @throws IOException if the document is not a valid skills dictionary
+     */
+    public static SkillsDictionary load(final byte[] content) throws IOException {
+        final SkillsFile file = new ObjectMapper().readValue(content, SkillsFile.class);
+        if (file == null || file.getSkills() == null) {
+            throw new IOException("skills dictionary has no skills");
         }
-        return entries.stream()
-                .collect(Collectors.toUnmodifiableMap(CapitalizationEntry::getLower, CapitalizationEntry::getProper));
+        return SkillsDictionary.compile(HashUtils.sha256(ByteBuffer.wrap(content)), file.getSkills(),
+                file.getCapitalization());
     }
 
     public static final class SkillEntry {
@@ -0,0 +1,218 @@
+package ie.com.rag.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Finds every dictionary skill in a text in one pass, whatever the size of the dictionary, using an
+ * Aho–Corasick automaton compiled once from the skills. Matching ignores case and only accepts whole words:
+ * "java" is found in "Java, Spring" but not in "JavaScript".
+ * <p>
+ * A compiled matcher is immutable and safe to share between threads.
+ */
+public final class SkillMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NO_STATE = -1;
+
+    private final String[] skills;
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] skillAt;
+    private final int[] outputLink;
+
+    private SkillMatcher(final String[] skills, final char[][] edgeChars, final int[][] edgeTargets,
+                         final int[] fail, final int[] skillAt, final int[] outputLink) {
+        this.skills = skills;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.skillAt = skillAt;
+        this.outputLink = outputLink;
+    }
+
+    /**
+     * Compile a matcher for a set of skills. Skills are trimmed and lower-cased; blank ones are ignored.
+     *
+     * @param dictionary The skills to look for.
+     * @return The compiled matcher.
+     */
+    public static SkillMatcher compile(final Collection<String> dictionary) {
+        final Set<String> unique = new LinkedHashSet<>();
+        for (final String skill : dictionary) {
+            if (skill != null && !skill.isBlank()) {
+                unique.add(lowerCase(skill.trim()));
+            }
+        }
+        final String[] skills = unique.toArray(String[]::new);
+
+        // Build the trie with sorted transitions, then freeze it into arrays.
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        final List<Integer> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(NO_STATE);
+        for (int index = 0; index < skills.length; index++) {
+            int state = ROOT;
+            for (int i = 0; i < skills[index].length(); i++) {
+                final char c = skills[index].charAt(i);
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminal.add(NO_STATE);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            terminal.set(state, index);
+        }
+
+        final int states = trie.size();
+        final char[][] edgeChars = new char[states][];
+        final int[][] edgeTargets = new int[states][];
+        final int[] skillAt = new int[states];
+        for (int state = 0; state < states; state++) {
+            final TreeMap<Character, Integer> edges = trie.get(state);
+            edgeChars[state] = new char[edges.size()];
+            edgeTargets[state] = new int[edges.size()];
+            int e = 0;
+            for (final var edge : edges.entrySet()) {
+                edgeChars[state][e] = edge.getKey();
+                edgeTargets[state][e] = edge.getValue();
+                e++;
+            }
+            skillAt[state] = terminal.get(state);
+        }
+
+        // Breadth-first, so the failure state of every state is resolved before its children need it.
+        final int[] fail = new int[states];
+        final int[] outputLink = new int[states];
+        Arrays.fill(outputLink, NO_STATE);
+        final Queue<Integer> queue = new ArrayDeque<>();
+        for (final int child : edgeTargets[ROOT]) {
+            fail[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            for (int e = 0; e < edgeChars[state].length; e++) {
+                final char c = edgeChars[state][e];
+                final int child = edgeTargets[state][e];
+                int fallback = fail[state];
+                while (fallback != ROOT && transition(edgeChars, edgeTargets, fallback, c) == NO_STATE) {
+                    fallback = fail[fallback];
+                }
+                final int target = transition(edgeChars, edgeTargets, fallback, c);
+                fail[child] = target == NO_STATE ? ROOT : target;
+                outputLink[child] = skillAt[fail[child]] != NO_STATE ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+
+        return new SkillMatcher(skills, edgeChars, edgeTargets, fail, skillAt, outputLink);
+    }
+
+    /**
+     * Find the dictionary skills that occur in a text as whole words.
+     *
+     * @param text The text to search.
+     * @return The lower-cased skills found, each once, in order of first occurrence.
+     */
+    public Set<String> findAll(final CharSequence text) {
+        if (text == null || text.length() == 0 || skills.length == 0) {
+            return Set.of();
+        }
+
+        final Set<String> found = new LinkedHashSet<>();
+        scan(text, found);
+        return found;
+    }
+
+    /**
+     * Check whether any dictionary skill occurs in a text as a whole word, stopping at the first one.
+     *
+     * @param text The text to search.
+     * @return Whether a skill was found.
+     */
+    public boolean containsAny(final CharSequence text) {
+        return text != null && text.length() > 0 && skills.length > 0 && scan(text, null);
+    }
+
+    /**
+     * Run the automaton over a text, adding every whole-word match to {@code found}, or stopping at the first
+     * one when {@code found} is null.
+     */
+    private boolean scan(final CharSequence text, final Set<String> found) {
+        boolean matched = false;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(edgeChars, edgeTargets, state, c);
+            while (next == NO_STATE && state != ROOT) {
+                state = fail[state];
+                next = transition(edgeChars, edgeTargets, state, c);
+            }
+            state = next == NO_STATE ? ROOT : next;
+
+            for (int output = skillAt[state] != NO_STATE ? state : outputLink[state];
+                 output != NO_STATE;
+                 output = outputLink[output]) {
+                final String skill = skills[skillAt[output]];
+                if (isWholeWord(text, i - skill.length() + 1, i + 1, skill)) {
+                    if (found == null) {
+                        return true;
+                    }
+                    found.add(skill);
+                    matched = true;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @return The number of distinct skills the matcher looks for.
+     */
+    public int size() {
+        return skills.length;
+    }
+
+    private static int transition(final char[][] edgeChars, final int[][] edgeTargets, final int state, final char c) {
+        final int e = Arrays.binarySearch(edgeChars[state], c);
+        return e >= 0 ? edgeTargets[state][e] : NO_STATE;
+    }
+
+    /**
+     * A match is a whole word when it is not glued to letters, digits or underscores on either side, as with
+     * {@code \b}. Skills that start or end with a symbol, such as ".net" or "c++", need no boundary on that side.
+     */
+    private static boolean isWholeWord(final CharSequence text, final int start, final int end, final String skill) {
+        final boolean startBoundary = start == 0 || !isWordChar(skill.charAt(0)) || !isWordChar(text.charAt(start - 1));
+        final boolean endBoundary = end == text.length() || !isWordChar(skill.charAt(skill.length() - 1))
+                || !isWordChar(text.charAt(end));
+        return startBoundary && endBoundary;
+    }
+
+    private static boolean isWordChar(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Lower-case char by char, the same way text is lower-cased while matching, so both always have equal lengths.
+     */
+    private static String lowerCase(final String skill) {
+        final char[] chars = skill.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,181 @@
+package ie.com.rag.utils;
+
+import ie.com.rag.Constants;
+import ie.com.rag.utils.SkillDatabaseLoader.CapitalizationEntry;
+import ie.com.rag.utils.SkillDatabaseLoader.SkillCategory;
+import ie.com.rag.utils.SkillDatabaseLoader.SkillEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, compiled snapshot of the skills dictionary. Everything skill extraction looks up is built once
+ * when the snapshot is compiled: integer skill IDs, a lower-case index, the skills of every category, the
+ * capitalization map, the skill matcher automaton and the technical term classifier. A snapshot is never
+ * modified, so it can be read from any thread without locking; a new dictionary is a new snapshot.
+ */
+public final class SkillsDictionary {
+
+    public static final int UNKNOWN_SKILL = -1;
+
+    private final String version;
+    private final String[] names;
+    private final SkillCategory[] categories;
+    private final Map<String, Integer> idsByLowerName;
+    private final Set<String> allSkills;
+    private final Map<SkillCategory, Set<String>> skillsByCategory;
+    private final Map<String, String> capitalization;
+    private final SkillMatcher matcher;
+    private final TechTermClassifier techTermClassifier;
+
+    private SkillsDictionary(final String version, final String[] names, final SkillCategory[] categories,
+                             final Map<String, Integer> idsByLowerName, final Set<String> allSkills,
+                             final Map<SkillCategory, Set<String>> skillsByCategory,
+                             final Map<String, String> capitalization, final SkillMatcher matcher,
+                             final TechTermClassifier techTermClassifier) {
+        this.version = version;
+        this.names = names;
+        this.categories = categories;
+        this.idsByLowerName = idsByLowerName;
+        this.allSkills = allSkills;
+        this.skillsByCategory = skillsByCategory;
+        this.capitalization = capitalization;
+        this.matcher = matcher;
+        this.techTermClassifier = techTermClassifier;
+    }
+
+    /**
+     * Compile a snapshot. Skills are identified by their lower-case name; the first entry of a name wins.
+     *
+     * @param version        The version of the dictionary, such as the hash of its file.
+     * @param entries        The skills and their categories.
+     * @param capitalization The preferred spelling of lower-case skill names.
+     * @return The compiled snapshot.
+     */
+    public static SkillsDictionary compile(final String version, final List<SkillEntry> entries,
+                                           final List<CapitalizationEntry> capitalization) {
+        final List<String> names = new ArrayList<>(entries.size());
+        final List<SkillCategory> categories = new ArrayList<>(entries.size());
+        final Map<String, Integer> idsByLowerName = new HashMap<>();
+        final Map<SkillCategory, Set<String>> byCategory = new EnumMap<>(SkillCategory.class);
+        final List<String> technicalTerms = new ArrayList<>();
+
+        for (final SkillEntry entry : entries) {
+            final String name = entry.getSkillName() == null ? "" : entry.getSkillName().trim();
+            if (name.isEmpty() || idsByLowerName.putIfAbsent(name.toLowerCase(Locale.ROOT), names.size()) != null) {
+                continue;
+            }
+            names.add(name);
+            categories.add(entry.getCategory());
+            if (entry.getCategory() != null) {
+                byCategory.computeIfAbsent(entry.getCategory(), category -> new LinkedHashSet<>()).add(name);
+                if (Constants.TECHNICAL_CATEGORIES.contains(entry.getCategory())) {
+                    technicalTerms.add(name);
+                }
+            }
+        }
+
+        final Map<SkillCategory, Set<String>> skillsByCategory = new EnumMap<>(SkillCategory.class);
+        for (final SkillCategory category : SkillCategory.values()) {
+            skillsByCategory.put(category, Collections.unmodifiableSet(byCategory.getOrDefault(category, Set.of())));
+        }
+
+        final Map<String, String> capitalizationMap = new HashMap<>();
+        if (capitalization != null) {
+            for (final CapitalizationEntry entry : capitalization) {
+                if (entry.getLower() != null && entry.getProper() != null) {
+                    capitalizationMap.put(entry.getLower().toLowerCase(Locale.ROOT), entry.getProper());
+                }
+            }
+        }
+
+        return new SkillsDictionary(
+                version,
+                names.toArray(String[]::new),
+                categories.toArray(SkillCategory[]::new),
+                Map.copyOf(idsByLowerName),
+                Collections.unmodifiableSet(new LinkedHashSet<>(names)),
+                Collections.unmodifiableMap(skillsByCategory),
+                Map.copyOf(capitalizationMap),
+                SkillMatcher.compile(names),
+                TechTermClassifier.compile(technicalTerms, Constants.TECH_TERMS));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The number of distinct skills.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param skill A skill name in any case, possibly padded.
+     * @return The ID of the skill, or {@link #UNKNOWN_SKILL}.
+     */
+    public int idOf(final String skill) {
+        if (skill == null) {
+            return UNKNOWN_SKILL;
+        }
+        return idsByLowerName.getOrDefault(skill.trim().toLowerCase(Locale.ROOT), UNKNOWN_SKILL);
+    }
+
+    public String nameOf(final int id) {
+        return names[id];
+    }
+
+    public SkillCategory categoryOf(final int id) {
+        return categories[id];
+    }
+
+    public boolean isKnownSkill(final String skill) {
+        return idOf(skill) != UNKNOWN_SKILL;
+    }
+
+    public Set<String> getAllSkills() {
+        return allSkills;
+    }
+
+    public Set<String> getSkillsByCategory(final SkillCategory category) {
+        return skillsByCategory.get(category);
+    }
+
+    /**
+     * @param skill A skill name in any case.
+     * @return The preferred spelling of the skill, or {@code null} if it has none.
+     */
+    public String getProperCapitalization(final String skill) {
+        if (skill == null || skill.isBlank()) {
+            return null;
+        }
+        return capitalization.get(skill.toLowerCase(Locale.ROOT));
+    }
+
+    public int getCapitalizationCount() {
+        return capitalization.size();
+    }
+
+    /**
+     * @return The automaton that finds every skill of this dictionary in a text.
+     */
+    public SkillMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * @return The classifier for the technical categories of this dictionary and the technology vocabulary.
+     */
+    public TechTermClassifier getTechTermClassifier() {
+        return techTermClassifier;
+    }
+}
@@ -0,0 +1,139 @@
+package ie.com.rag.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An upload written to disk exactly once, so parsers read it through a file channel or a memory-mapped view
+ * instead of each taking their own heap copy. Closing it deletes the spool file unless it wraps a file owned by
+ * someone else.
+ */
+@Slf4j
+public final class SpooledUpload implements AutoCloseable {
+
+    private static final String PREFIX = "rag-upload-";
+    private static final String SUFFIX = ".tmp";
+
+    private final Path path;
+    private final long size;
+    private final boolean owned;
+
+    private SpooledUpload(final Path path, final long size, final boolean owned) {
+        this.path = path;
+        this.size = size;
+        this.owned = owned;
+    }
+
+    /**
+     * Spools a multipart upload to a temp file. Uploads the container already keeps on disk are moved rather than
+     * copied.
+     *
+     * @param file the uploaded file
+     * @return the spooled upload
+     * @throws IOException if the file cannot be written
+     */
+    public static SpooledUpload spool(final MultipartFile file) throws IOException {
+        final Path target = Files.createTempFile(PREFIX, SUFFIX);
+        try {
+            // The File overload lets the servlet container move its own temp file instead of copying it.
+            file.transferTo(target.toFile());
+            return new SpooledUpload(target, Files.size(target), true);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Spools a stream to a temp file, stopping once it grows past a size limit.
+     *
+     * @param inputStream the content to spool, left open
+     * @param maxSize     the largest accepted size in bytes
+     * @return the spooled upload
+     * @throws IOException if the stream cannot be read, the file cannot be written or the limit is exceeded
+     */
+    public static SpooledUpload spool(final InputStream inputStream, final long maxSize) throws IOException {
+        final Path target = Files.createTempFile(PREFIX, SUFFIX);
+        try (OutputStream outputStream = Files.newOutputStream(target)) {
+            final byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                total += read;
+                if (total > maxSize) {
+                    throw new IOException("Content exceeds the maximum size of " + maxSize + " bytes");
+                }
+                outputStream.write(buffer, 0, read);
+            }
+            return new SpooledUpload(target, total, true);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps a file that is already on disk; closing the view leaves the file in place.
+     *
+     * @param path the existing file
+     * @return a view of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static SpooledUpload of(final Path path) throws IOException {
+        return new SpooledUpload(path, Files.size(path), false);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Opens a fresh stream over the spooled content; the caller closes it.
+     *
+     * @return a stream positioned at the start of the content
+     * @throws IOException if the file cannot be opened
+     */
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * Maps the spooled content read-only. The mapping lives outside the heap and pages are loaded on demand.
+     *
+     * @return a read-only view of the whole content
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedByteBuffer map() throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to map: " + size + " bytes");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!owned) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            log.warn("[RagWiser/SpooledUpload] - close: could not delete spool file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ie.com.rag.utils;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether a token or phrase is a technical term without a regular expression. A term is technical when
+ * it is one of the technical skills of the dictionary, looked up in a hash set, or when it contains a word of the
+ * technology vocabulary, found by one pass of a compiled {@link SkillMatcher}. Either way the cost is linear in
+ * the length of the term, whatever the size of the vocabulary.
+ * <p>
+ * A compiled classifier is immutable and safe to share between threads.
+ */
+public final class TechTermClassifier {
+
+    private final Set<String> technicalTerms;
+    private final SkillMatcher vocabulary;
+
+    private TechTermClassifier(final Set<String> technicalTerms, final SkillMatcher vocabulary) {
+        this.technicalTerms = technicalTerms;
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * Compile a classifier.
+     *
+     * @param technicalTerms The technical skills of the dictionary, matched as whole terms.
+     * @param vocabulary     The technology words, matched anywhere in a term as whole words.
+     * @return The compiled classifier.
+     */
+    public static TechTermClassifier compile(final Collection<String> technicalTerms, final Collection<String> vocabulary) {
+        final Set<String> terms = technicalTerms.stream()
+                .filter(term -> term != null && !term.isBlank())
+                .map(term -> term.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        return new TechTermClassifier(terms, SkillMatcher.compile(vocabulary));
+    }
+
+    /**
+     * Check whether a term is technical.
+     *
+     * @param term The token or phrase to classify.
+     * @return Whether it is a technical skill or contains a technology word.
+     */
+    public boolean isTechnicalTerm(final String term) {
+        if (term == null || term.isBlank()) {
+            return false;
+        }
+        final String normalized = term.trim().toLowerCase(Locale.ROOT);
+        return technicalTerms.contains(normalized) || vocabulary.containsAny(normalized);
+    }
+
+    /**
+     * Find the technology words that occur in a text.
+     *
+     * @param text The text to search.
+     * @return The lower-cased technology words found, each once, in order of first occurrence.
+     */
+    public Set<String> findVocabulary(final CharSequence text) {
+        return vocabulary.findAll(text);
+    }
+}
@@ -5,34 +5,124 @@ import org.springframework.stereotype.Component;
 @Component
 public class TextUtils {
 
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
     /**
      * Normalize and sanitize text content for PostgreSQL compatibility.
-     * This method removes problematic characters and normalizes whitespace.
+     * Null bytes and other control characters are removed, line endings are normalized, runs of spaces and tabs
+     * become one space, whitespace around line breaks is dropped, more than two line breaks become two, and the
+     * result is trimmed. Works in one pass over a char array; text that is already clean is returned as is.
      *
      * @param content The text content to sanitize.
      * @return Sanitized text content.
      */
-
-    public static String sanitizeTextContent(String content) {
+    public static String sanitizeTextContent(final String content) {
         if (content == null) {
             return "";
         }
+        if (isSanitized(content)) {
+            return content;
+        }
 
-        // Remove null bytes (0x00) which cause PostgreSQL UTF-8 encoding issues
-        content = content.replace("\u0000", "");
+        final int length = content.length();
+        final char[] output = new char[length];
+        int size = 0;
+        boolean pendingSpace = false;
+        int pendingNewlines = 0;
 
-        // Remove other problematic control characters but keep useful whitespace
-        content = content.replaceAll("[\u0001-\u0008\u000B\u000C\u000E-\u001F\u007F]", "");
+        for (int i = 0; i < length; i++) {
+            final char c = content.charAt(i);
+            if (c == '\r') {
+                pendingNewlines++;
+                // A CR followed by LF is one line break, even with removed control characters in between.
+                i = skipRemovedControls(content, i + 1);
+                if (i >= length || content.charAt(i) != '\n') {
+                    i--;
+                }
+            } else if (c == '\n') {
+                pendingNewlines++;
+            } else if (c == ' ' || c == '\t') {
+                pendingSpace = true;
+            } else if (!isRemovedControl(c)) {
+                if (size > 0) {
+                    if (pendingNewlines > 0) {
+                        output[size++] = '\n';
+                        if (pendingNewlines > 1) {
+                            output[size++] = '\n';
+                        }
+                    } else if (pendingSpace) {
+                        output[size++] = ' ';
+                    }
+                }
+                pendingSpace = false;
+                pendingNewlines = 0;
+                output[size++] = c;
+            }
+        }
+
+        return new String(output, 0, size);
+    }
 
-        // Normalize line endings
-        content = content.replaceAll("\r\n", "\n").replaceAll("\r", "\n");
+    /**
+     * Shorten an error message to what is stored with a failed upload or job.
+     *
+     * @param message the message of the error, possibly null
+     * @return the message cut at 1000 characters, or "Unknown error" when there is none
+     */
+    public static String truncateErrorMessage(final String message) {
+        if (message == null) {
+            return "Unknown error";
+        }
+        return message.length() > MAX_ERROR_MESSAGE_LENGTH ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH) : message;
+    }
 
-        // Remove excessive whitespace but preserve paragraph structure
-        content = content.replaceAll("[ \t]+", " "); // Multiple spaces/tabs to single space
-        content = content.replaceAll("\n[ \t]+", "\n"); // Remove leading whitespace on lines
-        content = content.replaceAll("[ \t]+\n", "\n"); // Remove trailing whitespace on lines
-        content = content.replaceAll("\n{3,}", "\n\n"); // Multiple newlines to double newlines
+    /**
+     * Check that text would come out of {@link #sanitizeTextContent(String)} unchanged, without allocating.
+     */
+    private static boolean isSanitized(final String content) {
+        final int length = content.length();
+        if (length == 0) {
+            return true;
+        }
+        if (isWhitespace(content.charAt(0)) || isWhitespace(content.charAt(length - 1))) {
+            return false;
+        }
+
+        char previous = 0;
+        int newlines = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = content.charAt(i);
+            if (c == '\r' || c == '\t' || isRemovedControl(c)) {
+                return false;
+            }
+            if (c == ' ' && (previous == ' ' || previous == '\n')) {
+                return false;
+            }
+            if (c == '\n') {
+                if (previous == ' ' || ++newlines > 2) {
+                    return false;
+                }
+            } else {
+                newlines = 0;
+            }
+            previous = c;
+        }
+        return true;
+    }
+
+    private static int skipRemovedControls(final String content, final int from) {
+        int i = from;
+        while (i < content.length() && isRemovedControl(content.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isRemovedControl(final char c) {
+        return c <= '\u0008' || c == '\u000B' || c == '\u000C' || (c >= '\u000E' && c <= '\u001F') || c == '\u007F';
+    }
 
-        return content.trim();
+    private static boolean isWhitespace(final char c) {
+        return c <= ' ';
     }
 }
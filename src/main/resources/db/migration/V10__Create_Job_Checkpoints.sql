@@ -0,0 +1,16 @@
+-- Progress of long-running background jobs, one row per job.
+-- A stopped, failed or interrupted job resumes from last_key within its current phase.
+
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name VARCHAR(100) PRIMARY KEY,
+    run_id VARCHAR(36) NOT NULL,
+    phase VARCHAR(50),
+    last_key VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    processed BIGINT NOT NULL DEFAULT 0,
+    failed BIGINT NOT NULL DEFAULT 0,
+    error_message TEXT,
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
@@ -0,0 +1,11 @@
+-- Skills extracted from CV text, keyed by the normalized text hash and the version of the skills dictionary
+-- and extraction logic, so the same text is never run through NLP twice. Rows of older versions are never read
+-- again and can be deleted at any time.
+
+CREATE TABLE IF NOT EXISTS skill_extraction_cache (
+    cache_key VARCHAR(160) PRIMARY KEY,
+    text_hash VARCHAR(64) NOT NULL,
+    extraction_version VARCHAR(80) NOT NULL,
+    skills TEXT[] NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,17 @@
+-- Chunks of a CV are stored with metadata.candidateId, so re-embedding finds them by candidate rather than by
+-- file name, which many CVs share ("CV.pdf").
+-- Chunks written before this migration are keyed here: by file name when it belongs to a single candidate,
+-- otherwise by the candidate whose CV contains the chunk text. Chunks matching no candidate stay unkeyed and are
+-- treated like any other document.
+
+UPDATE vector_store v
+SET metadata = (v.metadata::jsonb || jsonb_build_object('candidateId', c.id))::json
+FROM candidates c
+WHERE v.metadata->>'candidateId' IS NULL
+  AND c.original_file_name = v.metadata->>'filename'
+  AND (
+      (SELECT count(*) FROM candidates d WHERE d.original_file_name = c.original_file_name) = 1
+      OR strpos(c.cv_content, v.content) > 0
+  );
+
+CREATE INDEX IF NOT EXISTS idx_vector_store_candidate_id ON vector_store ((metadata->>'candidateId'));
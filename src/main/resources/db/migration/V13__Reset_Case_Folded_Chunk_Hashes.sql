@@ -0,0 +1,7 @@
+-- metadata.chunkHash is now the SHA-256 of the exact chunk text with collapsed whitespace. Hashes written before
+-- this migration were taken over lower-cased text and would hand the vector of one text to another that only
+-- differs in case, so they are removed. Those chunks are never reused, like chunks written before V9.
+
+UPDATE vector_store
+SET metadata = (metadata::jsonb - 'chunkHash')::json
+WHERE metadata->>'chunkHash' IS NOT NULL;
@@ -0,0 +1,4 @@
+-- Uploads that failed for a reason that may go away are queued again with a growing delay.
+-- A queued row is only claimed once its next_attempt_at has passed; new uploads have none.
+
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
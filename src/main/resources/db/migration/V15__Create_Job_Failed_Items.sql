@@ -0,0 +1,10 @@
+-- Items a background job could not process, kept for a retry pass at the end of the run.
+-- A row belongs to the run that recorded it; rows of earlier runs are cleared when a new run starts.
+
+CREATE TABLE IF NOT EXISTS job_failed_items (
+    job_name VARCHAR(100) NOT NULL,
+    item_key VARCHAR(255) NOT NULL,
+    run_id VARCHAR(36) NOT NULL,
+    failed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (job_name, item_key)
+);
@@ -0,0 +1,5 @@
+-- Uploads are only deduplicated against candidates whose chunks are all stored.
+-- A candidate is saved unindexed and marked indexed once its CV has been embedded; rows created before this
+-- migration were indexed within the upload request and count as indexed.
+
+ALTER TABLE candidates ADD COLUMN IF NOT EXISTS indexed BOOLEAN NOT NULL DEFAULT TRUE;
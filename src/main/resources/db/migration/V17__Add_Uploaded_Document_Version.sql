@@ -0,0 +1,5 @@
+-- Optimistic locking for queued uploads.
+-- A worker only records the outcome of an upload while the row still has the version it claimed; requeueing an
+-- abandoned upload bumps the version, so a worker that was only slow gives up instead of overwriting the new claim.
+
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- Records who queued an upload, so only they can read its status.
+-- Uploads queued before this column existed have no owner and are reported as missing to everyone.
+
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS uploaded_by VARCHAR(255);
+
+COMMENT ON COLUMN uploaded_documents.uploaded_by IS 'Username of the user who queued the upload';
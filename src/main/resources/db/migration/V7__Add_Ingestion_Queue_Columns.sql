@@ -0,0 +1,16 @@
+-- Columns used by the asynchronous ingestion queue on uploaded_documents.
+-- The queued row carries the candidate details until a worker registers the candidate.
+
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS candidate_name VARCHAR(255);
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS candidate_email VARCHAR(255);
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS candidate_phone VARCHAR(50);
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS candidate_id VARCHAR(36);
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP;
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS error_message TEXT;
+
+-- Workers only ever scan queued rows oldest first, so a partial index keeps claims cheap
+-- however many processed rows accumulate.
+CREATE INDEX IF NOT EXISTS idx_uploaded_documents_queued
+    ON uploaded_documents (uploaded_at)
+    WHERE status = 'QUEUED';
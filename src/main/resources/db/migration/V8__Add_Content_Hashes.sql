@@ -0,0 +1,12 @@
+-- Content hashes used to recognise CVs that were already uploaded.
+-- file_hash / content_hash: SHA-256 of the raw upload bytes.
+-- text_hash: SHA-256 of the normalized extracted text, so re-saved or re-exported copies of the same CV match too.
+-- Rows created before this migration keep NULL hashes and are not deduplicated against.
+
+ALTER TABLE uploaded_documents ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_uploaded_documents_content_hash ON uploaded_documents (content_hash);
+
+ALTER TABLE candidates ADD COLUMN IF NOT EXISTS file_hash VARCHAR(64);
+ALTER TABLE candidates ADD COLUMN IF NOT EXISTS text_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_candidates_file_hash ON candidates (file_hash);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_candidates_text_hash ON candidates (text_hash);
@@ -0,0 +1,5 @@
+-- Chunks are stored with metadata.chunkHash, the SHA-256 of their normalized text.
+-- Ingestion looks hashes up to reuse an existing vector instead of embedding the same text again.
+-- Chunks written before this migration have no hash and are never reused.
+
+CREATE INDEX IF NOT EXISTS idx_vector_store_chunk_hash ON vector_store ((metadata->>'chunkHash'));
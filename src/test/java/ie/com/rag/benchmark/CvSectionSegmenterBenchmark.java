@@ -0,0 +1,93 @@
+package ie.com.rag.benchmark;
+
+import ie.com.rag.utils.CvSectionSegmenter;
+import ie.com.rag.utils.CvSectionSegmenter.CvSections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Segmenter throughput on a structured CV and on inputs that made the previous DOTALL and
+ * {@code [a-zA-Z\s,]+} patterns backtrack: an unclosed section header followed by a long run of letters,
+ * commas and spaces, and long digit runs that look like "N years". Time should grow linearly with {@code size}.
+ * Run with {@code java -cp target/test-classes:<test classpath> ie.com.rag.benchmark.CvSectionSegmenterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CvSectionSegmenterBenchmark {
+
+    private static final String CV_TEMPLATE = """
+            Jane Doe
+            jane@example.com
+
+            SUMMARY
+            Backend engineer with 7+ years of experience building data platforms.
+
+            Work Experience:
+            Acme Corp - Senior Developer (2019 - 2024)
+            Built Kafka pipelines and PostgreSQL reporting services.
+
+            Education
+            BSc in Computer Science, University College Dublin
+
+            Skills: Java, Kafka, PostgreSQL, Kubernetes
+            """;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private String structuredCv;
+    private String unclosedSection;
+    private String digitRuns;
+
+    @Setup
+    public void setUp() {
+        structuredCv = repeat(CV_TEMPLATE, size);
+        unclosedSection = "Experience " + repeat("Lorem ipsum, dolor sit amet ", size) + " university";
+        digitRuns = repeat("1234567890 9 9 9 year ", size);
+    }
+
+    @Benchmark
+    public CvSections structuredCv() {
+        return CvSectionSegmenter.segment(structuredCv);
+    }
+
+    @Benchmark
+    public CvSections unclosedSection() {
+        return CvSectionSegmenter.segment(unclosedSection);
+    }
+
+    @Benchmark
+    public CvSections digitRuns() {
+        return CvSectionSegmenter.segment(digitRuns);
+    }
+
+    private static String repeat(final String unit, final int length) {
+        final StringBuilder text = new StringBuilder(length + unit.length());
+        while (text.length() < length) {
+            text.append(unit);
+        }
+        return text.substring(0, length);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CvSectionSegmenterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package ie.com.rag.benchmark;
+
+import ie.com.rag.utils.LegacyTextSanitizer;
+import ie.com.rag.utils.TextUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-pass {@link TextUtils#sanitizeTextContent(String)} against the regex implementation it replaced, on
+ * freshly extracted text and on text that is already clean, as when a sanitized CV is sanitized again on save.
+ * Run with {@code java -cp target/test-classes:<test classpath> ie.com.rag.benchmark.TextSanitizerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextSanitizerBenchmark {
+
+    private static final String EXTRACTED_PAGE = "  Jane Doe \t Senior Developer\r\n\r\n\r\n"
+            + "Experience:\u0000  Acme Corp   (2019 - 2024)\r\n  Built Kafka pipelines \t and reporting.\u000C\r\n\r\n";
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private String extracted;
+    private String clean;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder text = new StringBuilder(size + EXTRACTED_PAGE.length());
+        while (text.length() < size) {
+            text.append(EXTRACTED_PAGE);
+        }
+        extracted = text.substring(0, size);
+        clean = TextUtils.sanitizeTextContent(extracted);
+    }
+
+    @Benchmark
+    public String legacyExtracted() {
+        return LegacyTextSanitizer.sanitize(extracted);
+    }
+
+    @Benchmark
+    public String singlePassExtracted() {
+        return TextUtils.sanitizeTextContent(extracted);
+    }
+
+    @Benchmark
+    public String legacyClean() {
+        return LegacyTextSanitizer.sanitize(clean);
+    }
+
+    @Benchmark
+    public String singlePassClean() {
+        return TextUtils.sanitizeTextContent(clean);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TextSanitizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
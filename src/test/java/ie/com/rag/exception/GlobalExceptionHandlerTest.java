@@ -3,6 +3,7 @@ package ie.com.rag.exception;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -13,6 +14,8 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -150,6 +153,89 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getMessage()).isEqualTo("Authentication failed");
     }
 
+    @Test
+    void handleJobStateException_returns409WithMessage() {
+        // Arrange
+        JobStateException ex = new JobStateException("Re-embedding is already running");
+        WebRequest request = mockRequest("/api/admin/jobs/reembedding/start");
+
+        // Act
+        ResponseEntity<ErrorResponse> response = handler.handleJobStateException(ex, request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(409);
+        assertThat(response.getBody().getMessage()).isEqualTo("Re-embedding is already running");
+    }
+
+    @Test
+    void handleIngestionOverloadedException_queueFull_returns429WithRetryAfter() {
+        // Arrange
+        IngestionOverloadedException ex = new IngestionOverloadedException("Too many documents are waiting",
+                true, Duration.ofMillis(1500));
+        WebRequest request = mockRequest("/api/rag/upload");
+
+        // Act
+        ResponseEntity<ErrorResponse> response = handler.handleIngestionOverloadedException(ex, request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(429);
+        assertThat(response.getBody().getMessage()).isEqualTo("Too many documents are waiting");
+    }
+
+    @Test
+    void handleIngestionOverloadedException_waitTimedOut_returns503WithRetryAfter() {
+        // Arrange
+        IngestionOverloadedException ex = new IngestionOverloadedException("Document processing is at capacity",
+                false, Duration.ofSeconds(30));
+        WebRequest request = mockRequest("/api/rag/upload");
+
+        // Act
+        ResponseEntity<ErrorResponse> response = handler.handleIngestionOverloadedException(ex, request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(503);
+    }
+
+    @Test
+    void handleIndexingFailedException_returns503() {
+        // Arrange
+        IndexingFailedException ex = new IndexingFailedException("The CV could not be indexed and was not saved");
+        WebRequest request = mockRequest("/api/rag/upload");
+
+        // Act
+        ResponseEntity<ErrorResponse> response = handler.handleIndexingFailedException(ex, request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(503);
+        assertThat(response.getBody().getMessage()).isEqualTo("The CV could not be indexed and was not saved");
+    }
+
+    @Test
+    void handleIndexingInProgressException_returns409() {
+        // Arrange
+        IndexingInProgressException ex = new IndexingInProgressException("The same CV is still being indexed");
+        WebRequest request = mockRequest("/api/rag/upload");
+
+        // Act
+        ResponseEntity<ErrorResponse> response = handler.handleIndexingInProgressException(ex, request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(409);
+        assertThat(response.getBody().getMessage()).isEqualTo("The same CV is still being indexed");
+    }
+
     @Test
     void handleGlobalException_returns500() {
         // Arrange
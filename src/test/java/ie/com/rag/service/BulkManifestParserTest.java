@@ -0,0 +1,82 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.service.BulkManifestParser.ManifestEntry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkManifestParserTest {
+
+    private final BulkManifestParser parser = new BulkManifestParser(new ObjectMapper());
+
+    @Test
+    void parse_csvWithQuotedFields_readsEveryColumn() {
+        // Arrange
+        String csv = "filename,name,email,phone\r\n"
+                + "cvs/jane.pdf,\"Doe, Jane\",jane@example.com,+353 1 234\r\n"
+                + "john.docx,John Smith,john@example.com,\n";
+
+        // Act
+        Map<String, ManifestEntry> manifest = parse(csv, "manifest.csv", "text/csv");
+
+        // Assert
+        assertThat(manifest).hasSize(2);
+        assertThat(manifest.get("cvs/jane.pdf"))
+                .isEqualTo(new ManifestEntry("cvs/jane.pdf", "Doe, Jane", "jane@example.com", "+353 1 234"));
+        assertThat(manifest.get("john.docx").phone()).isNull();
+    }
+
+    @Test
+    void parse_json_readsEntries() {
+        // Arrange
+        String json = "[{\"filename\":\"jane.pdf\",\"name\":\"Jane\",\"email\":\"jane@example.com\"}]";
+
+        // Act
+        Map<String, ManifestEntry> manifest = parse(json, "manifest.json", null);
+
+        // Assert
+        assertThat(manifest.get("jane.pdf").email()).isEqualTo("jane@example.com");
+    }
+
+    @Test
+    void parse_csvWithoutEmailColumn_throwsException() {
+        // Act & Assert
+        assertThatThrownBy(() -> parse("filename,name\njane.pdf,Jane\n", "manifest.csv", "text/csv"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("email");
+    }
+
+    @Test
+    void parse_duplicateFilename_throwsException() {
+        // Arrange
+        String csv = "filename,name,email\njane.pdf,Jane,a@example.com\njane.pdf,Jane,b@example.com\n";
+
+        // Act & Assert
+        assertThatThrownBy(() -> parse(csv, "manifest.csv", "text/csv"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("jane.pdf");
+    }
+
+    @Test
+    void lookup_archivePath_fallsBackToBaseName() {
+        // Arrange
+        Map<String, ManifestEntry> manifest = parse("filename,name,email\njane.pdf,Jane,jane@example.com\n",
+                "manifest.csv", "text/csv");
+
+        // Act
+        ManifestEntry entry = parser.lookup(manifest, "agency/batch-1/jane.pdf");
+
+        // Assert
+        assertThat(entry).isNotNull();
+        assertThat(entry.name()).isEqualTo("Jane");
+    }
+
+    private Map<String, ManifestEntry> parse(final String content, final String filename, final String contentType) {
+        return parser.parse(content.getBytes(StandardCharsets.UTF_8), filename, contentType);
+    }
+}
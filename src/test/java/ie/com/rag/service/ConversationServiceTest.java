@@ -0,0 +1,191 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.config.ConversationSessionProperties;
+import ie.com.rag.config.RetrievalProperties;
+import ie.com.rag.config.RetrievalProperties.RetrievalMode;
+import ie.com.rag.dto.ConversationAnswerDTO;
+import ie.com.rag.exception.ResourceNotFoundException;
+import ie.com.rag.service.ConversationService.RetrievalStrategy;
+import ie.com.rag.service.ConversationSessionStore.Chunk;
+import ie.com.rag.service.ConversationSessionStore.Session;
+import ie.com.rag.service.RetrievalService.RetrievalResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationServiceTest {
+
+    private final ChatModel chatModel = mock(ChatModel.class);
+    private final ConversationSessionProperties sessionProperties = new ConversationSessionProperties(
+            Duration.ofMinutes(30), 100, 3, 60, 0.8, 0.3, 4, false);
+    private final ConversationSessionStore sessionStore = new ConversationSessionStore(
+            sessionProperties, mock(StringRedisTemplate.class), new ObjectMapper());
+    private final RetrievalService retrievalService = mock(RetrievalService.class);
+    private final ConversationService service = new ConversationService(chatModel, retrievalService, sessionStore,
+            mock(DashboardService.class), sessionProperties,
+            new RetrievalProperties(20, 1, 8, 0.3, 0.15, 6000, RetrievalMode.SINGLE, 4, false, 60));
+
+    private static Chunk chunk(final String id, final String content) {
+        return new Chunk(id, content, Map.of());
+    }
+
+    private static Session session(final List<Chunk> chunks) {
+        return new Session("id", "jane", chunks, "", null, 0, Instant.now());
+    }
+
+    @Test
+    void chooseStrategy_followsCoverageThresholds() {
+        // Arrange
+        Session empty = session(List.of());
+        Session withChunks = session(List.of(chunk("1", "Kafka")));
+
+        // Act & Assert
+        assertThat(service.chooseStrategy(empty, 1.0)).isEqualTo(RetrievalStrategy.FULL);
+        assertThat(service.chooseStrategy(withChunks, 0.9)).isEqualTo(RetrievalStrategy.REUSED);
+        assertThat(service.chooseStrategy(withChunks, 0.5)).isEqualTo(RetrievalStrategy.DELTA);
+        assertThat(service.chooseStrategy(withChunks, 0.1)).isEqualTo(RetrievalStrategy.FULL);
+    }
+
+    @Test
+    void keywordCoverage_countsQuestionKeywordsFoundInChunks() {
+        // Arrange
+        List<Chunk> chunks = List.of(chunk("1", "Built Kafka streams in Java"));
+
+        // Act
+        double partial = service.keywordCoverage("Does she know Kafka or Kubernetes?", chunks);
+        double referenceOnly = service.keywordCoverage("What about her?", chunks);
+
+        // Assert
+        assertThat(partial).isCloseTo(1.0 / 3, within(1e-9));
+        assertThat(referenceOnly).isEqualTo(1.0);
+    }
+
+    @Test
+    void mergeChunks_overMaxChunks_keepsMostRecent() {
+        // Arrange
+        List<Chunk> existing = List.of(chunk("1", "a"), chunk("2", "b"));
+        List<Chunk> delta = List.of(chunk("3", "c"), chunk("4", "d"));
+
+        // Act
+        List<Chunk> merged = service.mergeChunks(existing, delta);
+
+        // Assert
+        assertThat(merged).extracting(Chunk::id).containsExactly("2", "3", "4");
+    }
+
+    @Test
+    void rollSummary_overMaxChars_dropsOldestTurns() {
+        // Arrange
+        String summary = service.rollSummary("", "first question", "first answer");
+
+        // Act
+        String rolled = service.rollSummary(summary, "second question", "second answer");
+
+        // Assert
+        assertThat(summary).isEqualTo("Q: first question\nA: first answer\n");
+        assertThat(rolled).isEqualTo("Q: second question\nA: second answer\n");
+    }
+
+    @Test
+    void ask_sessionOfAnotherUser_isNotFound() {
+        // Arrange
+        String sessionId = service.openSession("jane").sessionId();
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.ask(sessionId, "john", "Who knows Kafka?"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+
+    @Test
+    void ask_turnRecordedWhileAnswering_addsToItInsteadOfOverwriting() {
+        // Arrange
+        String sessionId = service.openSession("jane").sessionId();
+        when(retrievalService.retrieve("Who knows Kafka?"))
+                .thenReturn(new RetrievalResult(List.of(new Document("1", "Jane built Kafka streams", Map.of())), 1, 1));
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            // A second turn of the same conversation finishes first.
+            Session current = sessionStore.find(sessionId).orElseThrow();
+            sessionStore.save(new Session(sessionId, "jane", List.of(chunk("2", "John knows Kubernetes")),
+                    "Q: Who knows K8s?\nA: John\n", "Who knows K8s?", current.turn() + 1,
+                    Instant.now()));
+            return new ChatResponse(List.of(new Generation("Jane")));
+        });
+
+        // Act
+        service.ask(sessionId, "jane", "Who knows Kafka?");
+
+        // Assert
+        Session recorded = sessionStore.find(sessionId).orElseThrow();
+        assertThat(recorded.turn()).isEqualTo(2);
+        assertThat(recorded.summary()).isEqualTo("Q: Who knows K8s?\nA: John\nQ: Who knows Kafka?\nA: Jane\n");
+        assertThat(recorded.chunks()).extracting(Chunk::id).containsExactly("2", "1");
+    }
+
+    @Test
+    void ask_partlyCoveredFollowUp_addsUnseenChunksFromAdaptiveRetrieval() {
+        // Arrange
+        String sessionId = service.openSession("jane").sessionId();
+        sessionStore.save(new Session(sessionId, "jane", List.of(chunk("1", "Jane built Kafka streams")), "",
+                "Who knows Kafka?", 1, Instant.now()));
+        when(retrievalService.retrieveSingle("Who knows Kafka? Does Jane know Kafka and Kubernetes?", 4))
+                .thenReturn(List.of(new Document("1", "Jane built Kafka streams", Map.of()),
+                        new Document("2", "Jane runs Kubernetes clusters", Map.of())));
+        when(chatModel.call(any(Prompt.class))).thenReturn(new ChatResponse(List.of(new Generation("Yes"))));
+
+        // Act
+        ConversationAnswerDTO answer = service.ask(sessionId, "jane", "Does Jane know Kafka and Kubernetes?");
+
+        // Assert
+        assertThat(answer.retrieval()).isEqualTo(RetrievalStrategy.DELTA.name());
+        assertThat(sessionStore.find(sessionId).orElseThrow().chunks()).extracting(Chunk::id)
+                .containsExactly("1", "2");
+    }
+
+    @Test
+    void formatChunks_firstChunkOverBudget_isTruncatedToBudget() {
+        // Arrange
+        String oversized = "x".repeat(30_000);
+
+        // Act
+        String context = service.formatChunks(List.of(chunk("1", oversized), chunk("2", "Kafka")));
+
+        // Assert
+        // 6000 tokens of 4 characters.
+        assertThat(context).startsWith("x".repeat(24_000)).doesNotContain("Kafka");
+        assertThat(context.replace("\n\n---\n\n", "")).hasSize(24_000);
+    }
+
+    @Test
+    void closeSession_ofAnotherUser_keepsIt() {
+        // Arrange
+        String sessionId = service.openSession("jane").sessionId();
+
+        // Act
+        service.closeSession(sessionId, "john");
+
+        // Assert
+        assertThat(sessionStore.find(sessionId)).isPresent();
+        service.closeSession(sessionId, "jane");
+        assertThat(sessionStore.find(sessionId)).isEmpty();
+    }
+}
@@ -0,0 +1,75 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.ChunkingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentChunkerTest {
+
+    // 10 tokens = 40 characters per chunk, 4 tokens = 16 characters of overlap
+    private final DocumentChunker chunker = new DocumentChunker(new ChunkingProperties(10, 4));
+
+    @Test
+    void chunk_sentencesOverBudget_cutsAtSentenceBoundaryWithOverlap() {
+        // Arrange
+        String text = "Alpha one. Bravo two. Charlie three. Delta four. Echo five.";
+
+        // Act
+        List<String> chunks = chunk(text);
+
+        // Assert
+        assertThat(chunks).containsExactly(
+                "Alpha one. Bravo two. Charlie three.",
+                "Charlie three. Delta four. Echo five.");
+    }
+
+    @Test
+    void chunk_rawText_sanitizesWhileReading() {
+        // Arrange
+        String text = "  Jane\u0000 Doe \r\n\r\n\r\nSkills:\t Java,   Kafka \r\nExperience\u0007 ";
+
+        // Act
+        List<String> chunks = chunk(text);
+
+        // Assert
+        assertThat(chunks).containsExactly("Jane Doe\n\nSkills: Java, Kafka\nExperience");
+    }
+
+    @Test
+    void chunk_sentenceLongerThanBudget_cutsAtWordBoundary() {
+        // Arrange
+        String text = "word ".repeat(30);
+
+        // Act
+        List<String> chunks = chunk(text);
+
+        // Assert
+        assertThat(chunks).hasSize(4).allSatisfy(chunk -> {
+            assertThat(chunk.length()).isLessThanOrEqualTo(40);
+            assertThat(chunk.split(" ")).containsOnly("word");
+        });
+    }
+
+    @Test
+    void chunk_blankText_emitsNothing() {
+        // Act
+        int emitted = chunker.chunk(new StringReader("   \n\t "), chunk -> {
+            throw new AssertionError("No chunk expected");
+        });
+
+        // Assert
+        assertThat(emitted).isZero();
+    }
+
+    private List<String> chunk(final String text) {
+        List<String> chunks = new ArrayList<>();
+        int emitted = chunker.chunk(new StringReader(text), chunks::add);
+        assertThat(emitted).isEqualTo(chunks.size());
+        return chunks;
+    }
+}
@@ -0,0 +1,101 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.AdmissionProperties;
+import ie.com.rag.exception.IngestionOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestionAdmissionServiceTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // 8 permits, one extra per MB, parsed types cost double
+    private IngestionAdmissionService service(final int maxQueued, final Duration maxWait) {
+        return new IngestionAdmissionService(
+                new AdmissionProperties(8, MB, 2, maxQueued, maxWait, Duration.ofSeconds(5)), meterRegistry);
+    }
+
+    @Test
+    void weightOf_growsWithSizeAndParsedTypes_cappedAtCapacity() {
+        // Arrange
+        IngestionAdmissionService service = service(4, Duration.ofSeconds(1));
+
+        // Act & Assert
+        assertThat(service.weightOf(100, "text/plain")).isEqualTo(1);
+        assertThat(service.weightOf(2 * MB, "text/plain")).isEqualTo(3);
+        assertThat(service.weightOf(100, "application/pdf")).isEqualTo(2);
+        assertThat(service.weightOf(2 * MB, "application/pdf")).isEqualTo(6);
+        assertThat(service.weightOf(50 * MB, "application/pdf")).isEqualTo(8);
+    }
+
+    @Test
+    void admit_queueFull_rejectsImmediately() throws Exception {
+        // Arrange
+        IngestionAdmissionService service = service(0, Duration.ofSeconds(10));
+        IngestionAdmissionService.Permit held = service.admit(50 * MB, "application/pdf");
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.admit(100, "text/plain"))
+                .isInstanceOf(IngestionOverloadedException.class)
+                .satisfies(e -> assertThat(((IngestionOverloadedException) e).isQueueFull()).isTrue());
+        assertThat(meterRegistry.get("rag.ingestion.admission.rejected").tag("reason", "queue_full").counter().count())
+                .isEqualTo(1);
+        held.close();
+    }
+
+    @Test
+    void admit_noCapacityInTime_rejectsAfterWaiting() {
+        // Arrange
+        IngestionAdmissionService service = service(4, Duration.ofMillis(50));
+        IngestionAdmissionService.Permit held = service.admit(50 * MB, "application/pdf");
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.admit(100, "text/plain"))
+                .isInstanceOf(IngestionOverloadedException.class)
+                .satisfies(e -> assertThat(((IngestionOverloadedException) e).isQueueFull()).isFalse());
+        assertThat(meterRegistry.get("rag.ingestion.admission.queue").gauge().value()).isZero();
+        held.close();
+    }
+
+    @Test
+    void admit_waitingUpload_isAdmittedOncePermitsAreReleased() throws Exception {
+        // Arrange
+        IngestionAdmissionService service = service(4, Duration.ofSeconds(10));
+        IngestionAdmissionService.Permit held = service.admit(50 * MB, "application/pdf");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+
+        try {
+            // Act
+            Future<IngestionAdmissionService.Permit> waiting = executor.submit(() -> {
+                started.countDown();
+                return service.admit(100, "text/plain");
+            });
+            started.await();
+            held.close();
+            // Closing twice must not hand out permits that were never taken.
+            held.close();
+
+            // Assert
+            try (IngestionAdmissionService.Permit admitted = waiting.get(5, TimeUnit.SECONDS)) {
+                assertThat(admitted).isNotNull();
+                assertThat(meterRegistry.get("rag.ingestion.admission.permits.used").gauge().value()).isEqualTo(1);
+            }
+            assertThat(meterRegistry.get("rag.ingestion.admission.permits.used").gauge().value()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
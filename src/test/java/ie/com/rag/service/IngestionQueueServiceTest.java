@@ -0,0 +1,296 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.AdmissionProperties;
+import ie.com.rag.config.IngestionQueueProperties;
+import ie.com.rag.dto.UploadStatusDTO;
+import ie.com.rag.entity.UploadStatus;
+import ie.com.rag.entity.UploadedDocument;
+import ie.com.rag.exception.IndexingFailedException;
+import ie.com.rag.exception.IndexingInProgressException;
+import ie.com.rag.exception.ResourceNotFoundException;
+import ie.com.rag.repository.UploadedDocumentRepository;
+import ie.com.rag.service.DocumentExtractionService.ExtractedDocument;
+import ie.com.rag.service.IngestionQueueService.ClaimedUpload;
+import ie.com.rag.utils.SpooledUpload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IngestionQueueServiceTest {
+
+    private static final String CV_TEXT = "Jane Doe Senior Java Developer";
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final UploadedDocumentRepository uploadedDocumentRepository = mock(UploadedDocumentRepository.class);
+    private final DocumentExtractionService documentExtractionService = mock(DocumentExtractionService.class);
+    private final RagUploaderService ragUploaderService = mock(RagUploaderService.class);
+    private final RagDocumentService ragDocumentService = mock(RagDocumentService.class);
+    private final VectorStoreWriter vectorStoreWriter = mock(VectorStoreWriter.class);
+    private final CandidateService candidateService = mock(CandidateService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    // 8 permits, one extra per MB, parsed types cost double
+    private final IngestionAdmissionService admissionService = new IngestionAdmissionService(
+            new AdmissionProperties(8, MB, 2, 4, Duration.ofSeconds(1), Duration.ofSeconds(5)),
+            new SimpleMeterRegistry());
+
+    private IngestionQueueService service() {
+        when(uploadedDocumentRepository.saveAndFlush(any(UploadedDocument.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        return new IngestionQueueService(uploadedDocumentRepository, documentExtractionService, ragUploaderService,
+                ragDocumentService,
+                new IngestionQueueProperties(true, 1, Duration.ofSeconds(2), Duration.ofMinutes(15), 3,
+                        Duration.ofMinutes(1), tempDir.toString()),
+                transactionTemplate, admissionService, vectorStoreWriter, candidateService);
+    }
+
+    private UploadedDocument claimedRetry(final int attempts) throws IOException {
+        Path storedFile = Files.writeString(tempDir.resolve("upload-1"), CV_TEXT);
+        UploadedDocument document = new UploadedDocument();
+        document.setId("00000000-0000-0000-0000-000000000001");
+        document.setFilename("cv.txt");
+        document.setContentType("text/plain");
+        document.setFilePath(storedFile.toString());
+        document.setStatus(UploadStatus.PARSING.name());
+        document.setAttempts(attempts);
+        document.setCandidateId("candidate-1");
+        return document;
+    }
+
+    // A 3 MB PDF costs all 8 permits.
+    private UploadedDocument queued(final String id) {
+        UploadedDocument document = new UploadedDocument();
+        document.setId(id);
+        document.setFilename(id + ".pdf");
+        document.setContentType("application/pdf");
+        document.setFileSize(3 * MB);
+        document.setStatus(UploadStatus.QUEUED.name());
+        return document;
+    }
+
+    @Test
+    void process_indexingFailsWithAttemptsLeft_requeuesWithDelayAndKeepsFile() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(1);
+        when(documentExtractionService.extract(any(SpooledUpload.class), eq("cv.txt"), eq("text/plain")))
+                .thenReturn(new ExtractedDocument("cv.txt", "text/plain", CV_TEXT.length(), CV_TEXT));
+        when(ragDocumentService.processDocument(CV_TEXT, "cv.txt", "candidate-1"))
+                .thenThrow(new IndexingFailedException("2 of 5 chunks of cv.txt could not be stored"));
+
+        // Act
+        service().process(document, admissionService.tryAcquire(CV_TEXT.length(), "text/plain"));
+
+        // Assert
+        assertThat(document.getStatus()).isEqualTo(UploadStatus.QUEUED.name());
+        assertThat(document.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(document.getErrorMessage()).contains("could not be stored");
+        assertThat(Path.of(document.getFilePath())).exists();
+        // The chunks of the earlier attempt are removed before embedding again.
+        verify(vectorStoreWriter).deleteCandidateChunks("candidate-1");
+        verify(candidateService, never()).deleteCandidate(anyString());
+    }
+
+    @Test
+    void process_indexingFailsOnLastAttempt_failsAndCleansUp() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(3);
+        Path storedFile = Path.of(document.getFilePath());
+        when(documentExtractionService.extract(any(SpooledUpload.class), eq("cv.txt"), eq("text/plain")))
+                .thenReturn(new ExtractedDocument("cv.txt", "text/plain", CV_TEXT.length(), CV_TEXT));
+        when(ragDocumentService.processDocument(CV_TEXT, "cv.txt", "candidate-1"))
+                .thenThrow(new IndexingFailedException("2 of 5 chunks of cv.txt could not be stored"));
+
+        // Act
+        service().process(document, admissionService.tryAcquire(CV_TEXT.length(), "text/plain"));
+
+        // Assert
+        assertThat(document.getStatus()).isEqualTo(UploadStatus.FAILED.name());
+        assertThat(document.getFilePath()).isNull();
+        assertThat(storedFile).doesNotExist();
+        assertThat(document.getCandidateId()).isNull();
+        verify(candidateService).deleteCandidate("candidate-1");
+    }
+
+    @Test
+    void process_indexingSucceeds_marksCandidateIndexed() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(1);
+        when(documentExtractionService.extract(any(SpooledUpload.class), eq("cv.txt"), eq("text/plain")))
+                .thenReturn(new ExtractedDocument("cv.txt", "text/plain", CV_TEXT.length(), CV_TEXT));
+
+        // Act
+        service().process(document, admissionService.tryAcquire(CV_TEXT.length(), "text/plain"));
+
+        // Assert
+        assertThat(document.getStatus()).isEqualTo(UploadStatus.DONE.name());
+        verify(candidateService).markIndexed("candidate-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_matchesCandidateStillBeingIndexed_requeuesInsteadOfDuplicate() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(1);
+        document.setCandidateId(null);
+        when(ragUploaderService.registerCv(any(SpooledUpload.class), eq("cv.txt"), eq("text/plain"), any(), any(),
+                any(), any(Consumer.class)))
+                .thenThrow(new IndexingInProgressException("The same CV is still being indexed"));
+
+        // Act
+        service().process(document, admissionService.tryAcquire(CV_TEXT.length(), "text/plain"));
+
+        // Assert
+        assertThat(document.getStatus()).isEqualTo(UploadStatus.QUEUED.name());
+        assertThat(document.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(Path.of(document.getFilePath())).exists();
+        verify(candidateService, never()).deleteCandidate(anyString());
+    }
+
+    @Test
+    void process_reclaimedWhileRunning_leavesFileAndCandidateToTheNewClaim() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(3);
+        IngestionQueueService service = service();
+        when(documentExtractionService.extract(any(SpooledUpload.class), eq("cv.txt"), eq("text/plain")))
+                .thenReturn(new ExtractedDocument("cv.txt", "text/plain", CV_TEXT.length(), CV_TEXT));
+        when(uploadedDocumentRepository.saveAndFlush(document))
+                .thenThrow(new ObjectOptimisticLockingFailureException(UploadedDocument.class, document.getId()));
+
+        // Act
+        service.process(document, admissionService.tryAcquire(CV_TEXT.length(), "text/plain"));
+
+        // Assert
+        assertThat(Path.of(document.getFilePath())).exists();
+        verify(candidateService, never()).deleteCandidate(anyString());
+    }
+
+    @Test
+    void heartbeat_stillClaimed_movesClaimTimeForward() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(1);
+        document.setVersion(2L);
+        document.setClaimedAt(LocalDateTime.now().minusMinutes(10));
+        when(uploadedDocumentRepository.refreshClaim(eq(document.getId()), eq(2L), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        // Act
+        service().heartbeat(document);
+
+        // Assert
+        assertThat(document.getClaimedAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+    }
+
+    @Test
+    void getStatus_ownUpload_isReported() {
+        // Arrange
+        UploadedDocument document = queued("00000000-0000-0000-0000-000000000021");
+        document.setUploadedBy("alice");
+        when(uploadedDocumentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+
+        // Act
+        UploadStatusDTO status = service().getStatus(document.getId(), "alice");
+
+        // Assert
+        assertThat(status.status()).isEqualTo(UploadStatus.QUEUED.name());
+    }
+
+    @Test
+    void getStatus_uploadOfAnotherUser_isNotFound() {
+        // Arrange
+        UploadedDocument document = queued("00000000-0000-0000-0000-000000000022");
+        document.setUploadedBy("alice");
+        when(uploadedDocumentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+        IngestionQueueService service = service();
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.getStatus(document.getId(), "bob"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void process_unreadableFile_failsWithoutRetry() throws IOException {
+        // Arrange
+        UploadedDocument document = claimedRetry(1);
+        when(documentExtractionService.extract(any(SpooledUpload.class), eq("cv.txt"), eq("text/plain")))
+                .thenThrow(new IOException("No parser could read the file"));
+
+        // Act
+        service().process(document, admissionService.tryAcquire(CV_TEXT.length(), "text/plain"));
+
+        // Assert
+        assertThat(document.getStatus()).isEqualTo(UploadStatus.FAILED.name());
+        assertThat(document.getFilePath()).isNull();
+        assertThat(document.getNextAttemptAt()).isNull();
+        verify(candidateService).deleteCandidate("candidate-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claim_noCapacityLeft_leavesUploadQueued() {
+        // Arrange
+        UploadedDocument first = queued("00000000-0000-0000-0000-000000000011");
+        UploadedDocument second = queued("00000000-0000-0000-0000-000000000012");
+        when(uploadedDocumentRepository.findQueuedForClaim(eq(2), any(LocalDateTime.class)))
+                .thenReturn(List.of(first, second));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+
+        // Act
+        List<ClaimedUpload> claimed = service().claim(2);
+
+        // Assert
+        assertThat(claimed).extracting(ClaimedUpload::document).containsExactly(first);
+        assertThat(first.getStatus()).isEqualTo(UploadStatus.PARSING.name());
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(second.getStatus()).isEqualTo(UploadStatus.QUEUED.name());
+        // The claimed upload holds all permits until it is processed.
+        assertThat(admissionService.tryAcquire(100, "text/plain")).isNull();
+        claimed.get(0).permit().close();
+        assertThat(admissionService.tryAcquire(100, "text/plain")).isNotNull();
+    }
+
+    @Test
+    void requeueStale_deletesFilesOfFailedUploads() throws IOException {
+        // Arrange
+        UploadedDocument failed = claimedRetry(3);
+        failed.setStatus(UploadStatus.FAILED.name());
+        Path storedFile = Path.of(failed.getFilePath());
+        when(uploadedDocumentRepository.findByStatusAndFilePathIsNotNull(UploadStatus.FAILED.name()))
+                .thenReturn(List.of(failed));
+
+        // Act
+        service().requeueStale();
+
+        // Assert
+        assertThat(storedFile).doesNotExist();
+        assertThat(failed.getFilePath()).isNull();
+        verify(uploadedDocumentRepository).save(failed);
+    }
+}
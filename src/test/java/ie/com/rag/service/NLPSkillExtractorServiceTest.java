@@ -0,0 +1,69 @@
+package ie.com.rag.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NLPSkillExtractorServiceTest {
+
+    @Test
+    void nerSegments_shortCv_isOneSegment() {
+        // Arrange
+        String cv = "Jane Doe\nSkills: Java, Spring";
+
+        // Act
+        List<String> segments = NLPSkillExtractorService.nerSegments(cv, 100, 1000);
+
+        // Assert
+        assertThat(segments).containsExactly(cv);
+    }
+
+    @Test
+    void nerSegments_longCv_splitsSectionsWithinLimitSkillsFirst() {
+        // Arrange
+        String cv = "Jane Doe\n"
+                + "Experience\n"
+                + "Built payment services in Java for five years.\n".repeat(6)
+                + "Skills\n"
+                + "Java, Spring Boot, PostgreSQL\n";
+
+        // Act
+        List<String> segments = NLPSkillExtractorService.nerSegments(cv, 100, 10_000);
+
+        // Assert
+        assertThat(segments).hasSizeGreaterThan(1);
+        assertThat(segments).allSatisfy(segment -> assertThat(segment.length()).isLessThanOrEqualTo(100));
+        assertThat(segments.get(0)).startsWith("Java, Spring Boot, PostgreSQL");
+        assertThat(String.join("\n", segments)).contains("Jane Doe");
+    }
+
+    @Test
+    void nerSegments_overBudget_annotatesAtMostTheBudget() {
+        // Arrange
+        String cv = "Skills\nJava, Spring\nExperience\n" + "Built payment services in Java.\n".repeat(100);
+
+        // Act
+        List<String> segments = NLPSkillExtractorService.nerSegments(cv, 200, 500);
+
+        // Assert
+        int annotated = segments.stream().mapToInt(segment -> segment.replace("\n", "").length()).sum();
+        assertThat(annotated).isLessThanOrEqualTo(500);
+        assertThat(segments.get(0)).startsWith("Java, Spring");
+    }
+
+    @Test
+    void nerSegments_lineLongerThanSegment_isCutBetweenWords() {
+        // Arrange
+        String line = "word ".repeat(50).trim();
+        String cv = "Experience\n" + line;
+
+        // Act
+        List<String> segments = NLPSkillExtractorService.nerSegments(cv, 42, 10_000);
+
+        // Assert
+        assertThat(segments).allSatisfy(segment -> assertThat(segment.length()).isLessThanOrEqualTo(42));
+        assertThat(String.join(" ", segments).replace('\n', ' ')).isEqualTo(line);
+    }
+}
@@ -0,0 +1,103 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.PdfExtractionProperties;
+import ie.com.rag.utils.SpooledUpload;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfExtractionServiceTest {
+
+    // Parallel from 5 pages, 3 pages per range, at most 20 pages
+    private final PdfExtractionService service = new PdfExtractionService(
+            new PdfExtractionProperties(5, 3, 4, 20, Duration.ofSeconds(30)));
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void extractText_longPdf_joinsParallelRangesInPageOrder() throws IOException {
+        // Arrange
+        Path pdf = writePdf(14);
+
+        // Act
+        List<String> lines = extractLines(pdf);
+
+        // Assert
+        assertThat(lines).containsExactlyElementsOf(pageLabels(14));
+    }
+
+    @Test
+    void extractText_shortPdf_extractsEveryPage() throws IOException {
+        // Arrange
+        Path pdf = writePdf(3);
+
+        // Act
+        List<String> lines = extractLines(pdf);
+
+        // Assert
+        assertThat(lines).containsExactlyElementsOf(pageLabels(3));
+    }
+
+    @Test
+    void extractText_morePagesThanLimit_stopsAtMaxPages() throws IOException {
+        // Arrange
+        Path pdf = writePdf(25);
+
+        // Act
+        List<String> lines = extractLines(pdf);
+
+        // Assert
+        assertThat(lines).containsExactlyElementsOf(pageLabels(20));
+    }
+
+    private List<String> extractLines(final Path pdf) throws IOException {
+        try (SpooledUpload upload = SpooledUpload.of(pdf)) {
+            return service.extractText(upload, "portfolio.pdf").lines()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty())
+                    .toList();
+        }
+    }
+
+    private List<String> pageLabels(final int pages) {
+        return IntStream.rangeClosed(1, pages).mapToObj(page -> "Page " + page).toList();
+    }
+
+    private Path writePdf(final int pages) throws IOException {
+        Path file = tempDir.resolve("portfolio-" + pages + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + i);
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
@@ -0,0 +1,85 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.RetrievalProperties;
+import ie.com.rag.config.RetrievalProperties.RetrievalMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueryExpansionServiceTest {
+
+    private final ChatModel chatModel = mock(ChatModel.class);
+
+    private QueryExpansionService service(final boolean llmExpansionEnabled) {
+        final RetrievalProperties properties = new RetrievalProperties(
+                20, 1, 8, 0.3, 0.15, 6000, RetrievalMode.MULTI_QUERY, 4, llmExpansionEnabled, 60);
+        return new QueryExpansionService(chatModel, properties);
+    }
+
+    @Test
+    void expand_splitsConjunctionsAndKeepsOriginalFirst() {
+        // Act
+        List<String> queries = service(false).expand("Who has Kafka and led a team in fintech?");
+
+        // Assert
+        assertThat(queries).containsExactly(
+                "Who has Kafka and led a team in fintech?",
+                "Who has Kafka",
+                "led a team in fintech");
+        verify(chatModel, never()).call(anyString());
+    }
+
+    @Test
+    void expand_singleClauseWithoutLlm_returnsOriginalOnly() {
+        // Act
+        List<String> queries = service(false).expand("Which candidates know Kubernetes?");
+
+        // Assert
+        assertThat(queries).containsExactly("Which candidates know Kubernetes?");
+    }
+
+    @Test
+    void expand_capsNumberOfQueries() {
+        // Act
+        List<String> queries = service(false).expand("Java, Python, Go, Rust, Scala and Kotlin");
+
+        // Assert
+        assertThat(queries).hasSize(4);
+        assertThat(queries.get(0)).isEqualTo("Java, Python, Go, Rust, Scala and Kotlin");
+    }
+
+    @Test
+    void expand_longSingleClause_usesLlmFallback() {
+        // Arrange
+        when(chatModel.call(anyString())).thenReturn("1. senior backend engineers\n2. payment systems experience\n");
+
+        // Act
+        List<String> queries = service(true).expand("Find me senior backend engineers with payment systems experience");
+
+        // Assert
+        assertThat(queries).containsExactly(
+                "Find me senior backend engineers with payment systems experience",
+                "senior backend engineers",
+                "payment systems experience");
+    }
+
+    @Test
+    void expand_llmFailure_fallsBackToOriginal() {
+        // Arrange
+        when(chatModel.call(anyString())).thenThrow(new IllegalStateException("timeout"));
+
+        // Act
+        List<String> queries = service(true).expand("Find me senior backend engineers with payment systems experience");
+
+        // Assert
+        assertThat(queries).containsExactly("Find me senior backend engineers with payment systems experience");
+    }
+}
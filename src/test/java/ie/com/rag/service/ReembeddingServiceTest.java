@@ -0,0 +1,261 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.config.ReembeddingProperties;
+import ie.com.rag.dto.JobStatusDTO;
+import ie.com.rag.entity.JobCheckpoint;
+import ie.com.rag.entity.JobStatus;
+import ie.com.rag.exception.JobStateException;
+import ie.com.rag.repository.JobCheckpointRepository;
+import ie.com.rag.service.ReembeddingService.CandidateCv;
+import ie.com.rag.service.ReembeddingService.Phase;
+import ie.com.rag.service.VectorStoreWriter.BatchingSink;
+import ie.com.rag.service.VectorStoreWriter.WriteResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReembeddingServiceTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final JobCheckpointRepository checkpointRepository = mock(JobCheckpointRepository.class);
+    private final RagDocumentService ragDocumentService = mock(RagDocumentService.class);
+    private final VectorStoreWriter vectorStoreWriter = mock(VectorStoreWriter.class);
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final ReembeddingService service = new ReembeddingService(jdbcTemplate, transactionTemplate,
+            checkpointRepository, ragDocumentService, vectorStoreWriter, embeddingModel, new ObjectMapper(),
+            new ReembeddingProperties(PAGE_SIZE, 0));
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private JobCheckpoint checkpoint(final Phase phase, final JobStatus status, final String lastKey,
+                                     final long processed, final long failed) {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName(ReembeddingService.JOB_NAME);
+        checkpoint.setRunId(UUID.randomUUID().toString());
+        checkpoint.setPhase(phase.name());
+        checkpoint.setStatus(status.name());
+        checkpoint.setLastKey(lastKey);
+        checkpoint.setProcessed(processed);
+        checkpoint.setFailed(failed);
+        checkpoint.setStartedAt(LocalDateTime.now().minusHours(1));
+        return checkpoint;
+    }
+
+    private BatchingSink sinkWriting(final int chunks) {
+        BatchingSink sink = mock(BatchingSink.class);
+        when(sink.finish()).thenReturn(new WriteResult(chunks, List.of()));
+        return sink;
+    }
+
+    private JobCheckpoint savedCheckpoint() {
+        ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(saved.capture());
+        return saved.getValue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_stoppedRun_resumesAfterCheckpoint() {
+        // Arrange
+        JobCheckpoint stopped = checkpoint(Phase.CANDIDATES, JobStatus.STOPPED, "candidate-1", 1, 0);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(stopped));
+        when(checkpointRepository.claimRun(eq(ReembeddingService.JOB_NAME), eq(stopped.getRunId()),
+                any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(embeddingModel.dimensions()).thenReturn(1536);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any()))
+                .thenReturn(List.of(new CandidateCv("candidate-2", "cv.pdf", "Jane Doe, Java developer")), List.of());
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenReturn(List.of());
+        BatchingSink sink = sinkWriting(3);
+        when(vectorStoreWriter.openRebuildSink()).thenReturn(sink);
+
+        // Act
+        JobStatusDTO status = service.start();
+
+        // Assert
+        assertThat(status.runId()).isEqualTo(UUID.fromString(stopped.getRunId()));
+        verify(checkpointRepository, timeout(5000).atLeastOnce()).save(argThat(checkpoint ->
+                JobStatus.COMPLETED.name().equals(checkpoint.getStatus())));
+        verify(jdbcTemplate).execute("ALTER TABLE vector_store ADD COLUMN IF NOT EXISTS embedding_shadow vector(1536)");
+        // The candidate pass continues after the checkpoint, among candidates registered before the run started.
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class), eq("candidate-1"), eq(stopped.getStartedAt()),
+                eq(PAGE_SIZE));
+        verify(ragDocumentService).chunkDocument(any(Reader.class), eq("cv.pdf"), eq("candidate-2"), any());
+        verify(ragDocumentService, never()).chunkDocument(any(Reader.class), anyString(), eq("candidate-1"), any());
+        assertThat(stopped.getPhase()).isEqualTo(Phase.CHUNKS.name());
+        assertThat(stopped.getProcessed()).isEqualTo(2);
+        assertThat(stopped.getFailed()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_duringRun_stopsAfterCurrentCandidate() throws InterruptedException {
+        // Arrange
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.empty());
+        when(checkpointRepository.claimRun(eq(ReembeddingService.JOB_NAME), anyString(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(embeddingModel.dimensions()).thenReturn(1536);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any()))
+                .thenReturn(List.of(new CandidateCv("candidate-1", "a.pdf", "Jane Doe"),
+                        new CandidateCv("candidate-2", "b.pdf", "John Doe")));
+        BatchingSink sink = sinkWriting(2);
+        when(vectorStoreWriter.openRebuildSink()).thenReturn(sink);
+        CountDownLatch chunking = new CountDownLatch(1);
+        CountDownLatch stopSent = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            chunking.countDown();
+            stopSent.await(5, TimeUnit.SECONDS);
+            return 2;
+        }).when(ragDocumentService).chunkDocument(any(Reader.class), eq("a.pdf"), eq("candidate-1"), any());
+
+        // Act
+        service.start();
+        assertThat(chunking.await(5, TimeUnit.SECONDS)).isTrue();
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(savedCheckpoint()));
+        service.stop();
+        stopSent.countDown();
+
+        // Assert
+        verify(checkpointRepository, timeout(5000).atLeastOnce()).save(argThat(checkpoint ->
+                JobStatus.STOPPED.name().equals(checkpoint.getStatus())));
+        JobCheckpoint stopped = savedCheckpoint();
+        assertThat(stopped.getPhase()).isEqualTo(Phase.CANDIDATES.name());
+        assertThat(stopped.getLastKey()).isEqualTo("candidate-1");
+        assertThat(stopped.getProcessed()).isEqualTo(1);
+        verify(ragDocumentService, never()).chunkDocument(any(Reader.class), anyString(), eq("candidate-2"), any());
+    }
+
+    @Test
+    void start_runningOnAnotherNode_isRejected() {
+        // Arrange
+        JobCheckpoint running = checkpoint(Phase.CANDIDATES, JobStatus.RUNNING, "candidate-1", 1, 0);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(running));
+
+        // Act & Assert
+        assertThatThrownBy(service::start)
+                .isInstanceOf(JobStateException.class)
+                .hasMessageContaining("another node");
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(checkpointRepository, never()).save(any(JobCheckpoint.class));
+    }
+
+    @Test
+    void start_completedRunNotSwapped_givesTheClaimBack() {
+        // Arrange
+        JobCheckpoint completed = checkpoint(Phase.CHUNKS, JobStatus.COMPLETED, "chunk-9", 10, 0);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(completed));
+        when(checkpointRepository.claimRun(eq(ReembeddingService.JOB_NAME), eq(completed.getRunId()),
+                any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act & Assert
+        assertThatThrownBy(service::start)
+                .isInstanceOf(JobStateException.class)
+                .hasMessageContaining("swap it in");
+        verify(checkpointRepository).save(argThat(checkpoint ->
+                JobStatus.COMPLETED.name().equals(checkpoint.getStatus())));
+    }
+
+    @Test
+    void stop_notRunning_isRejected() {
+        // Act & Assert
+        assertThatThrownBy(service::stop).isInstanceOf(JobStateException.class);
+    }
+
+    @Test
+    void swap_runStillRunningOnAnyNode_isRejected() {
+        // Arrange
+        JobCheckpoint running = checkpoint(Phase.CHUNKS, JobStatus.RUNNING, "chunk-3", 4, 0);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(running));
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.swap(true))
+                .isInstanceOf(JobStateException.class)
+                .hasMessageContaining("still running");
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void swap_runWithFailuresWithoutForce_isRejected() {
+        // Arrange
+        JobCheckpoint completed = checkpoint(Phase.CHUNKS, JobStatus.COMPLETED, "chunk-9", 10, 2);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(completed));
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.swap(false))
+                .isInstanceOf(JobStateException.class)
+                .hasMessageContaining("2 items");
+        verify(transactionTemplate, never()).execute(any());
+        assertThat(completed.getPhase()).isEqualTo(Phase.CHUNKS.name());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void swap_runWithFailuresForced_replacesEmbeddingColumn() {
+        // Arrange
+        JobCheckpoint completed = checkpoint(Phase.CHUNKS, JobStatus.COMPLETED, "chunk-9", 10, 2);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(completed));
+        when(embeddingModel.dimensions()).thenReturn(1536);
+        when(jdbcTemplate.update(anyString())).thenReturn(2);
+        when(jdbcTemplate.update(anyString(), eq(ReembeddingService.JOB_NAME), eq(completed.getRunId()))).thenReturn(1);
+        doAnswer(invocation -> invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any(TransactionCallback.class));
+
+        // Act
+        JobStatusDTO status = service.swap(true);
+
+        // Assert
+        assertThat(status.phase()).isEqualTo(Phase.SWAPPED.name());
+        verify(jdbcTemplate).update("DELETE FROM vector_store WHERE embedding_shadow IS NULL");
+        verify(jdbcTemplate).execute("ALTER TABLE vector_store RENAME COLUMN embedding_shadow TO embedding");
+        verify(jdbcTemplate).execute(contains("USING HNSW (embedding vector_cosine_ops)"));
+        verify(checkpointRepository).save(completed);
+    }
+
+    @Test
+    void swap_completedRunWithoutFailures_needsNoForce() {
+        // Arrange
+        JobCheckpoint completed = checkpoint(Phase.CHUNKS, JobStatus.COMPLETED, "chunk-9", 10, 0);
+        when(checkpointRepository.findById(ReembeddingService.JOB_NAME)).thenReturn(Optional.of(completed));
+        when(embeddingModel.dimensions()).thenReturn(3072);
+
+        // Act
+        service.swap(false);
+
+        // Assert
+        verify(transactionTemplate).execute(any());
+    }
+}
@@ -0,0 +1,159 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.RetrievalProperties;
+import ie.com.rag.config.RetrievalProperties.RetrievalMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RetrievalServiceTest {
+
+    private final VectorStore vectorStore = mock(VectorStore.class);
+
+    private RetrievalService service(final int minK, final int maxK, final int maxContextTokens) {
+        final RetrievalProperties properties = new RetrievalProperties(
+                20, minK, maxK, 0.3, 0.15, maxContextTokens, RetrievalMode.SINGLE, 4, false, 60);
+        return new RetrievalService(vectorStore, mock(QueryExpansionService.class), properties,
+                new SimpleMeterRegistry());
+    }
+
+    private RetrievalService multiQueryService(final List<String> queries) {
+        final RetrievalProperties properties = new RetrievalProperties(
+                20, 1, 8, 0.3, 0.15, 6000, RetrievalMode.MULTI_QUERY, 4, false, 60);
+        final QueryExpansionService queryExpansionService = mock(QueryExpansionService.class);
+        when(queryExpansionService.expand(anyString())).thenReturn(queries);
+        return new RetrievalService(vectorStore, queryExpansionService, properties, new SimpleMeterRegistry());
+    }
+
+    private static Document hit(final String id, final double similarity) {
+        return hit(id, similarity, "content of " + id);
+    }
+
+    private static Document hit(final String id, final double similarity, final String content) {
+        final Map<String, Object> metadata = new HashMap<>();
+        metadata.put("distance", 1.0 - similarity);
+        return new Document(id, content, metadata);
+    }
+
+    @Test
+    void selectAdaptively_stopsAtScoreGap() {
+        // Arrange
+        List<Document> candidates = List.of(hit("a", 0.9), hit("b", 0.85), hit("c", 0.6), hit("d", 0.58));
+
+        // Act
+        List<Document> selected = service(1, 8, 6000).selectAdaptively(candidates, true);
+
+        // Assert
+        assertThat(selected).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void selectAdaptively_withoutScoreGap_keepsGapsAboveMinSimilarity() {
+        // Arrange
+        List<Document> candidates = List.of(hit("a", 0.9), hit("b", 0.6), hit("c", 0.2));
+
+        // Act
+        List<Document> selected = service(1, 8, 6000).selectAdaptively(candidates, false);
+
+        // Assert
+        assertThat(selected).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void selectAdaptively_belowMinSimilarity_stillKeepsMinK() {
+        // Arrange
+        List<Document> candidates = List.of(hit("a", 0.2), hit("b", 0.15), hit("c", 0.1));
+
+        // Act
+        List<Document> selected = service(2, 8, 6000).selectAdaptively(candidates, true);
+
+        // Assert
+        assertThat(selected).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void selectAdaptively_stopsAtMaxKAndTokenBudget() {
+        // Arrange
+        List<Document> candidates = List.of(hit("a", 0.9), hit("b", 0.89), hit("c", 0.88), hit("d", 0.87));
+        List<Document> large = List.of(hit("a", 0.9, "x".repeat(30)), hit("b", 0.89, "x".repeat(30)));
+
+        // Act
+        List<Document> byMaxK = service(1, 3, 6000).selectAdaptively(candidates, true);
+        List<Document> byBudget = service(1, 8, 10).selectAdaptively(large, true);
+
+        // Assert
+        assertThat(byMaxK).extracting(Document::getId).containsExactly("a", "b", "c");
+        assertThat(byBudget).extracting(Document::getId).containsExactly("a");
+    }
+
+    @Test
+    void fuseRankings_ordersByAgreementAndKeepsClosestHit() {
+        // Arrange
+        List<Document> first = List.of(hit("a", 0.7), hit("b", 0.6));
+        List<Document> second = List.of(hit("b", 0.9), hit("c", 0.5));
+
+        // Act
+        List<Document> fused = service(1, 8, 6000).fuseRankings(List.of(first, second));
+
+        // Assert
+        assertThat(fused).extracting(Document::getId).containsExactly("b", "a", "c");
+        assertThat(fused.get(0).getMetadata().get("distance")).isEqualTo(1.0 - 0.9);
+    }
+
+    @Test
+    void retrieve_weakestHitsStillGiveMinKContext() {
+        // Arrange
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(hit("a", 0.1)));
+
+        // Act
+        RetrievalService.RetrievalResult result = service(1, 8, 6000).retrieve("Who knows COBOL?");
+
+        // Assert
+        assertThat(result.documents()).extracting(Document::getId).containsExactly("a");
+    }
+
+    @Test
+    void retrieve_oneSubQueryFails_fusesTheOthers() {
+        // Arrange
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenAnswer(invocation -> {
+            SearchRequest request = invocation.getArgument(0);
+            if ("Kafka experience".equals(request.getQuery())) {
+                throw new IllegalStateException("Search timed out");
+            }
+            return List.of(hit("a", 0.8));
+        });
+
+        // Act
+        RetrievalService.RetrievalResult result = multiQueryService(List.of("Java developer", "Kafka experience"))
+                .retrieve("Java developer with Kafka experience");
+
+        // Assert
+        assertThat(result.documents()).extracting(Document::getId).containsExactly("a");
+    }
+
+    @Test
+    void retrieve_everySubQueryFails_fails() {
+        // Arrange
+        when(vectorStore.similaritySearch(any(SearchRequest.class)))
+                .thenThrow(new IllegalStateException("Search timed out"));
+        RetrievalService service = multiQueryService(List.of("Java developer", "Kafka experience"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.retrieve("Java developer with Kafka experience"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Search timed out");
+    }
+}
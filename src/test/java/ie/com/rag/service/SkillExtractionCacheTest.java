@@ -0,0 +1,123 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.SkillCacheProperties;
+import ie.com.rag.entity.SkillExtractionCacheEntry;
+import ie.com.rag.repository.SkillExtractionCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SkillExtractionCacheTest {
+
+    private final SkillExtractionCacheRepository repository = mock(SkillExtractionCacheRepository.class);
+
+    private SkillExtractionCache cache(final boolean enabled, final int maxLocalEntries) {
+        return new SkillExtractionCache(repository, new SkillCacheProperties(enabled, maxLocalEntries),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void get_afterPut_isServedFromMemory() {
+        // Arrange
+        SkillExtractionCache cache = cache(true, 10);
+        cache.put("hash", "v1", List.of("Java", "Spring"));
+
+        // Act
+        Optional<List<String>> skills = cache.get("hash", "v1");
+
+        // Assert
+        assertThat(skills).contains(List.of("Java", "Spring"));
+        verify(repository).save(any(SkillExtractionCacheEntry.class));
+        verify(repository, never()).findById(anyString());
+    }
+
+    @Test
+    void get_storedOnAnotherNode_isLoadedOnceFromTheDatabase() {
+        // Arrange
+        SkillExtractionCache cache = cache(true, 10);
+        SkillExtractionCacheEntry entry = new SkillExtractionCacheEntry("key", "hash", "version", List.of("Docker"), null);
+        when(repository.findById(anyString())).thenReturn(Optional.of(entry));
+
+        // Act
+        cache.get("hash", "v1");
+        Optional<List<String>> skills = cache.get("hash", "v1");
+
+        // Assert
+        assertThat(skills).contains(List.of("Docker"));
+        verify(repository, times(1)).findById(anyString());
+    }
+
+    @Test
+    void get_localTierFull_evictsLeastRecentlyUsed() {
+        // Arrange
+        SkillExtractionCache cache = cache(true, 2);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        cache.put("first", "v1", List.of("Java"));
+        cache.put("second", "v1", List.of("Go"));
+        cache.get("first", "v1");
+        cache.put("third", "v1", List.of("Rust"));
+
+        // Act
+        Optional<List<String>> evicted = cache.get("second", "v1");
+        Optional<List<String>> kept = cache.get("first", "v1");
+
+        // Assert
+        assertThat(evicted).isEmpty();
+        assertThat(kept).contains(List.of("Java"));
+    }
+
+    @Test
+    void get_newDictionaryVersion_misses() {
+        // Arrange
+        SkillExtractionCache cache = cache(true, 10);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        cache.put("hash", "v1", List.of("Java"));
+
+        // Act
+        Optional<List<String>> skills = cache.get("hash", "v2");
+
+        // Assert
+        assertThat(skills).isEmpty();
+    }
+
+    @Test
+    void put_alreadyStoredByAnotherNode_isIgnored() {
+        // Arrange
+        SkillExtractionCache cache = cache(true, 10);
+        when(repository.save(any(SkillExtractionCacheEntry.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act
+        cache.put("hash", "v1", List.of("Java"));
+
+        // Assert
+        assertThat(cache.get("hash", "v1")).contains(List.of("Java"));
+    }
+
+    @Test
+    void get_disabled_neverHitsTheDatabase() {
+        // Arrange
+        SkillExtractionCache cache = cache(false, 10);
+
+        // Act
+        cache.put("hash", "v1", List.of("Java"));
+        Optional<List<String>> skills = cache.get("hash", "v1");
+
+        // Assert
+        assertThat(skills).isEmpty();
+        verify(repository, never()).save(any(SkillExtractionCacheEntry.class));
+        verify(repository, never()).findById(anyString());
+    }
+}
@@ -0,0 +1,136 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.ReextractionProperties;
+import ie.com.rag.entity.JobCheckpoint;
+import ie.com.rag.entity.JobStatus;
+import ie.com.rag.exception.JobStateException;
+import ie.com.rag.repository.JobCheckpointRepository;
+import ie.com.rag.service.NlpAnnotationService.WarmUpState;
+import ie.com.rag.service.SkillReextractionService.CandidateFields;
+import ie.com.rag.service.SkillReextractionService.StoredCandidate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SkillReextractionServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final JobCheckpointRepository checkpointRepository = mock(JobCheckpointRepository.class);
+    private final NLPSkillExtractorService nlpSkillExtractorService = mock(NLPSkillExtractorService.class);
+    private final NlpAnnotationService nlpAnnotationService = mock(NlpAnnotationService.class);
+    private final SkillReextractionService service = new SkillReextractionService(jdbcTemplate, checkpointRepository,
+            nlpSkillExtractorService, nlpAnnotationService, new ReextractionProperties(10, 2, 0));
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void start_nerNotReady_isRejected() {
+        // Arrange
+        when(nlpAnnotationService.getState()).thenReturn(WarmUpState.LOADING);
+
+        // Act & Assert
+        assertThatThrownBy(service::start).isInstanceOf(JobStateException.class);
+        verify(checkpointRepository, never()).save(any(JobCheckpoint.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_updatesOnlyChangedCandidatesAndRetriesFailures() {
+        // Arrange
+        String cv = "Jane Doe\nSkills\nJava, Kotlin";
+        StoredCandidate unchanged = new StoredCandidate("a", "hash-a", cv, CandidateFields.extract(cv, List.of("Java")));
+        StoredCandidate changed = new StoredCandidate("b", "hash-b", cv + " ", CandidateFields.extract(cv, List.of("Java")));
+        StoredCandidate notAnnotated = new StoredCandidate("c", "hash-c", cv + "  ", CandidateFields.extract(cv, List.of()));
+        when(nlpAnnotationService.getState()).thenReturn(WarmUpState.READY);
+        when(checkpointRepository.findById(SkillReextractionService.JOB_NAME)).thenReturn(Optional.empty());
+        when(checkpointRepository.claimRun(eq(SkillReextractionService.JOB_NAME), anyString(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any()))
+                .thenReturn(List.of(unchanged, changed, notAnnotated), List.of());
+        when(jdbcTemplate.query(eq(SkillReextractionService.FAILED_CANDIDATE_PAGE), any(RowMapper.class), any(), any(),
+                any(), any()))
+                .thenReturn(List.of(notAnnotated), List.of());
+        when(nlpSkillExtractorService.extractSkillsWithNer(cv)).thenReturn(Optional.of(List.of("Java")));
+        when(nlpSkillExtractorService.extractSkillsWithNer(cv + " ")).thenReturn(Optional.of(List.of("Java", "Kotlin")));
+        // NER is busy for the last candidate on the first pass and annotates it on the retry pass.
+        when(nlpSkillExtractorService.extractSkillsWithNer(cv + "  "))
+                .thenReturn(Optional.empty(), Optional.of(List.of("Java")));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+
+        // Act
+        service.start();
+
+        // Assert
+        verify(checkpointRepository, timeout(5000).atLeastOnce()).save(argThat(checkpoint ->
+                JobStatus.COMPLETED.name().equals(checkpoint.getStatus())));
+        verify(jdbcTemplate).batchUpdate(eq(SkillReextractionService.RECORD_FAILURE),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && "c".equals(rows.get(0)[1])));
+        verify(jdbcTemplate).batchUpdate(eq(SkillReextractionService.CLEAR_FAILURE),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && "c".equals(rows.get(0)[1])));
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(SkillReextractionService.UPDATE_CANDIDATE),
+                argThat((List<Object> rows) -> rows.size() == 1), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(saved.capture());
+        assertThat(saved.getValue().getPhase()).isEqualTo(SkillReextractionService.Phase.RETRYING.name());
+        assertThat(saved.getValue().getProcessed()).isEqualTo(3);
+        assertThat(saved.getValue().getFailed()).isZero();
+        assertThat(saved.getValue().getLastKey()).isEqualTo("c");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_failingAgainOnRetry_staysCountedAsFailed() {
+        // Arrange
+        String cv = "Jane Doe\nSkills\nJava";
+        StoredCandidate notAnnotated = new StoredCandidate("a", "hash-a", cv, CandidateFields.extract(cv, List.of()));
+        when(nlpAnnotationService.getState()).thenReturn(WarmUpState.READY);
+        when(checkpointRepository.findById(SkillReextractionService.JOB_NAME)).thenReturn(Optional.empty());
+        when(checkpointRepository.claimRun(eq(SkillReextractionService.JOB_NAME), anyString(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any()))
+                .thenReturn(List.of(notAnnotated), List.of());
+        when(jdbcTemplate.query(eq(SkillReextractionService.FAILED_CANDIDATE_PAGE), any(RowMapper.class), any(), any(),
+                any(), any()))
+                .thenReturn(List.of(notAnnotated), List.of());
+        when(nlpSkillExtractorService.extractSkillsWithNer(cv)).thenReturn(Optional.empty());
+
+        // Act
+        service.start();
+
+        // Assert
+        verify(checkpointRepository, timeout(5000).atLeastOnce()).save(argThat(checkpoint ->
+                JobStatus.COMPLETED.name().equals(checkpoint.getStatus())));
+        verify(jdbcTemplate, never()).batchUpdate(eq(SkillReextractionService.CLEAR_FAILURE), anyList());
+        ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(saved.capture());
+        assertThat(saved.getValue().getProcessed()).isZero();
+        assertThat(saved.getValue().getFailed()).isEqualTo(1);
+    }
+}
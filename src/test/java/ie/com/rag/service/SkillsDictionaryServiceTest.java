@@ -0,0 +1,127 @@
+package ie.com.rag.service;
+
+import ie.com.rag.config.SkillsDictionaryProperties;
+import ie.com.rag.dto.SkillsDictionaryDTO;
+import ie.com.rag.utils.SkillDatabaseLoader.SkillCategory;
+import ie.com.rag.utils.SkillsDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SkillsDictionaryServiceTest {
+
+    private static final String JAVA_AND_SQL = """
+            {
+              "capitalization": [ { "lower": "sql", "proper": "SQL" } ],
+              "skills": [
+                { "name": "Java", "category": "TECHNICAL" },
+                { "name": "SQL", "category": "DATABASE" },
+                { "name": "java", "category": "FRAMEWORK" }
+              ]
+            }
+            """;
+
+    private static final String JAVA_AND_KOTLIN = """
+            {
+              "skills": [
+                { "name": "Java", "category": "TECHNICAL" },
+                { "name": "Kotlin", "category": "TECHNICAL" }
+              ]
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private SkillsDictionaryService service(final Path file) {
+        return new SkillsDictionaryService(new SkillsDictionaryProperties(file.toString(), Duration.ZERO));
+    }
+
+    private Path writeDictionary(final String content) throws IOException {
+        return Files.writeString(tempDir.resolve("skills.json"), content);
+    }
+
+    @Test
+    void current_compilesSkillIdsCategoriesAndCapitalization() throws IOException {
+        // Arrange
+        SkillsDictionaryService service = service(writeDictionary(JAVA_AND_SQL));
+
+        // Act
+        SkillsDictionary dictionary = service.current();
+
+        // Assert
+        assertThat(dictionary.size()).isEqualTo(2);
+        assertThat(dictionary.idOf(" JAVA ")).isEqualTo(dictionary.idOf("java"));
+        assertThat(dictionary.categoryOf(dictionary.idOf("java"))).isEqualTo(SkillCategory.TECHNICAL);
+        assertThat(dictionary.idOf("Kotlin")).isEqualTo(SkillsDictionary.UNKNOWN_SKILL);
+        assertThat(dictionary.getSkillsByCategory(SkillCategory.DATABASE)).containsExactly("SQL");
+        assertThat(dictionary.getSkillsByCategory(SkillCategory.SOFT_SKILL)).isEmpty();
+        assertThat(dictionary.getProperCapitalization("Sql")).isEqualTo("SQL");
+        assertThat(dictionary.getMatcher().findAll("Java and sql")).containsExactly("java", "sql");
+    }
+
+    @Test
+    void reload_changedFile_swapsInNewSnapshot() throws IOException {
+        // Arrange
+        Path file = writeDictionary(JAVA_AND_SQL);
+        SkillsDictionaryService service = service(file);
+        SkillsDictionary before = service.current();
+        Files.writeString(file, JAVA_AND_KOTLIN);
+
+        // Act
+        SkillsDictionaryDTO status = service.reload();
+
+        // Assert
+        SkillsDictionary after = service.current();
+        assertThat(after.getVersion()).isNotEqualTo(before.getVersion()).isEqualTo(status.version());
+        assertThat(after.isKnownSkill("Kotlin")).isTrue();
+        assertThat(before.isKnownSkill("Kotlin")).isFalse();
+        assertThat(status.skills()).isEqualTo(2);
+    }
+
+    @Test
+    void reload_unchangedFile_keepsCurrentSnapshot() throws IOException {
+        // Arrange
+        SkillsDictionaryService service = service(writeDictionary(JAVA_AND_SQL));
+        SkillsDictionary before = service.current();
+
+        // Act
+        service.reload();
+
+        // Assert
+        assertThat(service.current()).isSameAs(before);
+    }
+
+    @Test
+    void reload_invalidFile_keepsCurrentSnapshot() throws IOException {
+        // Arrange
+        Path file = writeDictionary(JAVA_AND_SQL);
+        SkillsDictionaryService service = service(file);
+        SkillsDictionary before = service.current();
+        Files.writeString(file, "{ \"skills\": [ ");
+
+        // Act & Assert
+        assertThatThrownBy(service::reload).isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.current()).isSameAs(before);
+    }
+
+    @Test
+    void current_noFileConfigured_loadsBundledDictionary() {
+        // Arrange
+        SkillsDictionaryService service = new SkillsDictionaryService(new SkillsDictionaryProperties("", Duration.ZERO));
+
+        // Act
+        SkillsDictionaryDTO status = service.getStatus();
+
+        // Assert
+        assertThat(status.source()).isEqualTo("classpath:skills.json");
+        assertThat(service.current().isKnownSkill("Java")).isTrue();
+    }
+}
@@ -0,0 +1,130 @@
+package ie.com.rag.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.com.rag.config.EmbeddingBatchProperties;
+import ie.com.rag.service.VectorStoreWriter.WriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VectorStoreWriterTest {
+
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final VectorStoreWriter writer = new VectorStoreWriter(embeddingModel, jdbcTemplate, new ObjectMapper(),
+            new EmbeddingBatchProperties(8, 3, Duration.ofMillis(1), "text-embedding-3-small"), new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        when(embeddingModel.dimensions()).thenReturn(1536);
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream()
+                .map(text -> List.of(0.1, 0.2))
+                .toList());
+    }
+
+    private List<Document> chunks(final int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new Document("chunk " + i, new HashMap<>(Map.of("chunk", i))))
+                .toList();
+    }
+
+    @Test
+    void write_rejectedChunk_isIsolatedWithoutRetries() {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] parameters = (Object[]) invocation.getRawArguments()[1];
+            if (Arrays.asList(parameters).contains("chunk 3")) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            return parameters.length / 4;
+        });
+
+        // Act
+        WriteResult result = writer.write(chunks(8));
+
+        // Assert
+        assertThat(result.written()).isEqualTo(7);
+        assertThat(result.dropped()).extracting(Document::getContent).containsExactly("chunk 3");
+        verify(embeddingModel, times(1)).embed(anyList());
+        // The full batch once, then one insert per node of the split down to the rejected chunk.
+        verify(jdbcTemplate, times(7)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void write_embeddingFailure_dropsBatchWithoutSplitting() {
+        // Arrange
+        when(embeddingModel.embed(anyList())).thenThrow(new IllegalStateException("input too long"));
+
+        // Act
+        WriteResult result = writer.rewrite(chunks(8));
+
+        // Assert
+        assertThat(result.written()).isZero();
+        assertThat(result.failed()).isEqualTo(8);
+        verify(embeddingModel, times(1)).embed(anyList());
+        verify(jdbcTemplate, times(0)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void write_transientFailure_isRetriedAtBatchLevel() {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(8);
+
+        // Act
+        WriteResult result = writer.write(chunks(8));
+
+        // Assert
+        assertThat(result.written()).isEqualTo(8);
+        assertThat(result.dropped()).isEmpty();
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+        verify(embeddingModel, times(1)).embed(anyList());
+    }
+
+    @Test
+    void write_reusesOnlyVectorsOfTheCurrentModel() {
+        // Arrange
+        List<Document> chunks = chunks(2);
+        List<Object> queryParameters = new ArrayList<>();
+        doAnswer(invocation -> {
+            queryParameters.addAll(Arrays.asList((Object[]) invocation.getRawArguments()[2]));
+            return null;
+        }).when(jdbcTemplate).query(contains("metadata->>'embeddingModel' = ?"), any(RowCallbackHandler.class),
+                any(Object[].class));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2);
+
+        // Act
+        writer.write(chunks);
+
+        // Assert
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.getMetadata())
+                .containsEntry(VectorStoreWriter.EMBEDDING_MODEL_KEY, "text-embedding-3-small:1536"));
+        assertThat(queryParameters).first().isEqualTo("text-embedding-3-small:1536");
+    }
+}
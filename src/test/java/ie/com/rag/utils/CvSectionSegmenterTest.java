@@ -0,0 +1,83 @@
+package ie.com.rag.utils;
+
+import ie.com.rag.utils.CvSectionSegmenter.CvSections;
+import ie.com.rag.utils.CvSectionSegmenter.Section;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class CvSectionSegmenterTest {
+
+    @Test
+    void segment_headedCv_splitsSectionsAndDerivesDetails() {
+        // Arrange
+        String cv = """
+                Jane Doe
+                jane@example.com
+
+                SUMMARY
+                Backend engineer with 7+ years of experience in Java.
+
+                Work Experience:
+                Acme Corp - Senior Developer (2019 - 2024)
+                Built Kafka pipelines.
+
+                Education
+                BSc in Computer Science, University College Dublin
+
+                Skills: Java, Kafka, PostgreSQL
+                """;
+
+        // Act
+        CvSections sections = CvSectionSegmenter.segment(cv);
+
+        // Assert
+        assertThat(sections.sections().get(Section.HEADER)).isEqualTo("Jane Doe\njane@example.com");
+        assertThat(sections.sections().get(Section.SKILLS)).isEqualTo("Java, Kafka, PostgreSQL");
+        assertThat(sections.experience()).isEqualTo("Acme Corp - Senior Developer (2019 - 2024)\nBuilt Kafka pipelines.");
+        assertThat(sections.education()).isEqualTo("BSc in Computer Science, University College Dublin");
+        assertThat(sections.yearsOfExperience()).isEqualTo(7);
+    }
+
+    @Test
+    void segment_noHeadings_fallsBackToEducationLines() {
+        // Arrange
+        String cv = "Jane\nI studied at Trinity College Dublin.\nMaster of Science in Data Analytics\nI have 3 years work in retail";
+
+        // Act
+        CvSections sections = CvSectionSegmenter.segment(cv);
+
+        // Assert
+        assertThat(sections.experience()).isEqualTo(CvSectionSegmenter.EXPERIENCE_NOT_FOUND);
+        assertThat(sections.education())
+                .isEqualTo("I studied at Trinity College Dublin.; Master of Science in Data Analytics");
+        assertThat(sections.yearsOfExperience()).isEqualTo(3);
+    }
+
+    @Test
+    void segment_blankText_returnsDefaults() {
+        // Act
+        CvSections sections = CvSectionSegmenter.segment("  \n ");
+
+        // Assert
+        assertThat(sections.sections()).isEmpty();
+        assertThat(sections.education()).isEqualTo(CvSectionSegmenter.EDUCATION_NOT_FOUND);
+        assertThat(sections.yearsOfExperience()).isNull();
+    }
+
+    @Test
+    void segment_adversarialText_finishesQuickly() {
+        // Arrange
+        String unclosedSection = "Experience " + "Lorem ipsum, dolor sit amet ".repeat(40_000) + "university";
+        String digitRuns = "1234567890 9 9 9 year ".repeat(50_000);
+
+        // Act & Assert
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            CvSectionSegmenter.segment(unclosedSection);
+            CvSectionSegmenter.segment(digitRuns);
+        });
+    }
+}
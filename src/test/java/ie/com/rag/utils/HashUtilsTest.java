@@ -0,0 +1,55 @@
+package ie.com.rag.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashUtilsTest {
+
+    @Test
+    void sha256_knownInput_returnsHexDigest() {
+        // Arrange
+        ByteBuffer content = ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        String hash = HashUtils.sha256(content);
+
+        // Assert
+        assertThat(hash).isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    void sha256OfNormalizedText_ignoresCaseAndWhitespaceLayout() {
+        // Act
+        String original = HashUtils.sha256OfNormalizedText("Jane Doe\nSenior Java Developer\n\nSkills: Kafka");
+        String reExported = HashUtils.sha256OfNormalizedText("  JANE DOE Senior   Java\tDeveloper\r\nSkills: kafka  ");
+
+        // Assert
+        assertThat(reExported).isEqualTo(original);
+    }
+
+    @Test
+    void sha256OfNormalizedText_differentWords_differ() {
+        // Act
+        String first = HashUtils.sha256OfNormalizedText("Senior Java Developer");
+        String second = HashUtils.sha256OfNormalizedText("Senior Python Developer");
+
+        // Assert
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void sha256OfChunkText_ignoresWhitespaceLayoutOnly() {
+        // Act
+        String original = HashUtils.sha256OfChunkText("Senior Java Developer\nSkills: Kafka");
+        String reWrapped = HashUtils.sha256OfChunkText("  Senior   Java\tDeveloper\r\nSkills: Kafka ");
+        String recased = HashUtils.sha256OfChunkText("senior java developer skills: kafka");
+
+        // Assert
+        assertThat(reWrapped).isEqualTo(original);
+        assertThat(recased).isNotEqualTo(original);
+    }
+}
@@ -0,0 +1,27 @@
+package ie.com.rag.utils;
+
+/**
+ * The regex-based sanitizer {@link TextUtils#sanitizeTextContent(String)} replaced, kept as the reference for
+ * equivalence tests and benchmarks.
+ */
+public final class LegacyTextSanitizer {
+
+    private LegacyTextSanitizer() {
+    }
+
+    public static String sanitize(String content) {
+        if (content == null) {
+            return "";
+        }
+
+        content = content.replace("\u0000", "");
+        content = content.replaceAll("[\u0001-\u0008\u000B\u000C\u000E-\u001F\u007F]", "");
+        content = content.replaceAll("\r\n", "\n").replaceAll("\r", "\n");
+        content = content.replaceAll("[ \t]+", " ");
+        content = content.replaceAll("\n[ \t]+", "\n");
+        content = content.replaceAll("[ \t]+\n", "\n");
+        content = content.replaceAll("\n{3,}", "\n\n");
+
+        return content.trim();
+    }
+}
@@ -0,0 +1,107 @@
+package ie.com.rag.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkillMatcherTest {
+
+    private final SkillMatcher matcher = SkillMatcher.compile(List.of(
+            "Java", "JavaScript", "Spring", "Spring Boot", "C", "C++", ".NET", "Node.js", "CI/CD", "SQL",
+            "PostgreSQL", "Go"));
+
+    @Test
+    void findAll_matchesWholeWordsIgnoringCase() {
+        // Arrange
+        String text = "Built REST services in JAVA and spring boot, deployed with ci/cd.";
+
+        // Act
+        Set<String> skills = matcher.findAll(text);
+
+        // Assert
+        assertThat(skills).containsExactly("java", "spring", "spring boot", "ci/cd");
+    }
+
+    @Test
+    void findAll_doesNotMatchInsideLongerWords() {
+        // Arrange
+        String text = "JavaScript developer, Golang enthusiast, MySQL2 and Cobol";
+
+        // Act
+        Set<String> skills = matcher.findAll(text);
+
+        // Assert
+        assertThat(skills).containsExactly("javascript");
+    }
+
+    @Test
+    void findAll_overlappingAndSymbolSkills_areAllFound() {
+        // Arrange
+        String text = "C, C++ and ASP.NET on Node.js with PostgreSQL";
+
+        // Act
+        Set<String> skills = matcher.findAll(text);
+
+        // Assert
+        assertThat(skills).containsExactlyInAnyOrder("c", "c++", ".net", "node.js", "postgresql");
+    }
+
+    @Test
+    void findAll_emptyTextOrDictionary_findsNothing() {
+        // Act & Assert
+        assertThat(matcher.findAll("")).isEmpty();
+        assertThat(matcher.findAll(null)).isEmpty();
+        assertThat(SkillMatcher.compile(List.of(" ", "")).findAll("Java")).isEmpty();
+    }
+
+    @Test
+    void findAll_randomText_agreesWithNaiveWholeWordSearch() {
+        // Arrange
+        Random random = new Random(7);
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            dictionary.add(randomWord(random, 1 + random.nextInt(4)));
+        }
+        SkillMatcher randomMatcher = SkillMatcher.compile(dictionary);
+
+        for (int run = 0; run < 200; run++) {
+            String text = randomWord(random, 200);
+
+            // Act
+            Set<String> skills = randomMatcher.findAll(text);
+
+            // Assert
+            for (String skill : dictionary) {
+                assertThat(skills.contains(skill)).as("%s in %s", skill, text).isEqualTo(containsWord(text, skill));
+            }
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        String alphabet = "ab c.";
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString().trim().isEmpty() ? "a" : word.toString().trim();
+    }
+
+    private static boolean containsWord(String text, String skill) {
+        for (int start = text.indexOf(skill); start >= 0; start = text.indexOf(skill, start + 1)) {
+            int end = start + skill.length();
+            boolean startBoundary = start == 0 || !Character.isLetterOrDigit(skill.charAt(0))
+                    || !Character.isLetterOrDigit(text.charAt(start - 1));
+            boolean endBoundary = end == text.length() || !Character.isLetterOrDigit(skill.charAt(skill.length() - 1))
+                    || !Character.isLetterOrDigit(text.charAt(end));
+            if (startBoundary && endBoundary) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package ie.com.rag.utils;
+
+import ie.com.rag.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TechTermClassifierTest {
+
+    // The alternation regex the classifier replaces
+    private static final Pattern LEGACY_TECH_PATTERN = Pattern.compile(
+            Constants.TECH_TERMS.stream().map(Pattern::quote).collect(Collectors.joining("|", "\\b(", ")\\b")),
+            Pattern.CASE_INSENSITIVE);
+
+    private final TechTermClassifier classifier = TechTermClassifier.compile(
+            List.of("Hibernate", "Amazon Web Services"), Constants.TECH_TERMS);
+
+    @Test
+    void isTechnicalTerm_dictionaryTermOrVocabularyWord_isTechnical() {
+        // Act & Assert
+        assertThat(classifier.isTechnicalTerm(" hibernate ")).isTrue();
+        assertThat(classifier.isTechnicalTerm("Amazon Web Services")).isTrue();
+        assertThat(classifier.isTechnicalTerm("Java")).isTrue();
+        assertThat(classifier.isTechnicalTerm("Spring Boot 3")).isTrue();
+        assertThat(classifier.isTechnicalTerm("CI/CD")).isTrue();
+    }
+
+    @Test
+    void isTechnicalTerm_otherWords_areNotTechnical() {
+        // Act & Assert
+        assertThat(classifier.isTechnicalTerm("Dublin")).isFalse();
+        assertThat(classifier.isTechnicalTerm("Javanese")).isFalse();
+        assertThat(classifier.isTechnicalTerm("restaurant")).isFalse();
+        assertThat(classifier.isTechnicalTerm("")).isFalse();
+        assertThat(classifier.isTechnicalTerm(null)).isFalse();
+    }
+
+    @Test
+    void isTechnicalTerm_randomTerms_agreesWithLegacyPattern() {
+        // Arrange
+        Random random = new Random(11);
+        String[] pieces = {"java", "script", "spring", " ", "boot", "ci/cd", "go", "lang", "-", ".", "1", "x", "ai",
+                "sql", "my", "/", "rest", "ful", "machine", "learning", "Kafka", "NODEJS", "_"};
+        TechTermClassifier vocabularyOnly = TechTermClassifier.compile(List.of(), Constants.TECH_TERMS);
+
+        for (int run = 0; run < 20_000; run++) {
+            StringBuilder term = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int i = 0; i < length; i++) {
+                term.append(pieces[random.nextInt(pieces.length)]);
+            }
+
+            // Act
+            boolean technical = vocabularyOnly.isTechnicalTerm(term.toString());
+
+            // Assert
+            boolean legacy = !term.toString().isBlank()
+                    && LEGACY_TECH_PATTERN.matcher(term.toString().trim().toLowerCase()).find();
+            assertThat(technical).as(term.toString()).isEqualTo(legacy);
+        }
+    }
+
+    @Test
+    void findVocabulary_findsEveryWordIncludingOverlappingOnes() {
+        // Act & Assert
+        assertThat(classifier.findVocabulary("Spring Boot microservices on AWS with Docker"))
+                .containsExactly("spring", "spring boot", "microservices", "aws", "docker");
+    }
+}
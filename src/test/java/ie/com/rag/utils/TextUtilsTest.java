@@ -0,0 +1,79 @@
+package ie.com.rag.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextUtilsTest {
+
+    private static final char[] ALPHABET = {
+            'a', 'b', '.', ' ', ' ', '\t', '\n', '\r', '\u0000', '\u0001', '\u000B', '\u000C', '\u001F', '\u007F', 'é'
+    };
+
+    @Test
+    void sanitizeTextContent_dirtyText_normalizesWhitespaceAndControls() {
+        // Arrange
+        String text = "  Jane\u0000 Doe \t\r\n\r\n\r\n  Java,\u0007   Kafka \rSQL  ";
+
+        // Act
+        String sanitized = TextUtils.sanitizeTextContent(text);
+
+        // Assert
+        assertThat(sanitized).isEqualTo("Jane Doe\n\nJava, Kafka\nSQL");
+    }
+
+    @Test
+    void sanitizeTextContent_cleanText_returnsSameInstance() {
+        // Arrange
+        String text = "Jane Doe\n\nJava, Kafka\nSQL";
+
+        // Act
+        String sanitized = TextUtils.sanitizeTextContent(text);
+
+        // Assert
+        assertThat(sanitized).isSameAs(text);
+    }
+
+    @Test
+    void sanitizeTextContent_null_returnsEmpty() {
+        // Act & Assert
+        assertThat(TextUtils.sanitizeTextContent(null)).isEmpty();
+    }
+
+    @Test
+    void sanitizeTextContent_randomText_matchesLegacyAndIsIdempotent() {
+        // Arrange
+        Random random = new Random(42);
+
+        for (int run = 0; run < 100_000; run++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                text.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+
+            // Act
+            String sanitized = TextUtils.sanitizeTextContent(text.toString());
+
+            // Assert
+            assertThat(sanitized).isEqualTo(LegacyTextSanitizer.sanitize(text.toString()));
+            assertThat(TextUtils.sanitizeTextContent(sanitized)).isSameAs(sanitized);
+        }
+    }
+
+    @Test
+    void truncateErrorMessage_longOrMissingMessage_isBounded() {
+        // Arrange
+        String message = "x".repeat(1500);
+
+        // Act
+        String truncated = TextUtils.truncateErrorMessage(message);
+
+        // Assert
+        assertThat(truncated).hasSize(1000);
+        assertThat(TextUtils.truncateErrorMessage(null)).isEqualTo("Unknown error");
+        assertThat(TextUtils.truncateErrorMessage("timeout")).isEqualTo("timeout");
+    }
+}